@@ -0,0 +1,77 @@
+import java.util.ArrayList;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Parent class of all benchmarks. A benchmark sets up a fixed number of entities, and then times a single operation
+ * over those entities many times. Benchmarks only use the simulation classes, so they run without a window.
+ */
+public abstract class Benchmark {
+    private final String name;
+
+    // Seeded, so every run of a benchmark places its entities in the same positions
+    private final Random random = new Random(42);
+
+    /**
+     * Creates a new benchmark
+     * @param name The name the results of this benchmark are reported under
+     */
+    public Benchmark(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Creates the entities used by the benchmark. Called before the benchmark is timed for each entity count
+     * @param count The number of entities to benchmark with
+     */
+    public abstract void setup(int count);
+
+    /**
+     * Runs the operation being timed once. The result is combined into a value the runner keeps, so the JIT
+     * compiler can not remove the work as unused
+     * @return Any value which depends on the work done
+     */
+    public abstract long run();
+
+    /**
+     * Get the name the results of this benchmark are reported under
+     * @return The name of the benchmark
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get a random number between two values, from the benchmark's seeded random number generator
+     * @param min The lowest possible value
+     * @param max The highest possible value
+     * @return A random number from min (inclusive) to max (exclusive)
+     */
+    public double random(double min, double max) {
+        return min + random.nextDouble() * (max - min);
+    }
+
+    /**
+     * Read the game properties used by the game itself. Benchmarks can change them before building a game config
+     * @return The game properties
+     */
+    public static Properties readGameProps() {
+        return IOUtils.readPropertiesFile("res/app.properties");
+    }
+
+    /**
+     * Read the tick rate the game runs at, which the objects a benchmark creates need to scale their speeds
+     * @return The number of ticks per second
+     */
+    public static int readTickRate() {
+        return new GameConfig(readGameProps()).getTickRate();
+    }
+
+    /**
+     * Read the platforms of level 2 of the game, which most benchmarks use as the level layout
+     * @return An array list of all level 2 platforms
+     */
+    public static ArrayList<Platform> readPlatforms() {
+        return Platform.readPlatforms(new GameConfig(readGameProps()).getLevel(2), readTickRate());
+    }
+}
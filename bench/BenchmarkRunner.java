@@ -0,0 +1,193 @@
+import java.util.ArrayList;
+import java.util.Locale;
+
+/**
+ * Runs every benchmark for each entity count, and writes the results as JSON in the same format as JMH, so existing
+ * JMH tooling can compare results between commits.
+ * JMH itself can not be used, as it does not support benchmarks in the default package, which is where every game
+ * class lives. Each benchmark is instead run in this JVM: it is warmed up for a number of iterations, then timed
+ * for a number of measured iterations, with the average time per operation of each iteration recorded.
+ *
+ * Settings are read from system properties:
+ * bench.counts (entity counts, default 10,100,1000), bench.warmup (warmup iterations, default 3),
+ * bench.iterations (measured iterations, default 5), bench.time (milliseconds per iteration, default 500),
+ * bench.filter (only run benchmarks whose name contains this), bench.output (JSON file, default bench-result.json)
+ */
+public class BenchmarkRunner {
+    // z score for a 99.9% confidence interval, matching the error JMH reports
+    private static final double Z_999 = 3.291;
+
+    // Results of every benchmark are combined into this, so that no benchmark's work can be removed as unused
+    private static volatile long sink;
+
+    /**
+     * Runs the benchmarks
+     * @param args Command-line arguments (not used, settings are read from system properties)
+     */
+    public static void main(String[] args) {
+        String[] counts = System.getProperty("bench.counts", "10,100,1000").split(",");
+        int warmup = Integer.getInteger("bench.warmup", 3);
+        int iterations = Integer.getInteger("bench.iterations", 5);
+        long iterationNanos = Integer.getInteger("bench.time", 500) * 1_000_000L;
+        String filter = System.getProperty("bench.filter", "");
+        String output = System.getProperty("bench.output", "bench-result.json");
+
+        ArrayList<Benchmark> benchmarks = new ArrayList<Benchmark>();
+        benchmarks.add(new IntersectsBenchmark());
+        benchmarks.add(new FallBenchmark());
+        benchmarks.add(new RestingPhysicsBenchmark());
+        benchmarks.add(new PlatformIntersectBenchmark());
+        benchmarks.add(new LadderAdjustBenchmark());
+        benchmarks.add(new MonkeyPathBenchmark());
+        benchmarks.add(new MarioTouchBenchmark());
+        benchmarks.add(new LevelTickBenchmark());
+        benchmarks.add(new SnapshotBenchmark());
+        benchmarks.add(new StartupBenchmark());
+
+        StringBuilder json = new StringBuilder("[\n");
+        System.out.printf("%-20s %8s %14s %12s%n", "Benchmark", "count", "ns/op", "error");
+
+        for (Benchmark benchmark : benchmarks) {
+            if (!benchmark.getName().contains(filter)) {
+                continue;
+            }
+
+            for (String countString : counts) {
+                int count = Integer.parseInt(countString.trim());
+                benchmark.setup(count);
+
+                for (int i = 0; i < warmup; i++) {
+                    measure(benchmark, iterationNanos);
+                }
+
+                double[] scores = new double[iterations];
+                for (int i = 0; i < iterations; i++) {
+                    scores[i] = measure(benchmark, iterationNanos);
+                }
+
+                double score = mean(scores);
+                double error = error(scores, score);
+                System.out.printf("%-20s %8d %14.3f %12.3f%n", benchmark.getName(), count, score, error);
+
+                if (json.length() > 2) {
+                    json.append(",\n");
+                }
+                appendResult(json, benchmark.getName(), count, warmup, iterations, iterationNanos, scores, score,
+                        error);
+            }
+        }
+
+        json.append("\n]\n");
+        if (IOUtils.writeFile(output, json.toString().getBytes())) {
+            System.out.println("Results written to " + output);
+        }
+    }
+
+    /**
+     * Helper method to run a benchmark repeatedly for one iteration
+     * @param benchmark The benchmark to run
+     * @param iterationNanos How long to run the benchmark for, in nanoseconds
+     * @return The average time of one operation, in nanoseconds
+     */
+    private static double measure(Benchmark benchmark, long iterationNanos) {
+        long result = 0;
+        long operations = 0;
+        long start = System.nanoTime();
+        long elapsed;
+
+        // Check the time every few operations, so reading the clock does not dominate fast benchmarks
+        do {
+            for (int i = 0; i < 64; i++) {
+                result += benchmark.run();
+            }
+            operations += 64;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < iterationNanos);
+
+        sink += result;
+        return elapsed / (double) operations;
+    }
+
+    /**
+     * Helper method to find the mean of some values
+     * @param values The values
+     * @return The mean of the values
+     */
+    private static double mean(double[] values) {
+        double total = 0;
+        for (double value : values) {
+            total += value;
+        }
+        return total / values.length;
+    }
+
+    /**
+     * Helper method to find the half-width of the 99.9% confidence interval of the mean of some values
+     * @param values The values
+     * @param mean The mean of the values
+     * @return The error of the mean, or NaN if there are not enough values
+     */
+    private static double error(double[] values, double mean) {
+        if (values.length < 2) {
+            return Double.NaN;
+        }
+        double squares = 0;
+        for (double value : values) {
+            squares += (value - mean) * (value - mean);
+        }
+        double deviation = Math.sqrt(squares / (values.length - 1));
+        return Z_999 * deviation / Math.sqrt(values.length);
+    }
+
+    /**
+     * Helper method to write the result of a benchmark in JMH's JSON format
+     * @param json The JSON being written
+     * @param name The name of the benchmark
+     * @param count The entity count of the benchmark
+     * @param warmup The number of warmup iterations
+     * @param iterations The number of measured iterations
+     * @param iterationNanos The length of each iteration, in nanoseconds
+     * @param scores The average time of one operation in each measured iteration
+     * @param score The mean of the scores
+     * @param error The error of the mean
+     */
+    private static void appendResult(StringBuilder json, String name, int count, int warmup, int iterations,
+                                     long iterationNanos, double[] scores, double score, double error) {
+        String time = (iterationNanos / 1_000_000) + " ms";
+        json.append("    {\n");
+        json.append("        \"benchmark\" : \"").append(name).append("\",\n");
+        json.append("        \"mode\" : \"avgt\",\n");
+        json.append("        \"threads\" : 1,\n");
+        json.append("        \"forks\" : 0,\n");
+        json.append("        \"jdkVersion\" : \"").append(System.getProperty("java.version")).append("\",\n");
+        json.append("        \"warmupIterations\" : ").append(warmup).append(",\n");
+        json.append("        \"warmupTime\" : \"").append(time).append("\",\n");
+        json.append("        \"measurementIterations\" : ").append(iterations).append(",\n");
+        json.append("        \"measurementTime\" : \"").append(time).append("\",\n");
+        json.append("        \"params\" : {\n");
+        json.append("            \"count\" : \"").append(count).append("\"\n");
+        json.append("        },\n");
+        json.append("        \"primaryMetric\" : {\n");
+        json.append("            \"score\" : ").append(number(score)).append(",\n");
+        json.append("            \"scoreError\" : ").append(number(error)).append(",\n");
+        json.append("            \"scoreUnit\" : \"ns/op\",\n");
+        json.append("            \"rawData\" : [\n");
+        json.append("                [");
+        for (int i = 0; i < scores.length; i++) {
+            json.append(i == 0 ? "" : ", ").append(number(scores[i]));
+        }
+        json.append("]\n");
+        json.append("            ]\n");
+        json.append("        }\n");
+        json.append("    }");
+    }
+
+    /**
+     * Helper method to write a number in JSON, which has no NaN
+     * @param value The number
+     * @return The number as JSON
+     */
+    private static String number(double value) {
+        return Double.isNaN(value) ? "\"NaN\"" : String.format(Locale.ROOT, "%.6f", value);
+    }
+}
@@ -0,0 +1,53 @@
+import java.util.ArrayList;
+
+/**
+ * Benchmarks Fallable.inAir and Fallable.accelerate, with barrels falling onto the platforms of level 2. A barrel
+ * which has landed is moved back to where it started, so barrels are always falling, landing or resting
+ */
+public class FallBenchmark extends Benchmark {
+    private GroundIndex ground;
+    private ArrayList<Barrel> barrels;
+    private double[] startY;
+
+    /**
+     * Creates a new falling benchmark
+     */
+    public FallBenchmark() {
+        super("fall");
+    }
+
+    /**
+     * Scatter barrels above the platforms of level 2
+     * @param count The number of barrels
+     */
+    @Override
+    public void setup(int count) {
+        int tickRate = readTickRate();
+        ground = new GroundIndex(readPlatforms());
+        barrels = new ArrayList<Barrel>();
+        startY = new double[count];
+        for (int i = 0; i < count; i++) {
+            startY[i] = random(0, 700);
+            barrels.add(new Barrel(random(0, 1024), startY[i], tickRate));
+        }
+    }
+
+    /**
+     * Apply one frame of falling physics to every barrel
+     * @return The number of barrels in the air
+     */
+    @Override
+    public long run() {
+        long falling = 0;
+        for (int i = 0; i < barrels.size(); i++) {
+            Barrel b = barrels.get(i);
+            if (b.inAir(ground, b)) {
+                b.accelerate(b.getGRAVITY(), b);
+                falling++;
+            } else {
+                b.setY(startY[i]);
+            }
+        }
+        return falling;
+    }
+}
@@ -0,0 +1,45 @@
+import java.util.ArrayList;
+
+/**
+ * Benchmarks GameObject.intersects, by checking mario against every barrel in a level
+ */
+public class IntersectsBenchmark extends Benchmark {
+    private ArrayList<Barrel> barrels;
+    private Mario mario;
+
+    /**
+     * Creates a new intersects benchmark
+     */
+    public IntersectsBenchmark() {
+        super("intersects");
+    }
+
+    /**
+     * Scatter barrels across the window, with mario in the middle
+     * @param count The number of barrels
+     */
+    @Override
+    public void setup(int count) {
+        int tickRate = readTickRate();
+        barrels = new ArrayList<Barrel>();
+        for (int i = 0; i < count; i++) {
+            barrels.add(new Barrel(random(0, 1024), random(0, 768), tickRate));
+        }
+        mario = new Mario(512, 384, tickRate);
+    }
+
+    /**
+     * Check every barrel against mario
+     * @return The number of barrels touching mario
+     */
+    @Override
+    public long run() {
+        long hits = 0;
+        for (Barrel b : barrels) {
+            if (mario.intersects(b)) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,50 @@
+import java.util.ArrayList;
+
+/**
+ * Benchmarks Ladder.adjustPosition against the platforms of level 2. Every ladder is moved back to where it
+ * started before being adjusted, so ladders which start inside a platform are pushed out of it every time
+ */
+public class LadderAdjustBenchmark extends Benchmark {
+    private ArrayList<Platform> platforms;
+    private ArrayList<Ladder> ladders;
+    private double[] startY;
+
+    /**
+     * Creates a new ladder adjust benchmark
+     */
+    public LadderAdjustBenchmark() {
+        super("ladderAdjust");
+    }
+
+    /**
+     * Scatter ladders across the platforms of level 2
+     * @param count The number of ladders
+     */
+    @Override
+    public void setup(int count) {
+        int tickRate = readTickRate();
+        platforms = readPlatforms();
+        ladders = new ArrayList<Ladder>();
+        startY = new double[count];
+        for (int i = 0; i < count; i++) {
+            startY[i] = random(0, 700);
+            ladders.add(new Ladder(random(0, 1024), startY[i], tickRate));
+        }
+    }
+
+    /**
+     * Adjust the position of every ladder
+     * @return A value depending on the adjusted positions
+     */
+    @Override
+    public long run() {
+        long total = 0;
+        for (int i = 0; i < ladders.size(); i++) {
+            Ladder l = ladders.get(i);
+            l.setY(startY[i]);
+            l.adjustPosition(platforms);
+            total += (long) l.getY();
+        }
+        return total;
+    }
+}
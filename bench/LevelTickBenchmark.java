@@ -0,0 +1,65 @@
+import java.util.Properties;
+
+/**
+ * Benchmarks a full frame of level 2, through World.step. Level 2 is loaded with extra barrels and normal monkeys,
+ * and mario runs back and forth. If mario loses, a new world is created
+ */
+public class LevelTickBenchmark extends Benchmark {
+    private final int RUN_FRAMES = 120;
+
+    private GameConfig config;
+    private World world;
+    private int frame;
+
+    /**
+     * Creates a new level tick benchmark
+     */
+    public LevelTickBenchmark() {
+        super("levelTick");
+    }
+
+    /**
+     * Create a world whose level 2 has the given number of barrels, and as many normal monkeys, and skip to level 2
+     * @param count The number of barrels and normal monkeys
+     */
+    @Override
+    public void setup(int count) {
+        Properties gameProps = readGameProps();
+        gameProps.setProperty("gamePlay.maxFrames", String.valueOf(Integer.MAX_VALUE));
+
+        gameProps.setProperty("barrel.level2.count", String.valueOf(count));
+        gameProps.setProperty("normalMonkey.level2.count", String.valueOf(count));
+        for (int i = 1; i <= count; i++) {
+            gameProps.setProperty("barrel.level2." + i, (int) random(0, 1024) + "," + (int) random(0, 700));
+            gameProps.setProperty("normalMonkey.level2." + i, (int) random(0, 1024) + "," + (int) random(0, 700)
+                    + ";" + (random(0, 1) < 0.5 ? "left" : "right") + ";300,200");
+        }
+
+        config = new GameConfig(gameProps);
+        startWorld();
+    }
+
+    /**
+     * Simulate one frame of level 2
+     * @return The current score
+     */
+    @Override
+    public long run() {
+        if (world.isLost() || world.isWon()) {
+            startWorld();
+        }
+
+        // Run right, then left
+        frame++;
+        world.step(new InputFrame((frame / RUN_FRAMES) % 2 == 0 ? InputFrame.RIGHT : InputFrame.LEFT));
+        return world.getScore();
+    }
+
+    /**
+     * Helper method to create a new world and skip to level 2
+     */
+    private void startWorld() {
+        world = new World(config);
+        world.step(new InputFrame(InputFrame.NUM_2));
+    }
+}
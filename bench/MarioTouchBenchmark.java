@@ -0,0 +1,70 @@
+import bagel.util.Point;
+
+import java.util.ArrayList;
+
+/**
+ * Benchmarks the collision checks mario makes every frame (the contact pass Mario.findContacts, which finds every
+ * ladder, barrel, monkey, hammer, blaster, banana and donkey kong touching him, then passBarrelR and passBarrelL), with
+ * entities of every kind scattered across a level
+ */
+public class MarioTouchBenchmark extends Benchmark {
+    private final int[] PATH = {300};
+
+    private SpatialGrid grid;
+    private GroundIndex ground;
+    private ProjectilePool projectiles;
+    private Donkey donkey;
+    private Mario mario;
+    private final ContactSet contacts = new ContactSet();
+    private final EventBuffer events = new EventBuffer(16);
+
+    /**
+     * Creates a new mario touch benchmark
+     */
+    public MarioTouchBenchmark() {
+        super("marioTouch");
+    }
+
+    /**
+     * Scatter barrels, ladders, hammers, blasters and monkeys across the window, with mario in the middle. There are
+     * as many barrels as the count, and a quarter as many of every other entity
+     * @param count The number of barrels
+     */
+    @Override
+    public void setup(int count) {
+        int tickRate = readTickRate();
+        grid = new SpatialGrid(1024, 768, 64);
+        for (int i = 0; i < count; i++) {
+            grid.insert(new Barrel(random(0, 1024), random(0, 768), tickRate));
+        }
+        for (int i = 0; i < count / 4; i++) {
+            grid.insert(new Ladder(random(0, 1024), random(0, 768), tickRate));
+            grid.insert(new Hammer(random(0, 1024), random(0, 768)));
+            grid.insert(new Blaster(random(0, 1024), random(0, 768)));
+            Point start = new Point(random(0, 1024), random(0, 768));
+            grid.insert(new NormMonkey(new MonkeyConfig(start, true, PATH), tickRate));
+        }
+
+        ground = new GroundIndex(new ArrayList<Platform>());
+        projectiles = new ProjectilePool(16, tickRate);
+        donkey = new Donkey(random(0, 1024), random(0, 768), tickRate);
+        mario = new Mario(512, 384, tickRate);
+        grid.insert(mario);
+    }
+
+    /**
+     * Run every collision check mario makes in a frame
+     * @return The number of contacts and barrels passed over which were found
+     */
+    @Override
+    public long run() {
+        mario.findContacts(grid, ground, projectiles, donkey, contacts);
+        long hits = contacts.getBarrels().size() + contacts.getMonkeys().size() + contacts.getHammers().size()
+                + contacts.getBlasters().size();
+        hits += contacts.getLadder() != null ? 1 : 0;
+        hits += mario.passBarrelR(grid, events) ? 1 : 0;
+        hits += mario.passBarrelL(grid, events) ? 1 : 0;
+        events.clear();
+        return hits;
+    }
+}
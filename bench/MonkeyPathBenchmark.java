@@ -0,0 +1,62 @@
+import bagel.util.Point;
+
+import java.util.ArrayList;
+
+/**
+ * Benchmarks Monkey.travelPath, with monkeys walking along the platforms of level 2
+ */
+public class MonkeyPathBenchmark extends Benchmark {
+    private final int[] PATH = {300, 200, 150};
+
+    private ArrayList<Platform> platforms;
+    private GroundIndex ground;
+    private ArrayList<NormMonkey> monkeys;
+
+    /**
+     * Creates a new monkey path benchmark
+     */
+    public MonkeyPathBenchmark() {
+        super("monkeyPath");
+    }
+
+    /**
+     * Place monkeys on random platforms of level 2, and let them land
+     * @param count The number of monkeys
+     */
+    @Override
+    public void setup(int count) {
+        int tickRate = readTickRate();
+        platforms = readPlatforms();
+        ground = new GroundIndex(platforms);
+        monkeys = new ArrayList<NormMonkey>();
+        for (int i = 0; i < count; i++) {
+            Platform p = platforms.get((int) random(0, platforms.size()));
+            Point start = new Point(random(p.getLeft(), p.getRight()), p.getTop() - 20);
+            NormMonkey m = new NormMonkey(new MonkeyConfig(start, random(0, 1) < 0.5, PATH), tickRate);
+            m.compileRoute(platforms, 1024);
+            monkeys.add(m);
+        }
+
+        for (int frame = 0; frame < 100; frame++) {
+            for (NormMonkey m : monkeys) {
+                if (m.inAir(ground, m)) {
+                    m.accelerate(m.getGRAVITY(), m);
+                }
+            }
+        }
+    }
+
+    /**
+     * Move every monkey one frame along its path
+     * @return A value depending on the monkeys' positions
+     */
+    @Override
+    public long run() {
+        long total = 0;
+        for (NormMonkey m : monkeys) {
+            m.travelPath();
+            total += (long) m.getX();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,45 @@
+import java.util.ArrayList;
+
+/**
+ * Benchmarks Platform.platformIntersect, by checking a barrel against every platform in a level
+ */
+public class PlatformIntersectBenchmark extends Benchmark {
+    private ArrayList<Platform> platforms;
+    private Barrel barrel;
+
+    /**
+     * Creates a new platform intersect benchmark
+     */
+    public PlatformIntersectBenchmark() {
+        super("platformIntersect");
+    }
+
+    /**
+     * Scatter platforms across the window, with a barrel in the middle
+     * @param count The number of platforms
+     */
+    @Override
+    public void setup(int count) {
+        int tickRate = readTickRate();
+        platforms = new ArrayList<Platform>();
+        for (int i = 0; i < count; i++) {
+            platforms.add(new Platform(random(0, 1024), random(0, 768), tickRate));
+        }
+        barrel = new Barrel(512, 384, tickRate);
+    }
+
+    /**
+     * Check the barrel against every platform
+     * @return The number of platforms the barrel intersects
+     */
+    @Override
+    public long run() {
+        long hits = 0;
+        for (Platform p : platforms) {
+            if (p.platformIntersect(barrel)) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+}
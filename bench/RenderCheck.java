@@ -0,0 +1,143 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+
+/**
+ * Checks the draw list of a level without a window. Each level is played for a few seconds, then rendered by a level
+ * renderer into a recording backend, and the recorded draws must match the expected list exactly: every object which
+ * is not destroyed, in layer order, grouped by texture within each layer, and otherwise in the order the objects are
+ * stored in the level. The draw call and texture switch counters of the render queue must match the list too.
+ * Exits with status 1 if any level does not match, so the bench profile fails
+ */
+public class RenderCheck {
+    private static final int PLAY_FRAMES = 400;
+
+    /**
+     * Runs the check on every level
+     * @param args Command-line arguments (not used)
+     */
+    public static void main(String[] args) {
+        GameConfig config = new GameConfig(Benchmark.readGameProps());
+        boolean passed = true;
+
+        for (int number = 1; number <= config.getLevels().size(); number++) {
+            World world = new World(config);
+            world.step(new InputFrame(number == 1 ? InputFrame.ENTER : InputFrame.NUM_2));
+            for (int frame = 0; frame < PLAY_FRAMES && !world.isLost() && !world.isWon(); frame++) {
+                world.step(new InputFrame(frame % 60 == 0 ? InputFrame.RIGHT | InputFrame.SPACE : InputFrame.RIGHT));
+            }
+            if (world.isLost() || world.isWon()) {
+                System.out.println("Render check: level " + number + " ended before it could be rendered");
+                passed = false;
+                continue;
+            }
+
+            Level level = world.getLevel();
+            LevelRenderer renderer = new LevelRenderer(PhaseProfiler.DISABLED);
+            RecordingBackend backend = new RecordingBackend();
+            renderer.render(level, 0.5, backend);
+
+            ArrayList<String> expected = expectedDraws(level, 0.5);
+            ArrayList<String> actual = new ArrayList<String>();
+            for (RecordingBackend.Draw draw : backend.getDraws()) {
+                actual.add(draw.toString());
+            }
+
+            RenderQueue queue = renderer.getRenderQueue();
+            int switches = countTextureSwitches(backend.getDraws());
+            if (!actual.equals(expected) || queue.getDrawCalls() != expected.size()
+                    || queue.getTextureSwitches() != switches) {
+                System.out.println("Render check: level " + number + " draw list does not match");
+                System.out.println("  expected " + expected);
+                System.out.println("  actual   " + actual);
+                passed = false;
+            } else {
+                System.out.println("Render check: level " + number + " passed, " + renderer.describe());
+            }
+        }
+
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Helper method to build the expected draw list of a level, without a render queue
+     * @param level The level being rendered
+     * @param alpha How far between the last two simulation frames the objects are drawn
+     * @return The expected draws, as the image path and position of each
+     */
+    private static ArrayList<String> expectedDraws(Level level, double alpha) {
+        ArrayList<ArrayList<RecordingBackend.Draw>> layers = new ArrayList<ArrayList<RecordingBackend.Draw>>();
+        for (int layer = RenderQueue.PLATFORMS; layer <= RenderQueue.MONKEYS; layer++) {
+            layers.add(new ArrayList<RecordingBackend.Draw>());
+        }
+
+        addAll(layers.get(RenderQueue.PLATFORMS), level.getPlatforms(), alpha);
+        addAll(layers.get(RenderQueue.BARRELS), level.getBarrels(), alpha);
+        addAll(layers.get(RenderQueue.LADDERS), level.getLadders(), alpha);
+        addAll(layers.get(RenderQueue.ITEMS), level.getHammers(), alpha);
+        addAll(layers.get(RenderQueue.ITEMS), level.getBlasters(), alpha);
+        ProjectilePool projectiles = level.getProjectiles();
+        for (int i = 0; i < projectiles.size(); i++) {
+            layers.get(RenderQueue.PROJECTILES).add(new RecordingBackend.Draw(projectiles.getImg(i),
+                    projectiles.getRenderX(i, alpha), projectiles.getY(i)));
+        }
+        add(layers.get(RenderQueue.DONKEY), level.getDonkey(), alpha);
+        add(layers.get(RenderQueue.MARIO), level.getMario(), alpha);
+        addAll(layers.get(RenderQueue.MONKEYS), level.getNormMonkeys(), alpha);
+        addAll(layers.get(RenderQueue.MONKEYS), level.getIntelMonkeys(), alpha);
+
+        ArrayList<String> draws = new ArrayList<String>();
+        for (ArrayList<RecordingBackend.Draw> layer : layers) {
+            // Sorting is stable, so draws with the same texture keep their order
+            layer.sort(Comparator.comparingInt(draw -> draw.getSprite().getTextureId()));
+            for (RecordingBackend.Draw draw : layer) {
+                draws.add(draw.toString());
+            }
+        }
+        return draws;
+    }
+
+    /**
+     * Helper method to add the draw of every object in a list which is not destroyed
+     * @param layer The draws of the layer the objects are drawn in
+     * @param gameObjects The objects to draw
+     * @param alpha How far between the last two simulation frames the objects are drawn
+     */
+    private static void addAll(ArrayList<RecordingBackend.Draw> layer, ArrayList<? extends GameObject> gameObjects,
+                               double alpha) {
+        for (GameObject gameObject : gameObjects) {
+            if (!gameObject.isDestroyed()) {
+                add(layer, gameObject, alpha);
+            }
+        }
+    }
+
+    /**
+     * Helper method to add the draw of an object
+     * @param layer The draws of the layer the object is drawn in
+     * @param gameObject The object to draw
+     * @param alpha How far between the last two simulation frames the object is drawn
+     */
+    private static void add(ArrayList<RecordingBackend.Draw> layer, GameObject gameObject, double alpha) {
+        layer.add(new RecordingBackend.Draw(gameObject.getImg(), gameObject.getRenderX(alpha),
+                gameObject.getRenderY(alpha)));
+    }
+
+    /**
+     * Helper method to count how often the texture changes between consecutive draws
+     * @param draws The draws in the order they were drawn
+     * @return The number of texture switches, including binding the first texture
+     */
+    private static int countTextureSwitches(ArrayList<RecordingBackend.Draw> draws) {
+        int switches = 0;
+        int texture = -1;
+        for (RecordingBackend.Draw draw : draws) {
+            if (draw.getSprite().getTextureId() != texture) {
+                texture = draw.getSprite().getTextureId();
+                switches++;
+            }
+        }
+        return switches;
+    }
+}
@@ -0,0 +1,41 @@
+import java.util.Properties;
+
+/**
+ * Benchmarks PhysicsSet.update on level 2 loaded with extra barrels. The barrels are settled when the level is built
+ * and sleep from then on, so the cost of a frame should not grow with the number of barrels
+ */
+public class RestingPhysicsBenchmark extends Benchmark {
+    private Level level;
+
+    /**
+     * Creates a new resting physics benchmark
+     */
+    public RestingPhysicsBenchmark() {
+        super("restingPhysics");
+    }
+
+    /**
+     * Build level 2 with the given number of barrels scattered above its platforms
+     * @param count The number of barrels
+     */
+    @Override
+    public void setup(int count) {
+        Properties gameProps = readGameProps();
+        gameProps.setProperty("barrel.level2.count", String.valueOf(count));
+        for (int i = 1; i <= count; i++) {
+            gameProps.setProperty("barrel.level2." + i, (int) random(0, 1024) + "," + (int) random(0, 700));
+        }
+
+        level = new Level(new GameConfig(gameProps), 2);
+    }
+
+    /**
+     * Simulate one frame of falling for every awake object in the level
+     * @return The number of awake objects
+     */
+    @Override
+    public long run() {
+        level.getPhysics().update(level.getPlatforms(), level.getGround());
+        return level.getPhysics().getAwakeCount();
+    }
+}
@@ -0,0 +1,72 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Checks that rewinding brings back every frame exactly. Rewinding restores a keyframe and simulates forward from it
+ * (see RewindBuffer), so this also checks that the game is deterministic. Each session plays a level while capturing
+ * every frame into a rewind buffer, as the game does, recording the state of the world after every frame. The world is
+ * then stepped back until the buffer is empty, and must be byte for byte the same as the recorded state at every step.
+ * Sessions alternate between the two levels, and between random keys and the automatic player, and are long enough
+ * for the oldest frames to be dropped.
+ * Exits with status 1 if any session does not match, so the bench profile fails
+ */
+public class RewindCheck {
+    private static final int SESSIONS = 30;
+    private static final int PLAY_FRAMES = 2500;
+
+    /**
+     * Runs the check on every session
+     * @param args Command-line arguments (not used)
+     */
+    public static void main(String[] args) {
+        GameConfig config = new GameConfig(Benchmark.readGameProps());
+        int maxFrames = config.getRewindSeconds() * config.getTickRate();
+        int failed = 0;
+        long rewound = 0;
+
+        for (int session = 0; session < SESSIONS; session++) {
+            int startKey = session % 2 == 0 ? InputFrame.ENTER : InputFrame.NUM_2;
+            InputPolicy policy = session % 4 < 2 ? new RandomPolicy(session, startKey) : new AutoPlayer(startKey);
+            RewindBuffer rewind = new RewindBuffer(maxFrames, config.getRewindMaxBytes());
+            World world = new World(config);
+            world.step(new InputFrame(startKey));
+
+            // Frames are only captured while the game is being played, just like in the game
+            ArrayList<byte[]> states = new ArrayList<byte[]>();
+            rewind.capture(world, InputFrame.NONE);
+            states.add(SnapshotCheck.getBytes(world));
+            for (int frame = 0; frame < PLAY_FRAMES; frame++) {
+                InputFrame input = policy.next(world);
+                world.step(input);
+                if (world.isWon() || world.isLost()) {
+                    break;
+                }
+                rewind.capture(world, input);
+                states.add(SnapshotCheck.getBytes(world));
+            }
+
+            int stored = rewind.getFrameCount();
+            int back = 0;
+            int mismatch = -1;
+            while (mismatch < 0 && rewind.stepBack(world)) {
+                back++;
+                if (!Arrays.equals(SnapshotCheck.getBytes(world), states.get(states.size() - 1 - back))) {
+                    mismatch = back;
+                }
+            }
+            rewound += back;
+
+            if (mismatch >= 0 || back != stored) {
+                System.out.println("Rewind check: session " + session + " does not match, " + back + " of " + stored
+                        + " frames rewound, first mismatch " + mismatch + " frames back (-1 if none)");
+                failed++;
+            }
+        }
+
+        if (failed > 0) {
+            System.out.println("Rewind check: " + failed + " of " + SESSIONS + " sessions did not match");
+            System.exit(1);
+        }
+        System.out.println("Rewind check: " + SESSIONS + " sessions passed, " + rewound + " frames rewound");
+    }
+}
@@ -0,0 +1,55 @@
+import java.util.Properties;
+
+/**
+ * Benchmarks taking a snapshot of a world on level 2 and restoring it, through World.snapshot and World.restore.
+ * Level 2 is loaded with extra barrels and normal monkeys, and played for a while first so that some have moved
+ */
+public class SnapshotBenchmark extends Benchmark {
+    private final int WARMUP_FRAMES = 300;
+
+    private World world;
+    private final WorldSnapshot snapshot = new WorldSnapshot();
+
+    /**
+     * Creates a new snapshot benchmark
+     */
+    public SnapshotBenchmark() {
+        super("snapshot");
+    }
+
+    /**
+     * Create a world whose level 2 has the given number of barrels, and as many normal monkeys, skip to level 2 and
+     * play it for a few seconds
+     * @param count The number of barrels and normal monkeys
+     */
+    @Override
+    public void setup(int count) {
+        Properties gameProps = readGameProps();
+        gameProps.setProperty("gamePlay.maxFrames", String.valueOf(Integer.MAX_VALUE));
+
+        gameProps.setProperty("barrel.level2.count", String.valueOf(count));
+        gameProps.setProperty("normalMonkey.level2.count", String.valueOf(count));
+        for (int i = 1; i <= count; i++) {
+            gameProps.setProperty("barrel.level2." + i, (int) random(0, 1024) + "," + (int) random(0, 700));
+            gameProps.setProperty("normalMonkey.level2." + i, (int) random(0, 1024) + "," + (int) random(0, 700)
+                    + ";" + (random(0, 1) < 0.5 ? "left" : "right") + ";300,200");
+        }
+
+        world = new World(new GameConfig(gameProps));
+        world.step(new InputFrame(InputFrame.NUM_2));
+        for (int frame = 0; frame < WARMUP_FRAMES && !world.isLost(); frame++) {
+            world.step(InputFrame.NONE);
+        }
+    }
+
+    /**
+     * Take a snapshot of the world, and restore it
+     * @return The size of the snapshot
+     */
+    @Override
+    public long run() {
+        world.snapshot(snapshot);
+        world.restore(snapshot);
+        return snapshot.size();
+    }
+}
@@ -0,0 +1,96 @@
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Checks that restoring a world snapshot brings back the whole state of the world. Each session plays a level for a
+ * while, takes a snapshot, then plays on while recording its keys and the state of the world after every frame. The
+ * snapshot is then restored into the same world, and into a new world, and the recorded keys played again: the world
+ * must be byte for byte the same as before after every frame. Sessions alternate between the two levels, and between
+ * random keys and the automatic player.
+ * Exits with status 1 if any session does not match, so the bench profile fails
+ */
+public class SnapshotCheck {
+    private static final int SESSIONS = 200;
+    private static final int PLAY_FRAMES = 1500;
+
+    /**
+     * Runs the check on every session
+     * @param args Command-line arguments (not used)
+     */
+    public static void main(String[] args) {
+        GameConfig config = new GameConfig(Benchmark.readGameProps());
+        int failed = 0;
+
+        for (int session = 0; session < SESSIONS; session++) {
+            int startKey = session % 2 == 0 ? InputFrame.ENTER : InputFrame.NUM_2;
+            InputPolicy policy = session % 4 < 2 ? new RandomPolicy(session, startKey) : new AutoPlayer(startKey);
+            World world = new World(config);
+            world.step(new InputFrame(startKey));
+            for (int frame = 0; frame < session * 3 % 400; frame++) {
+                world.step(policy.next(world));
+            }
+
+            WorldSnapshot start = new WorldSnapshot();
+            world.snapshot(start);
+            ArrayList<InputFrame> inputs = new ArrayList<InputFrame>();
+            ArrayList<byte[]> states = new ArrayList<byte[]>();
+            for (int frame = 0; frame < PLAY_FRAMES; frame++) {
+                InputFrame input = policy.next(world);
+                world.step(input);
+                inputs.add(input);
+                states.add(getBytes(world));
+            }
+
+            world.restore(start);
+            int sameWorld = findMismatch(world, inputs, states);
+            World restored = new World(config);
+            restored.restore(start);
+            int newWorld = findMismatch(restored, inputs, states);
+
+            if (sameWorld >= 0 || newWorld >= 0) {
+                System.out.println("Snapshot check: session " + session + " does not match after restoring, "
+                        + "first at frame " + sameWorld + " in the same world and " + newWorld + " in a new world "
+                        + "(-1 if it matched)");
+                failed++;
+            }
+        }
+
+        if (failed > 0) {
+            System.out.println("Snapshot check: " + failed + " of " + SESSIONS + " sessions did not match");
+            System.exit(1);
+        }
+        System.out.println("Snapshot check: " + SESSIONS + " sessions passed, " + PLAY_FRAMES
+                + " frames each after restoring");
+    }
+
+    /**
+     * Helper method to play recorded keys and compare the world with the recorded states after every frame
+     * @param world The world, just restored from a snapshot
+     * @param inputs The keys of each frame
+     * @param states The expected state of the world after each frame
+     * @return The first frame whose state does not match, or -1 if every frame matches
+     */
+    private static int findMismatch(World world, ArrayList<InputFrame> inputs, ArrayList<byte[]> states) {
+        for (int frame = 0; frame < inputs.size(); frame++) {
+            world.step(inputs.get(frame));
+            if (!Arrays.equals(getBytes(world), states.get(frame))) {
+                return frame;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Helper method to get the state of a world as bytes
+     * @param world The world
+     * @return The bytes of a snapshot of the world
+     */
+    static byte[] getBytes(World world) {
+        WorldSnapshot snapshot = new WorldSnapshot();
+        world.snapshot(snapshot);
+        ByteBuffer bytes = ByteBuffer.allocate(snapshot.size());
+        snapshot.copyTo(bytes);
+        return bytes.array();
+    }
+}
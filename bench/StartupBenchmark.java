@@ -0,0 +1,59 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Properties;
+
+/**
+ * Benchmarks starting a game: reading and validating the game properties file with GameConfig.read, creating the
+ * world, and entering level 1, which builds the level and all of its entities.
+ * Level 1 is loaded with extra barrels, and the properties are written to a temporary file so that the file is read
+ * and parsed on every run, just as it is when the game is launched
+ */
+public class StartupBenchmark extends Benchmark {
+    private File configFile;
+
+    /**
+     * Creates a new startup benchmark
+     */
+    public StartupBenchmark() {
+        super("startup");
+    }
+
+    /**
+     * Write a game properties file whose level 1 has the given number of barrels
+     * @param count The number of barrels
+     */
+    @Override
+    public void setup(int count) {
+        Properties gameProps = readGameProps();
+        gameProps.setProperty("barrel.level1.count", String.valueOf(count));
+        for (int i = 1; i <= count; i++) {
+            gameProps.setProperty("barrel.level1." + i, (int) random(0, 1024) + "," + (int) random(0, 700));
+        }
+
+        try {
+            if (configFile == null) {
+                configFile = File.createTempFile("startup-bench", ".properties");
+                configFile.deleteOnExit();
+            }
+            try (OutputStream out = new FileOutputStream(configFile)) {
+                gameProps.store(out, null);
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Read the game properties file, create a world and enter level 1
+     * @return The number of barrels in the level
+     */
+    @Override
+    public long run() {
+        GameConfig config = GameConfig.read(configFile.getPath());
+        World world = new World(config);
+        world.step(new InputFrame(InputFrame.ENTER));
+        return world.getLevel().getBarrels().size();
+    }
+}
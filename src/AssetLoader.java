@@ -0,0 +1,160 @@
+import bagel.Font;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loads the images and fonts of the game without stalling the frames being rendered.
+ * Image files are read on a pool of worker threads, which reads their sizes for the sprites and brings the files
+ * into memory, and the images each level needs are found from its layout ahead of time. Bagel can only
+ * create images and fonts on the thread which owns the window, so these are queued and loaded a few at a time at
+ * the end of each rendered frame. The next level's images are loaded while the current level is being played, so
+ * entering a level does not have to wait for its images.
+ * Workers never stop the game when a file can not be read: the file is still queued, and loading it on the window
+ * thread reports the error, just as it would have without prefetching.
+ */
+public class AssetLoader {
+    // Time which can be spent loading images and fonts at the end of each rendered frame
+    private final long UPLOAD_BUDGET_NANOS = 4_000_000;
+
+    // Fonts are shared by every screen and level, and only used on the window thread
+    private static final HashMap<String, Font> FONTS = new HashMap<String, Font>();
+
+    private final GameConfig config;
+    private final ExecutorService workers;
+
+    // Images and fonts which are ready to be loaded on the window thread
+    private final ConcurrentLinkedQueue<Runnable> uploads = new ConcurrentLinkedQueue<Runnable>();
+
+    // Levels which have already been prefetched
+    private final HashSet<Integer> prefetched = new HashSet<Integer>();
+
+    /**
+     * Creates a new asset loader, with one worker thread for each processor. The workers are daemon threads, so
+     * they never keep the game open
+     * @param config The game config read from the game properties file
+     */
+    public AssetLoader(GameConfig config) {
+        this.config = config;
+        workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "asset-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Read every image in a directory on the worker threads. Reading the whole file brings it into the operating
+     * system's file cache, so loading the image later does not have to wait for the disk
+     * @param directory The directory holding the images
+     */
+    public void preloadImages(String directory) {
+        File[] files = new File(directory).listFiles();
+        if (files == null) {
+            return;
+        }
+
+        for (File file : files) {
+            String name = file.getName().toLowerCase();
+            if (name.endsWith(".png") || name.endsWith(".jpg")) {
+                String path = directory + "/" + file.getName();
+                workers.submit(() -> {
+                    // Images in the atlas are never loaded on their own, only the atlas file needs reading
+                    if (!Sprite.isInAtlas(path)) {
+                        readIntoCache(path);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Queue the fonts used by levels and the end screen, so they are loaded before they are first drawn
+     */
+    public void preloadFonts() {
+        String fontFile = config.getFont();
+        int[] sizes = {config.getScoreFontSize(), config.getStatusFontSize(), config.getScoresFontSize()};
+        for (int size : sizes) {
+            uploads.add(() -> getFont(fontFile, size));
+        }
+    }
+
+    /**
+     * Find the images a level uses from its layout, read them on a worker thread, then queue them to be loaded.
+     * The sprites themselves are created on the window thread when they are loaded, since reading an image's size
+     * stops the game if the image is broken. Each level is only prefetched once, and levels which do not exist are
+     * ignored
+     * @param number The level number, starting from 1
+     */
+    public void prefetchLevel(int number) {
+        if (number < 1 || number > config.getLevels().size() || !prefetched.add(number)) {
+            return;
+        }
+
+        LevelConfig layout = config.getLevel(number);
+        workers.submit(() -> {
+            for (String path : Level.getImagePaths(layout)) {
+                if (!Sprite.isInAtlas(path)) {
+                    readIntoCache(path);
+                }
+                uploads.add(() -> Sprite.load(path).upload());
+            }
+        });
+    }
+
+    /**
+     * Helper method to read a whole file on a worker thread, which brings it into the operating system's file cache.
+     * Unlike IOUtils.readFile, a file which can not be read does not stop the game from the worker thread
+     * @param path The path of the file
+     */
+    private static void readIntoCache(String path) {
+        try {
+            Files.readAllBytes(Paths.get(path));
+        } catch (IOException ex) {
+            // Left for the window thread to report when the image is loaded
+        }
+    }
+
+    /**
+     * Load queued images and fonts until this frame's time budget is used up. At least one is always loaded, so
+     * the queue empties however slow each load is. Must be called on the thread which owns the window
+     * @return The number of images and fonts loaded
+     */
+    public int upload() {
+        long start = System.nanoTime();
+        int count = 0;
+        Runnable upload;
+
+        while ((count == 0 || System.nanoTime() - start < UPLOAD_BUDGET_NANOS) && (upload = uploads.poll()) != null) {
+            upload.run();
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Get the number of images and fonts waiting to be loaded on the window thread
+     * @return The number of queued loads
+     */
+    public int getPending() {
+        return uploads.size();
+    }
+
+    /**
+     * Get a font, loading it the first time a file and size is requested, after which every caller shares the same
+     * font. Must be called on the thread which owns the window
+     * @param file The path of the font file
+     * @param size The font size
+     * @return The shared font
+     */
+    public static Font getFont(String file, int size) {
+        return FONTS.computeIfAbsent(file + "@" + size, key -> new Font(file, size));
+    }
+}
@@ -0,0 +1,187 @@
+import java.util.ArrayList;
+
+/**
+ * Input policy which plays the game by itself, used for automated smoke tests of level layouts. Every frame it finds
+ * the fastest path on the level's navigation graph to a hammer (or to donkey kong, once mario is holding one) and
+ * presses the keys a player would to follow the first step of the path. Barrels and monkeys in the way are jumped
+ * over. While mario is in the air the keys of the jump or drop he is making are held, since he can not change course
+ */
+public class AutoPlayer implements InputPolicy {
+    // Distance between mario and a barrel or monkey in his way at which he jumps over it
+    private final double JUMP_DISTANCE = 48;
+
+    // Barrels and monkeys are only in mario's way if they are standing on the same ground as him, within this distance
+    private final double SAME_GROUND = 10;
+
+    // Mario waits to climb a ladder while a monkey is this close to where the ladder comes out, since he can not jump
+    // on a ladder
+    private final double LADDER_CLEARANCE = 100;
+
+    private final int startKey;
+
+    // Paths of the current goal and of another goal being compared with it, reused every frame
+    private NavGraph.Path path = new NavGraph.Path();
+    private NavGraph.Path candidate = new NavGraph.Path();
+
+    // Keys held while mario is in the air
+    private int airKeys;
+
+    /**
+     * Creates a new automatic player
+     * @param startKey The key pressed on the home screen (ENTER for level 1, or NUM_2 to skip to level 2)
+     */
+    public AutoPlayer(int startKey) {
+        this.startKey = startKey;
+    }
+
+    /**
+     * Decide the keys pressed on the next frame
+     * @param world The world about to be stepped with these keys
+     * @return The start key on the home screen, otherwise the keys which follow the path to the current goal
+     */
+    @Override
+    public InputFrame next(World world) {
+        if (!world.isGameStart()) {
+            return new InputFrame(startKey);
+        }
+
+        Level level = world.getLevel();
+        Mario mario = level.getMario();
+        NavGraph graph = level.getNavGraph();
+        if (graph.isInAir(mario)) {
+            return new InputFrame(airKeys);
+        }
+        airKeys = 0;
+
+        GameObject goal = findGoal(level, graph);
+        if (goal == null) {
+            return InputFrame.NONE;
+        }
+        return new InputFrame(followPath(level, mario, goal));
+    }
+
+    /**
+     * Helper method to choose the goal to head for, and find the path to it. Mario heads for the closest hammer he can
+     * reach, then for donkey kong once he is holding one
+     * @param level The level being played
+     * @param graph The navigation graph of the level
+     * @return The goal, or null if there is nothing mario can reach
+     */
+    private GameObject findGoal(Level level, NavGraph graph) {
+        Mario mario = level.getMario();
+        if (mario.hasHammer()) {
+            return graph.findPath(mario, level.getDonkey(), path) ? level.getDonkey() : null;
+        }
+
+        GameObject goal = null;
+        for (Hammer hammer : level.getHammers()) {
+            if (!hammer.isDestroyed() && graph.findPath(mario, hammer, candidate)
+                    && (goal == null || candidate.getFrames() < path.getFrames())) {
+                NavGraph.Path swap = path;
+                path = candidate;
+                candidate = swap;
+                goal = hammer;
+            }
+        }
+        return goal;
+    }
+
+    /**
+     * Helper method to choose the keys which follow the first step of the path. Mario walks to where the step
+     * starts, then makes its move
+     * @param level The level being played
+     * @param mario Mario
+     * @param goal The goal the path leads to
+     * @return A bitmask of the keys to press, using the constants of InputFrame
+     */
+    private int followPath(Level level, Mario mario, GameObject goal) {
+        double target = path.getX(0);
+        double dx = target - mario.getX();
+
+        // Walking moves mario in steps, so he is at the start of the step once he is within half a step of it
+        if (Math.abs(dx) > mario.gethSpeed() / 2) {
+            int direction = dx > 0 ? 1 : -1;
+            int keys = getDirectionKey(direction);
+            if (!mario.hasHammer() && (hazardAhead(level.getBarrels(), mario, direction, target)
+                    || hazardAhead(level.getNormMonkeys(), mario, direction, target)
+                    || hazardAhead(level.getIntelMonkeys(), mario, direction, target))) {
+                airKeys = keys;
+                keys |= InputFrame.SPACE;
+            }
+            return keys;
+        }
+
+        int kind = path.getKind(0);
+        if ((kind == NavGraph.LADDER_UP || kind == NavGraph.LADDER_DOWN) && !mario.hasHammer()
+                && (monkeyNear(level.getNormMonkeys(), target, path.getTop(0))
+                || monkeyNear(level.getIntelMonkeys(), target, path.getTop(0)))) {
+            return 0;
+        }
+
+        switch (kind) {
+            case NavGraph.REACH:
+                // The goal is above mario if he is not touching it yet
+                return mario.intersects(goal) ? 0 : InputFrame.SPACE;
+            case NavGraph.LADDER_UP:
+                return InputFrame.UP;
+            case NavGraph.LADDER_DOWN:
+                return InputFrame.DOWN;
+            case NavGraph.JUMP:
+                airKeys = getDirectionKey(path.getDirection(0));
+                return airKeys | InputFrame.SPACE;
+            default:
+                airKeys = getDirectionKey(path.getDirection(0));
+                return airKeys;
+        }
+    }
+
+    /**
+     * Helper method to check if any object in a list is in mario's way, close enough that he should jump over it
+     * @param hazards The objects mario must not touch
+     * @param mario Mario
+     * @param direction The direction mario is walking, -1 for left or 1 for right
+     * @param target The x coordinate mario is walking to, past which nothing is in his way
+     * @return True if mario should jump
+     */
+    private boolean hazardAhead(ArrayList<? extends GameObject> hazards, Mario mario, int direction, double target) {
+        for (GameObject hazard : hazards) {
+            if (hazard.isDestroyed() || Math.abs(hazard.getBottom() - mario.getBottom()) > SAME_GROUND) {
+                continue;
+            }
+
+            double gap = direction > 0 ? hazard.getLeft() - mario.getRight() : mario.getLeft() - hazard.getRight();
+            boolean beforeTarget = direction > 0 ? hazard.getLeft() < target + mario.getHalfWidth()
+                    : hazard.getRight() > target - mario.getHalfWidth();
+            if (gap >= 0 && gap <= JUMP_DISTANCE && beforeTarget) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Helper method to check if any monkey in a list is standing close to a point
+     * @param monkeys The monkeys to check
+     * @param x The x coordinate of the point
+     * @param top The y coordinate of the surface the point is on
+     * @return True if a monkey is within the ladder clearance of the point
+     */
+    private boolean monkeyNear(ArrayList<? extends Monkey> monkeys, double x, double top) {
+        for (Monkey monkey : monkeys) {
+            if (!monkey.isDestroyed() && Math.abs(monkey.getBottom() - top) <= SAME_GROUND
+                    && Math.abs(monkey.getX() - x) < LADDER_CLEARANCE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Helper method to get the movement key of a direction
+     * @param direction -1 for left or 1 for right
+     * @return The key, using the constants of InputFrame
+     */
+    private static int getDirectionKey(int direction) {
+        return direction < 0 ? InputFrame.LEFT : InputFrame.RIGHT;
+    }
+}
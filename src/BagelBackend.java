@@ -0,0 +1,15 @@
+/**
+ * Render backend which draws sprites to the game window with bagel
+ */
+public class BagelBackend implements RenderBackend {
+    /**
+     * Draw a sprite centred at a position in the game window
+     * @param sprite The sprite to draw
+     * @param x The x coordinate of the centre of the sprite
+     * @param y The y coordinate of the centre of the sprite
+     */
+    @Override
+    public void draw(Sprite sprite, double x, double y) {
+        sprite.draw(x, y);
+    }
+}
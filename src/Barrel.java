@@ -1,7 +1,6 @@
-import bagel.Image;
+import bagel.util.Point;
 
 import java.util.ArrayList;
-import java.util.Properties;
 
 /**
  * Represents barrels in the game which can fall subject to gravity. They can be destroyed by mario, and can also
@@ -9,44 +8,42 @@ import java.util.Properties;
  * The class implements the Fallable interface which handles the falling physics.
  */
 public class Barrel extends GameObject implements Fallable {
-    private final double GRAVITY = 0.4;
+    // Image every barrel is drawn with
+    public static final String IMAGE = "res/barrel.png";
+
+    // Gravity in pixels per second squared
+    private final double GRAVITY = 1440;
+    private final double gravity;
+    private final double maxVelocity;
 
     /**
      * Constructs a new barrel at a specified position. The image for a barrel is also read in and assigned to the
      * it's Img variable
      * @param x The x co-ordinate of the barrel
      * @param y The y co-ordinate of the barrel
+     * @param tickRate The number of simulation ticks per second, which the falling physics are scaled to
      */
-    public Barrel(double x, double y) {
+    public Barrel(double x, double y, int tickRate) {
+        gravity = GRAVITY / (tickRate * tickRate);
+        maxVelocity = MAX_FALL_SPEED / tickRate;
         setX(x);
         setY(y);
         setVelocity(0);
-        setImg(new Image("res/barrel.png"));
+        setImg(Sprite.load(IMAGE));
         setDestroyed(false);
     }
 
     /**
-     * Method to read in the barrel positions from the app properties file and create an arraylist of these barrels for
-     * a specified level
-     * @param level The specified game level these barrels are being loaded for
-     * @param gameProps The game properties file containing the barrels information to be read
+     * Method to create an arraylist of the barrels for a specified level
+     * @param level The layout of the level, read from the game properties file
+     * @param tickRate The number of simulation ticks per second
      * @return A new array list containing all barrels for a specified level
      */
-    //
-    public static ArrayList<Barrel> readBarrels(int level, Properties gameProps) {
+    public static ArrayList<Barrel> readBarrels(LevelConfig level, int tickRate) {
         ArrayList<Barrel> barrels = new ArrayList<Barrel>();
 
-        // Read number of barrels
-        int n = Integer.parseInt(gameProps.getProperty("barrel.level" + level + ".count"));
-
-        // Read each individual barrel from the properties file, with string manipulation
-        String points;
-        for (int i = 1; i <= n; i++) {
-            points = gameProps.getProperty("barrel.level" + level + "." + i);
-            barrels.add(new Barrel(
-                    Double.parseDouble(points.substring(0, points.indexOf(','))),
-                    Double.parseDouble(points.substring(points.indexOf(',') + 1))
-            ));
+        for (Point p : level.getBarrels()) {
+            barrels.add(new Barrel(p.x, p.y, tickRate));
         }
 
         return barrels;
@@ -76,12 +73,34 @@ public class Barrel extends GameObject implements Fallable {
         this.setDestroyed(false);
     }
 
+    /**
+     * Simulate one frame of the barrel's physics. The barrel is first moved out of any platform it is intersecting with,
+     * then falls if it is in the air
+     * @param platforms All platforms in the level
+     * @param ground The index of all platform surfaces in the level
+     * @param gameObject The object to simulate (this barrel)
+     * @return True if the barrel was in the air, false if it is grounded
+     */
+    @Override
+    public boolean fall(ArrayList<Platform> platforms, GroundIndex ground, GameObject gameObject) {
+        adjustPosition(platforms);
+        return Fallable.super.fall(platforms, ground, gameObject);
+    }
+
     /**
      * Get the gravity constant affecting this barrel
-     * @return The gravity constant
+     * @return The gravity constant, in pixels per tick per tick
      */
     public double getGRAVITY() {
-        return GRAVITY;
+        return gravity;
+    }
+
+    /**
+     * Get the fastest this barrel can fall
+     * @return The terminal velocity, in pixels per tick
+     */
+    public double getMaxVelocity() {
+        return maxVelocity;
     }
 
     /**
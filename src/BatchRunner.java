@@ -0,0 +1,360 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Command-line batch mode which plays many games without a window, to see how a level config plays out without
+ * playing it by hand. Every game (session) is an independent World driven by an input policy, and sessions are split
+ * between the threads of a ForkJoin pool. Once every session has ended, the win rate, the distribution of scores,
+ * the time survived before losing, and the causes of losing are printed, along with the throughput.
+ * Sessions are numbered, and each one's policy only depends on its number, so the results are the same however many
+ * threads are used.
+ *
+ * Usage: java BatchRunner [options]
+ * --config file        game properties file (default res/app.properties)
+ * --sessions n         number of games to play (default 1000)
+ * --threads n          number of threads (default one for each processor)
+ * --policy policy      random (default), auto, script:file, or replay:file or directory of replays
+ * --level n            level the random and auto policies start on, 1 or 2 (default 1)
+ * --seed n             seed of the random policy, each session adding its number to it (default 0)
+ * --max-ticks n        frames after which a session is stopped as unfinished (default: enough to time out of
+ *                      every level)
+ */
+public class BatchRunner {
+    // Sessions per task before a task is no longer split between threads
+    private static final int SESSIONS_PER_TASK = 4;
+
+    // Frames allowed on the home screen (on top of the level timers) before a session is stopped by default
+    private static final int HOME_SCREEN_SECONDS = 10;
+
+    private final GameConfig config;
+    private final String policy;
+    private final long seed;
+    private final int startKey;
+    private final int maxTicks;
+
+    // Policies which are read from files are only read once, then copied for each session
+    private ScriptedPolicy script;
+    private final ArrayList<Replay> replays = new ArrayList<Replay>();
+
+    /**
+     * The outcome of a single session
+     */
+    private static class Session {
+        private boolean won;
+        private boolean lost;
+        private int score;
+        private int ticks;
+        private int playTicks;
+        private int cause;
+    }
+
+    /**
+     * A range of sessions to play, split in half between threads until it is small enough to play directly
+     */
+    private class SessionTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Session[] results;
+        private final int from;
+        private final int to;
+
+        /**
+         * Creates a task to play a range of sessions
+         * @param results The array to store the outcome of each session in, by session number
+         * @param from The first session to play
+         * @param to One past the last session to play
+         */
+        private SessionTask(Session[] results, int from, int to) {
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Play the range of sessions, or split it between two tasks if it is large
+         */
+        @Override
+        protected void compute() {
+            if (to - from <= SESSIONS_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    results[i] = runSession(i);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new SessionTask(results, from, middle), new SessionTask(results, middle, to));
+            }
+        }
+    }
+
+    /**
+     * Creates a new batch runner
+     * @param config The game config the sessions are played with
+     * @param policy The input policy: random, auto, script:file, or replay:file or directory
+     * @param seed The seed of the random policy
+     * @param level The level the random and auto policies start on, 1 or 2
+     * @param maxTicks The number of frames after which a session is stopped, or 0 for the default
+     * @throws IllegalArgumentException If the policy or level is not valid, or a replay was recorded with a different
+     *                                  config
+     */
+    public BatchRunner(GameConfig config, String policy, long seed, int level, int maxTicks) {
+        // Games can only be started on level 1 (ENTER) or level 2 (2) from the home screen
+        if (level != 1 && (level != 2 || config.getLevels().size() < 2)) {
+            throw new IllegalArgumentException("Level " + level + " can not be started, the config has "
+                    + config.getLevels().size() + " levels and only level 1 or 2 can be started");
+        }
+        this.config = config;
+        this.policy = policy;
+        this.seed = seed;
+        this.startKey = level == 2 ? InputFrame.NUM_2 : InputFrame.ENTER;
+        this.maxTicks = maxTicks > 0 ? maxTicks
+                : config.getLevels().size() * (config.getMaxFrames() + 1) + HOME_SCREEN_SECONDS * config.getTickRate();
+
+        if (policy.startsWith("script:")) {
+            script = ScriptedPolicy.read(policy.substring("script:".length()));
+        } else if (policy.startsWith("replay:")) {
+            readReplays(policy.substring("replay:".length()));
+        } else if (!policy.equals("random") && !policy.equals("auto")) {
+            throw new IllegalArgumentException("Unknown policy " + policy);
+        }
+    }
+
+    /**
+     * Helper method to read a replay file, or every replay in a directory
+     * @param path The replay file or directory
+     * @throws IllegalArgumentException If there are no replays, or one was recorded with a different config
+     */
+    private void readReplays(String path) {
+        File file = new File(path);
+        File[] files = file.isDirectory() ? file.listFiles((dir, name) -> name.endsWith(".sdkr")) : new File[]{file};
+        if (files == null || files.length == 0) {
+            throw new IllegalArgumentException("No replays found in " + path);
+        }
+        Arrays.sort(files);
+
+        for (File replayFile : files) {
+            Replay replay = Replay.read(replayFile.getPath());
+            if (replay.getConfigHash() != config.getHash()) {
+                throw new IllegalArgumentException("Replay " + replayFile + " was recorded with a different game config");
+            }
+            replays.add(replay);
+        }
+    }
+
+    /**
+     * Play every session on a pool of threads, and print the results
+     * @param sessions The number of sessions to play
+     * @param threads The number of threads to use
+     */
+    public void run(int sessions, int threads) {
+        Session[] results = new Session[sessions];
+        ForkJoinPool pool = new ForkJoinPool(threads);
+
+        long start = System.nanoTime();
+        try {
+            pool.invoke(new SessionTask(results, 0, sessions));
+        } finally {
+            pool.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        printReport(results, threads, seconds);
+    }
+
+    /**
+     * Helper method to create the input policy of a session
+     * @param session The session number
+     * @return A new policy for the session
+     */
+    private InputPolicy createPolicy(int session) {
+        if (script != null) {
+            return script.copy();
+        } else if (!replays.isEmpty()) {
+            return new ReplayPolicy(replays.get(session % replays.size()));
+        } else if (policy.equals("auto")) {
+            return new AutoPlayer(startKey);
+        }
+        return new RandomPolicy(seed + session, startKey);
+    }
+
+    /**
+     * Helper method to play a single session in a new world, until the game is won or lost, or the frame limit is
+     * reached
+     * @param number The session number
+     * @return The outcome of the session
+     */
+    private Session runSession(int number) {
+        World world = new World(config);
+        InputPolicy input = createPolicy(number);
+        Session session = new Session();
+
+        while (!world.isWon() && !world.isLost() && session.ticks < maxTicks) {
+            // The score is reset on the frame the game is lost, so keep the score reached before it
+            session.score = world.getScore();
+            world.step(input.next(world));
+
+            session.ticks++;
+            if (world.isGameStart()) {
+                session.playTicks++;
+            }
+        }
+
+        session.won = world.isWon();
+        session.lost = world.isLost();
+        session.cause = world.getCauseOfDeath();
+        if (session.won) {
+            session.score = world.getScore();
+        }
+        return session;
+    }
+
+    /**
+     * Helper method to print the aggregated results of every session
+     * @param results The outcome of every session
+     * @param threads The number of threads used
+     * @param seconds How long the sessions took to play, in seconds
+     */
+    private void printReport(Session[] results, int threads, double seconds) {
+        int sessions = results.length;
+        int won = 0;
+        int lost = 0;
+        long ticks = 0;
+        int[] scores = new int[sessions];
+        int[] causes = new int[World.CAUSE_MONKEY + 1];
+        ArrayList<Integer> deathTicks = new ArrayList<Integer>();
+
+        for (int i = 0; i < sessions; i++) {
+            Session session = results[i];
+            ticks += session.ticks;
+            scores[i] = session.score;
+            if (session.won) {
+                won++;
+            } else if (session.lost) {
+                lost++;
+                causes[session.cause]++;
+                deathTicks.add(session.playTicks);
+            }
+        }
+
+        double tickRate = config.getTickRate();
+        double[] deathSeconds = new double[deathTicks.size()];
+        for (int i = 0; i < deathSeconds.length; i++) {
+            deathSeconds[i] = deathTicks.get(i) / tickRate;
+        }
+        double[] scoreValues = new double[sessions];
+        for (int i = 0; i < sessions; i++) {
+            scoreValues[i] = scores[i];
+        }
+
+        System.out.printf(Locale.ROOT, "Ran %d sessions (%s policy) on %d threads in %.3f s%n", sessions, policy,
+                threads, seconds);
+        System.out.printf(Locale.ROOT, "Throughput: %.1f sessions/s, %.0f ticks/s%n", sessions / seconds,
+                ticks / seconds);
+        System.out.printf(Locale.ROOT, "Won %d (%s), lost %d (%s), unfinished %d (%s)%n", won,
+                percent(won, sessions), lost, percent(lost, sessions), sessions - won - lost,
+                percent(sessions - won - lost, sessions));
+        System.out.println("Score reached: " + describe(scoreValues, "%.0f"));
+        System.out.println("Time to death (s): " + describe(deathSeconds, "%.2f"));
+        System.out.println("Causes of death:");
+        for (int cause = World.CAUSE_TIME; cause < causes.length; cause++) {
+            System.out.printf(Locale.ROOT, "  %-8s %8d (%s)%n", World.getCauseName(cause), causes[cause],
+                    percent(causes[cause], lost));
+        }
+    }
+
+    /**
+     * Helper method to describe a distribution by its mean and percentiles
+     * @param values The values
+     * @param format The format of each value
+     * @return The mean, minimum, quartiles, 90th percentile and maximum of the values
+     */
+    private static String describe(double[] values, String format) {
+        if (values.length == 0) {
+            return "none";
+        }
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        double total = 0;
+        for (double value : sorted) {
+            total += value;
+        }
+
+        return String.format(Locale.ROOT, "mean %.2f, min " + format + ", p25 " + format + ", median " + format
+                        + ", p75 " + format + ", p90 " + format + ", max " + format, total / sorted.length, sorted[0],
+                percentile(sorted, 25), percentile(sorted, 50), percentile(sorted, 75), percentile(sorted, 90),
+                sorted[sorted.length - 1]);
+    }
+
+    /**
+     * Helper method to find a percentile of some sorted values, using the nearest rank
+     * @param sorted The values, sorted from smallest to largest
+     * @param percent The percentile to find, from 0 to 100
+     * @return The value at this percentile
+     */
+    private static double percentile(double[] sorted, double percent) {
+        int rank = (int) Math.ceil(percent / 100 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    /**
+     * Helper method to write a count as a percentage of a total
+     * @param count The count
+     * @param total The total
+     * @return The percentage, with one decimal place
+     */
+    private static String percent(int count, int total) {
+        return String.format(Locale.ROOT, "%.1f%%", total == 0 ? 0 : 100.0 * count / total);
+    }
+
+    /**
+     * Runs the batch of sessions described by the command-line options
+     * @param args Command-line options, see the class description
+     */
+    public static void main(String[] args) {
+        String configFile = "res/app.properties";
+        int sessions = 1000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String policy = "random";
+        int level = 1;
+        long seed = 0;
+        int maxTicks = 0;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--config":
+                    configFile = value;
+                    break;
+                case "--sessions":
+                    sessions = Integer.parseInt(value);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "--policy":
+                    policy = value;
+                    break;
+                case "--level":
+                    level = Integer.parseInt(value);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--max-ticks":
+                    maxTicks = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (args.length % 2 != 0) {
+            throw new IllegalArgumentException("Missing value for option " + args[args.length - 1]);
+        }
+
+        GameConfig config = GameConfig.read(configFile);
+        new BatchRunner(config, policy, seed, level, maxTicks).run(sessions, threads);
+    }
+}
@@ -1,7 +1,6 @@
-import bagel.Image;
+import bagel.util.Point;
 
 import java.util.ArrayList;
-import java.util.Properties;
 
 /**
  * Represents a blaster weapon in the game. They are loaded into level 2 only and can be collected by mario to
@@ -9,6 +8,9 @@ import java.util.Properties;
  * The class extends GameObject to inherit basic game properties
  */
 public class Blaster extends GameObject {
+    // Image every blaster is drawn with
+    public static final String IMAGE = "res/blaster.png";
+
 
     /**
      * Constructs a new blaster at a specified position. Loads the image for the blaster from res folder as well.
@@ -19,29 +21,19 @@ public class Blaster extends GameObject {
         setX(x);
         setY(y);
         setDestroyed(false);
-        setImg(new Image("res/blaster.png"));
+        setImg(Sprite.load(IMAGE));
     }
 
     /**
-     * Method to read in the blaster positions from the app properties file and create an arraylist of these blasters
-     * @param level The specified level (should be 2 as blasters are only in level 2)
-     * @param gameProps The game properties file to read the blaster information from
-     * @return A new array list containing all the blasters in this level
+     * Method to create an arraylist of the blasters for a specified level
+     * @param level The layout of the level, read from the game properties file
+     * @return A new array list containing all blasters for a specified level
      */
-    public static ArrayList<Blaster> readBlasters(int level, Properties gameProps) {
+    public static ArrayList<Blaster> readBlasters(LevelConfig level) {
         ArrayList<Blaster> blasters = new ArrayList<Blaster>();
 
-        // Read number of blasters
-        int n = Integer.parseInt(gameProps.getProperty("blaster.level" + level + ".count"));
-
-        // Read each blaster, with string manipulation
-        String points;
-        for (int i = 1; i <= n; i++) {
-            points = gameProps.getProperty("blaster.level" + level + "." + i);
-            blasters.add(new Blaster(
-                    Double.parseDouble(points.substring(0, points.indexOf(','))),
-                    Double.parseDouble(points.substring(points.indexOf(',') + 1))
-            ));
+        for (Point p : level.getBlasters()) {
+            blasters.add(new Blaster(p.x, p.y));
         }
 
         return blasters;
@@ -0,0 +1,130 @@
+import java.util.ArrayList;
+
+/**
+ * Everything mario is touching in a frame. The contact set is found once per frame by Mario.findContacts, once the
+ * characters have moved and mario has fallen, and is then read by everything which depends on what mario touches:
+ * collecting weapons, smashing barrels and monkeys, the keys which need mario to be on a ladder or the ground, and the
+ * checks to win or lose the level. Since every check reads the same set, no collision is tested twice in a frame, and
+ * the outcome of a frame does not depend on the order the checks are made in.
+ * The lists are reused every frame, so finding the contacts does not create any objects
+ */
+public class ContactSet {
+    private Ladder ladder;
+    private boolean grounded;
+    private boolean banana;
+    private boolean donkey;
+    private final ArrayList<Barrel> barrels = new ArrayList<Barrel>();
+    private final ArrayList<Monkey> monkeys = new ArrayList<Monkey>();
+    private final ArrayList<Hammer> hammers = new ArrayList<Hammer>();
+    private final ArrayList<Blaster> blasters = new ArrayList<Blaster>();
+
+    /**
+     * Empty the set, ready for the contacts of a new frame
+     */
+    public void clear() {
+        ladder = null;
+        grounded = false;
+        banana = false;
+        donkey = false;
+        barrels.clear();
+        monkeys.clear();
+        hammers.clear();
+        blasters.clear();
+    }
+
+    /**
+     * Set the ladder mario is on
+     * @param ladder The ladder, or null if mario is not on one
+     */
+    public void setLadder(Ladder ladder) {
+        this.ladder = ladder;
+    }
+
+    /**
+     * Set whether mario is standing on a platform or a ladder
+     * @param grounded True if mario is not in the air
+     */
+    public void setGrounded(boolean grounded) {
+        this.grounded = grounded;
+    }
+
+    /**
+     * Set whether mario is touching a banana
+     * @param banana True if a banana is touching mario
+     */
+    public void setBanana(boolean banana) {
+        this.banana = banana;
+    }
+
+    /**
+     * Set whether mario is touching donkey kong
+     * @param donkey True if mario is touching donkey kong
+     */
+    public void setDonkey(boolean donkey) {
+        this.donkey = donkey;
+    }
+
+    /**
+     * Get the ladder mario is on
+     * @return The ladder, or null if mario is not on one
+     */
+    public Ladder getLadder() {
+        return ladder;
+    }
+
+    /**
+     * Check if mario is standing on a platform or a ladder
+     * @return True if mario is not in the air
+     */
+    public boolean isGrounded() {
+        return grounded;
+    }
+
+    /**
+     * Check if mario is touching a banana
+     * @return True if a banana is touching mario
+     */
+    public boolean touchesBanana() {
+        return banana;
+    }
+
+    /**
+     * Check if mario is touching donkey kong
+     * @return True if mario is touching donkey kong
+     */
+    public boolean touchesDonkey() {
+        return donkey;
+    }
+
+    /**
+     * Get the barrels mario is touching, which were not destroyed when the contacts were found
+     * @return An array list of the barrels
+     */
+    public ArrayList<Barrel> getBarrels() {
+        return barrels;
+    }
+
+    /**
+     * Get the monkeys mario is touching, which were not destroyed when the contacts were found
+     * @return An array list of the monkeys
+     */
+    public ArrayList<Monkey> getMonkeys() {
+        return monkeys;
+    }
+
+    /**
+     * Get the hammers mario is touching, which were not collected when the contacts were found
+     * @return An array list of the hammers
+     */
+    public ArrayList<Hammer> getHammers() {
+        return hammers;
+    }
+
+    /**
+     * Get the blasters mario is touching, which were not collected when the contacts were found
+     * @return An array list of the blasters
+     */
+    public ArrayList<Blaster> getBlasters() {
+        return blasters;
+    }
+}
@@ -1,6 +1,4 @@
-import bagel.Image;
-
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
 
 /**
  * Represents donkey kong, the main boss in the game. He has lives which can be lost to mario's bullets. He is subject
@@ -8,36 +6,51 @@ import java.util.ArrayList;
  * Implements Fallable which handles falling physics
  */
 public class Donkey extends Character implements Fallable {
-    private double GRAVITY = 0.4;
+    // Image donkey kong is drawn with
+    public static final String IMAGE = "res/donkey_kong.png";
+
+    // Gravity in pixels per second squared
+    private final double GRAVITY = 1440;
+    private final double gravity;
+    private final double maxVelocity;
+
     // Initial starting health of donkey kong
     private final int START_HP = 5;
     private int health;
 
+    // Bytes written by writeState on top of the game object state: the health
+    private final int STATE_SIZE = Integer.BYTES;
+
     /**
      * Constructs a donkey kong at the specified position. He will not move from this initial position at all. Loads
      * the image from the res folder too.
      * @param x The x coordinate of donkey kong
      * @param y The y coordinate of donkey kong
+     * @param tickRate The number of simulation ticks per second, which his falling physics are scaled to
      */
-    public Donkey(double x, double y) {
+    public Donkey(double x, double y, int tickRate) {
+        gravity = GRAVITY / (tickRate * tickRate);
+        maxVelocity = MAX_FALL_SPEED / tickRate;
         setX(x);
         setY(y);
         health = START_HP;
-        setImg(new Image("res/donkey_kong.png"));
+        setImg(Sprite.load(IMAGE));
     }
 
     /**
      * Method used to check if a bullet has connected with donkey kong. If so, he loses a health point.
-     * @param bullets An array list containing all the bullet existing in the game at any present moment
+     * @param projectiles The projectile pool of the level
+     * @param events The event buffer, which a hit event is emitted into for every bullet which hits
+     * @return True if donkey kong was hit by at least one bullet, false if not
      */
-    public void touchBullet(ArrayList<Bullet> bullets) {
-        for (Bullet b : bullets) {
-            if (this.intersects(b)) {
-                // bullet is destroyed upon contact
-                health--;
-                b.setDestroyed(true);
-            }
+    public boolean touchBullet(ProjectilePool projectiles, EventBuffer events) {
+        // bullets are destroyed upon contact
+        int hits = projectiles.hit(this);
+        for (int i = 0; i < hits; i++) {
+            health--;
+            events.emit(EventBuffer.DONKEY_HIT, getX(), getY(), health);
         }
+        return hits > 0;
     }
 
     /**
@@ -48,12 +61,49 @@ public class Donkey extends Character implements Fallable {
         health = START_HP;
     }
 
+    /**
+     * Write the state of donkey kong into a snapshot, after his state as a game object
+     * @param buffer The buffer to write to, which must have at least getStateSize() bytes left
+     */
+    @Override
+    public void writeState(ByteBuffer buffer) {
+        super.writeState(buffer);
+        buffer.putInt(health);
+    }
+
+    /**
+     * Read the state of donkey kong back from a snapshot written by writeState
+     * @param buffer The buffer to read from
+     */
+    @Override
+    public void readState(ByteBuffer buffer) {
+        super.readState(buffer);
+        health = buffer.getInt();
+    }
+
+    /**
+     * Get the number of bytes the state of donkey kong takes up in a snapshot
+     * @return The number of bytes written by writeState
+     */
+    @Override
+    public int getStateSize() {
+        return super.getStateSize() + STATE_SIZE;
+    }
+
     /**
      * Get the gravity constant affecting donkey kong
-     * @return The gravity constant affecting donkey kong
+     * @return The gravity constant affecting donkey kong, in pixels per tick per tick
      */
     public double getGRAVITY() {
-        return GRAVITY;
+        return gravity;
+    }
+
+    /**
+     * Get the fastest donkey kong can fall
+     * @return The terminal velocity of donkey kong, in pixels per tick
+     */
+    public double getMaxVelocity() {
+        return maxVelocity;
     }
 
     /**
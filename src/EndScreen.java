@@ -1,6 +1,8 @@
 import bagel.Font;
 import bagel.Window;
 
+import java.util.Properties;
+
 /**
  * Represents the screen which appears after the game is lost or won. Displays win / loss messages and prompts,
  * the final score, and a 'continue' prompt
@@ -11,26 +13,29 @@ public class EndScreen extends Screen {
     private String scoreMsg;
     private String wonMsg;
     private String lostMsg;
-    private Font statusFont;
-    private Font scoreFont;
+    private String fontFile;
+    private int statusFontSize;
+    private int scoresFontSize;
     private double statusY;
     private double scoreY;
 
     /**
      * Constructs a new instance of end screen. Reads all messages from the message properties file and prompt y
      * coordinates and stores these
+     * @param config The game config read from the game properties file
+     * @param messageProps The message properties file
      */
-    public EndScreen() {
+    public EndScreen(GameConfig config, Properties messageProps) {
+        super(config, messageProps);
         continueMsg = this.getMESSAGE_PROPS().getProperty("gameEnd.continue");
         scoreMsg = this.getMESSAGE_PROPS().getProperty("gameEnd.score");
         wonMsg = this.getMESSAGE_PROPS().getProperty("gameEnd.won");
         lostMsg = this.getMESSAGE_PROPS().getProperty("gameEnd.lost");
-        statusFont = new Font(this.getGAME_PROPS().getProperty("font"),
-                Integer.parseInt(this.getGAME_PROPS().getProperty("gameEnd.status.fontSize")));
-        scoreFont = new Font(this.getGAME_PROPS().getProperty("font"),
-                Integer.parseInt(this.getGAME_PROPS().getProperty("gameEnd.scores.fontSize")));
-        statusY = Double.parseDouble(this.getGAME_PROPS().getProperty("gameEnd.status.y"));
-        scoreY = Double.parseDouble(this.getGAME_PROPS().getProperty("gameEnd.scores.y"));
+        fontFile = config.getFont();
+        statusFontSize = config.getStatusFontSize();
+        scoresFontSize = config.getScoresFontSize();
+        statusY = config.getStatusY();
+        scoreY = config.getScoresY();
 
     }
 
@@ -42,6 +47,10 @@ public class EndScreen extends Screen {
      * @param score The final score
      */
     public void render(boolean won, int score) {
+        // Fonts are shared, and are usually loaded in the background before the game ends
+        Font statusFont = AssetLoader.getFont(fontFile, statusFontSize);
+        Font scoreFont = AssetLoader.getFont(fontFile, scoresFontSize);
+
         if (won) {
             statusFont.drawString(wonMsg, (Window.getWidth() - statusFont.getWidth(wonMsg)) / 2.0, statusY);
         } else {
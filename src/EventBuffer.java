@@ -0,0 +1,176 @@
+/**
+ * Ring buffer of the game events (barrels jumped over or smashed, monkeys killed, donkey kong being hit, and the level
+ * being won or lost) which happen in a frame. Objects emit events into the buffer as they interact, and once the frame
+ * has been simulated the world hands the whole batch to its listeners: its own scoring and end of level logic first,
+ * then any other listeners (such as telemetry). Listeners only read the events, so adding one costs no extra
+ * collision checks.
+ * Events are stored in arrays, one array for each property, which are allocated up front. Emitting an event only
+ * fills in the next slot, so the buffer does not allocate anything unless a frame has more events than it can hold,
+ * in which case it doubles in size.
+ */
+public class EventBuffer {
+    /**
+     * Mario jumped over a barrel
+     */
+    public static final int BARREL_JUMPED = 0;
+
+    /**
+     * Mario smashed a barrel with the hammer
+     */
+    public static final int BARREL_SMASHED = 1;
+
+    /**
+     * A monkey was killed, by a bullet or with the hammer
+     */
+    public static final int MONKEY_KILLED = 2;
+
+    /**
+     * Donkey kong was hit by a bullet. The value is his health left
+     */
+    public static final int DONKEY_HIT = 3;
+
+    /**
+     * Mario lost the level. The value is the cause, one of the CAUSE constants of World
+     */
+    public static final int MARIO_DIED = 4;
+
+    /**
+     * Mario beat donkey kong. The value is the number of frames left on the level timer
+     */
+    public static final int LEVEL_WON = 5;
+
+    private static final String[] TYPE_NAMES = {"barrel jumped", "barrel smashed", "monkey killed", "donkey hit",
+            "mario died", "level won"};
+
+    // Properties of each event, where event i is stored at index i (wrapped around the capacity) of every array
+    private int[] type;
+    private double[] x;
+    private double[] y;
+    private int[] value;
+
+    // The capacity is always a power of two, so indexes wrap around with a mask
+    private int mask;
+    private int head;
+    private int size;
+
+    /**
+     * Creates a new empty buffer
+     * @param capacity The number of events the buffer can hold before it has to grow, rounded up to a power of two
+     */
+    public EventBuffer(int capacity) {
+        allocate(Integer.highestOneBit(Math.max(1, capacity - 1)) << 1);
+    }
+
+    /**
+     * Helper method to allocate the arrays of the buffer
+     * @param capacity The number of events the buffer can hold, which must be a power of two
+     */
+    private void allocate(int capacity) {
+        type = new int[capacity];
+        x = new double[capacity];
+        y = new double[capacity];
+        value = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Add an event to the end of the buffer
+     * @param type The type of event, one of the constants of this class
+     * @param x The x coordinate where the event happened
+     * @param y The y coordinate where the event happened
+     * @param value A value depending on the type of event, or 0 if the type has none
+     */
+    public void emit(int type, double x, double y, int value) {
+        if (size > mask) {
+            grow();
+        }
+        int slot = (head + size) & mask;
+        this.type[slot] = type;
+        this.x[slot] = x;
+        this.y[slot] = y;
+        this.value[slot] = value;
+        size++;
+    }
+
+    /**
+     * Helper method to double the capacity of the buffer, keeping its events in order
+     */
+    private void grow() {
+        int[] oldType = type;
+        double[] oldX = x;
+        double[] oldY = y;
+        int[] oldValue = value;
+        int oldMask = mask;
+
+        allocate((mask + 1) * 2);
+        for (int i = 0; i < size; i++) {
+            int slot = (head + i) & oldMask;
+            type[i] = oldType[slot];
+            x[i] = oldX[slot];
+            y[i] = oldY[slot];
+            value[i] = oldValue[slot];
+        }
+        head = 0;
+    }
+
+    /**
+     * Remove every event from the buffer, once they have been handled
+     */
+    public void clear() {
+        head = (head + size) & mask;
+        size = 0;
+    }
+
+    /**
+     * Get the number of events in the buffer
+     * @return The number of events
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the type of an event
+     * @param i The index of the event, from 0 (the oldest) to size() - 1
+     * @return The type of the event, one of the constants of this class
+     */
+    public int getType(int i) {
+        return type[(head + i) & mask];
+    }
+
+    /**
+     * Get the x coordinate where an event happened
+     * @param i The index of the event, from 0 (the oldest) to size() - 1
+     * @return The x coordinate
+     */
+    public double getX(int i) {
+        return x[(head + i) & mask];
+    }
+
+    /**
+     * Get the y coordinate where an event happened
+     * @param i The index of the event, from 0 (the oldest) to size() - 1
+     * @return The y coordinate
+     */
+    public double getY(int i) {
+        return y[(head + i) & mask];
+    }
+
+    /**
+     * Get the value of an event, which depends on its type
+     * @param i The index of the event, from 0 (the oldest) to size() - 1
+     * @return The value, or 0 if the type of event has none
+     */
+    public int getValue(int i) {
+        return value[(head + i) & mask];
+    }
+
+    /**
+     * Get a short name for a type of event
+     * @param type One of the type constants of this class
+     * @return The name of the type
+     */
+    public static String getTypeName(int type) {
+        return TYPE_NAMES[type];
+    }
+}
@@ -3,35 +3,35 @@ import java.util.ArrayList;
 /**
  * An interface for objects which can fall subject to gravity.
  * Provides default implementations to detect if an object is currently in the air or grounded,
- * and a method to accelerate an object without exceeding the terminal velocity
+ * a method to accelerate an object without exceeding the terminal velocity, and a method to simulate one frame of
+ * falling. Objects which are grounded and not walking can be put to sleep by a PhysicsSet, which stops simulating
+ * them until something wakes them
  */
 public interface Fallable {
-    double MAX_VELOCITY = 10;
+    // Fastest anything falls, in pixels per second. Each object scales it to the length of a tick
+    double MAX_FALL_SPEED = 600;
 
 
     /**
-     * Method which compares an objects position to all platforms in the level to check if the object is
-     * in the air, or grounded
-     * @param platforms An array list of all platforms in the level
+     * Method which looks up the platform under an object to check if the object is in the air, or grounded
+     * @param ground The index of all platform surfaces in the level
      * @param gameObject The object to check
      * @return True of the object is in the air, otherwise false if it is grounded on a platform
      */
-    default boolean inAir(ArrayList<Platform> platforms, GameObject gameObject) {
-        for (Platform p : platforms) {
-
-            // Check if the object is in contact with this platform, with room for a collision error
-            if (p.platformIntersect(gameObject)) {
+    default boolean inAir(GroundIndex ground, GameObject gameObject) {
+        // Find the platform the object is in contact with, with room for a collision error
+        Platform p = ground.findGround(gameObject.getX(), gameObject.getBottom());
+        if (p == null) {
+            return true;
+        }
 
-                // Adjust the position of the entity to align with the platform, due to us having a collision error
-                gameObject.setY(p.getY() - p.getImg().getHeight() / 2.0 - gameObject.getImg().getHeight() / 2.0);
+        // Adjust the position of the entity to align with the platform, due to us having a collision error
+        gameObject.setY(p.getTop() - gameObject.getHalfHeight());
 
-                // If entity connects with a platform, then it should stop falling
-                gameObject.setVelocity(0);
+        // If entity connects with a platform, then it should stop falling
+        gameObject.setVelocity(0);
 
-                return false;
-            }
-        }
-        return true;
+        return false;
     }
 
 
@@ -42,7 +42,44 @@ public interface Fallable {
      * @param gameObject The object to accelerate
      */
     default void accelerate(double acceleration, GameObject gameObject) {
-        gameObject.setVelocity(Math.min(gameObject.getVelocity() + acceleration, MAX_VELOCITY));
+        gameObject.setVelocity(Math.min(gameObject.getVelocity() + acceleration, getMaxVelocity()));
         gameObject.setY(gameObject.getY() + gameObject.getVelocity());
     }
+
+    /**
+     * Simulate one frame of falling. The object falls if it is in the air, or is aligned with the platform under it
+     * if not
+     * @param platforms All platforms in the level
+     * @param ground The index of all platform surfaces in the level
+     * @param gameObject The object to simulate
+     * @return True if the object was in the air, false if it is grounded
+     */
+    default boolean fall(ArrayList<Platform> platforms, GroundIndex ground, GameObject gameObject) {
+        if (inAir(ground, gameObject)) {
+            accelerate(getGRAVITY(), gameObject);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Check if the object moves sideways by itself, in which case it may walk off the platform under it and can never
+     * be put to sleep
+     * @return True if the object walks, false if it only ever falls
+     */
+    default boolean isWalking() {
+        return false;
+    }
+
+    /**
+     * Get the gravity constant affecting the object
+     * @return The gravity constant, in pixels per tick per tick
+     */
+    double getGRAVITY();
+
+    /**
+     * Get the terminal velocity of the object, which is MAX_FALL_SPEED over a single tick
+     * @return The terminal velocity, in pixels per tick
+     */
+    double getMaxVelocity();
 }
@@ -0,0 +1,440 @@
+import bagel.util.Point;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Immutable, typed representation of the game properties file. The file is read and validated once at startup,
+ * and the result is handed to the world, levels and screens, so that no game object needs to read the file itself.
+ */
+public final class GameConfig {
+    private static final int DEFAULT_TICK_RATE = 60;
+
+    // gamePlay.maxFrames is counted in frames of the original game, which ran at this many frames per second
+    private static final int MAX_FRAMES_PER_SECOND = 60;
+    private static final int DEFAULT_REWIND_SECONDS = 30;
+    private static final int DEFAULT_REWIND_MAX_BYTES = 8 * 1024 * 1024;
+    private static final int DEFAULT_SAVE_INTERVAL_SECONDS = 5;
+
+    private final int windowWidth;
+    private final int windowHeight;
+    private final int maxFrames;
+    private final int tickRate;
+    private final String font;
+    private final String replayDirectory;
+    private final String profileOutput;
+    private final int rewindSeconds;
+    private final int rewindMaxBytes;
+    private final String saveFile;
+    private final int saveIntervalSeconds;
+
+    // Screen settings
+    private final int titleFontSize;
+    private final double titleY;
+    private final int promptFontSize;
+    private final double promptY;
+    private final int statusFontSize;
+    private final double statusY;
+    private final int scoresFontSize;
+    private final double scoresY;
+
+    // Score display
+    private final int scoreFontSize;
+    private final double scoreX;
+    private final double scoreY;
+    private final Point donkeyHealthPos;
+
+    private final List<LevelConfig> levels;
+
+    // Hash of every game property, used to check that replays are played with the config they were recorded with
+    private final long hash;
+
+    /**
+     * Creates a new game config by parsing and validating the given properties
+     * @param gameProps The game properties to read
+     * @throws IllegalArgumentException If a property is missing or malformed
+     */
+    public GameConfig(Properties gameProps) {
+        windowWidth = readInt(gameProps, "window.width");
+        windowHeight = readInt(gameProps, "window.height");
+        maxFrames = readInt(gameProps, "gamePlay.maxFrames");
+        tickRate = readOptionalInt(gameProps, "gamePlay.tickRate", DEFAULT_TICK_RATE);
+        if (tickRate <= 0) {
+            throw new IllegalArgumentException("Game property gamePlay.tickRate must be positive: " + tickRate);
+        }
+        font = readString(gameProps, "font");
+        replayDirectory = gameProps.getProperty("replay.directory") == null ? null :
+                readString(gameProps, "replay.directory");
+        profileOutput = gameProps.getProperty("profile.output") == null ? null :
+                readString(gameProps, "profile.output");
+        rewindSeconds = readOptionalInt(gameProps, "rewind.seconds", DEFAULT_REWIND_SECONDS);
+        rewindMaxBytes = readOptionalInt(gameProps, "rewind.maxBytes", DEFAULT_REWIND_MAX_BYTES);
+        if (rewindSeconds < 0 || rewindMaxBytes <= 0) {
+            throw new IllegalArgumentException("Game properties rewind.seconds and rewind.maxBytes must not be negative");
+        }
+        saveFile = gameProps.getProperty("save.file") == null ? null : readString(gameProps, "save.file");
+        saveIntervalSeconds = readOptionalInt(gameProps, "save.intervalSeconds", DEFAULT_SAVE_INTERVAL_SECONDS);
+        if (saveIntervalSeconds <= 0) {
+            throw new IllegalArgumentException("Game property save.intervalSeconds must be positive: "
+                    + saveIntervalSeconds);
+        }
+
+        titleFontSize = readInt(gameProps, "home.title.fontSize");
+        titleY = readDouble(gameProps, "home.title.y");
+        promptFontSize = readInt(gameProps, "home.prompt.fontSize");
+        promptY = readDouble(gameProps, "home.prompt.y");
+        statusFontSize = readInt(gameProps, "gameEnd.status.fontSize");
+        statusY = readDouble(gameProps, "gameEnd.status.y");
+        scoresFontSize = readInt(gameProps, "gameEnd.scores.fontSize");
+        scoresY = readDouble(gameProps, "gameEnd.scores.y");
+
+        scoreFontSize = readInt(gameProps, "gamePlay.score.fontSize");
+        scoreX = readDouble(gameProps, "gamePlay.score.x");
+        scoreY = readDouble(gameProps, "gamePlay.score.y");
+        donkeyHealthPos = parsePoint("gamePlay.donkeyhealth.coords",
+                readString(gameProps, "gamePlay.donkeyhealth.coords"));
+
+        // Levels are numbered from 1, and every level with platforms is read
+        List<LevelConfig> levels = new ArrayList<LevelConfig>();
+        for (int number = 1; gameProps.getProperty("platforms.level" + number) != null; number++) {
+            levels.add(new LevelConfig(gameProps, number));
+        }
+        if (levels.isEmpty()) {
+            throw new IllegalArgumentException("Missing game property: platforms.level1");
+        }
+        this.levels = Collections.unmodifiableList(levels);
+
+        hash = hashProperties(gameProps);
+    }
+
+    /**
+     * Hash every property (in order of their keys) with the 64 bit FNV-1a hash. The hash does not depend on the
+     * order or formatting of the properties file, only on its keys and values. Replay, profiling, rewind and save
+     * settings do not change the game, so they are left out
+     * @param gameProps The game properties to hash
+     * @return The hash of the properties
+     */
+    static long hashProperties(Properties gameProps) {
+        List<String> keys = new ArrayList<String>(gameProps.stringPropertyNames());
+        Collections.sort(keys);
+
+        long hash = 0xcbf29ce484222325L;
+        for (String key : keys) {
+            if (key.startsWith("replay.") || key.startsWith("profile.") || key.startsWith("rewind.")
+                    || key.startsWith("save.")) {
+                continue;
+            }
+            String entry = key + "=" + gameProps.getProperty(key).trim() + "\n";
+            for (int i = 0; i < entry.length(); i++) {
+                hash ^= entry.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Read a properties file and parse it into a game config
+     * @param configFile The path to the properties file
+     * @return The parsed game config
+     */
+    public static GameConfig read(String configFile) {
+        return new GameConfig(IOUtils.readPropertiesFile(configFile));
+    }
+
+    /**
+     * Read a required string property
+     * @param gameProps The game properties to read from
+     * @param key The key of the property
+     * @return The value of the property
+     * @throws IllegalArgumentException If the property is missing
+     */
+    static String readString(Properties gameProps, String key) {
+        String value = gameProps.getProperty(key);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing game property: " + key);
+        }
+        return value.trim();
+    }
+
+    /**
+     * Read a required integer property
+     * @param gameProps The game properties to read from
+     * @param key The key of the property
+     * @return The value of the property
+     * @throws IllegalArgumentException If the property is missing or not an integer
+     */
+    static int readInt(Properties gameProps, String key) {
+        String value = readString(gameProps, key);
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Game property " + key + " is not an integer: " + value);
+        }
+    }
+
+    /**
+     * Read an optional integer property
+     * @param gameProps The game properties to read from
+     * @param key The key of the property
+     * @param defaultValue The value to use if the property is missing
+     * @return The value of the property, or the default value if it is missing
+     * @throws IllegalArgumentException If the property is not an integer
+     */
+    static int readOptionalInt(Properties gameProps, String key, int defaultValue) {
+        if (gameProps.getProperty(key) == null) {
+            return defaultValue;
+        }
+        return readInt(gameProps, key);
+    }
+
+    /**
+     * Read a required decimal property
+     * @param gameProps The game properties to read from
+     * @param key The key of the property
+     * @return The value of the property
+     * @throws IllegalArgumentException If the property is missing or not a number
+     */
+    static double readDouble(Properties gameProps, String key) {
+        String value = readString(gameProps, key);
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Game property " + key + " is not a number: " + value);
+        }
+    }
+
+    /**
+     * Parse a point in the format xx,yy
+     * @param key The key of the property the point was read from, used for error messages
+     * @param value The string to parse
+     * @return The parsed point
+     * @throws IllegalArgumentException If the point is malformed
+     */
+    static Point parsePoint(String key, String value) {
+        int comma = value.indexOf(',');
+        if (comma < 0) {
+            throw new IllegalArgumentException("Game property " + key + " is not a point: " + value);
+        }
+
+        try {
+            return new Point(Double.parseDouble(value.substring(0, comma).trim()),
+                    Double.parseDouble(value.substring(comma + 1).trim()));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Game property " + key + " is not a point: " + value);
+        }
+    }
+
+    /**
+     * Get the width of the window
+     * @return The width of the window in pixels
+     */
+    public int getWindowWidth() {
+        return windowWidth;
+    }
+
+    /**
+     * Get the height of the window
+     * @return The height of the window in pixels
+     */
+    public int getWindowHeight() {
+        return windowHeight;
+    }
+
+    /**
+     * Get the number of simulation ticks each level lasts for. gamePlay.maxFrames gives the time limit in frames of
+     * 1/60 of a second, so a level lasts the same time at any tick rate
+     * @return The maximum number of ticks of a level
+     */
+    public int getMaxFrames() {
+        return (int) Math.min((long) maxFrames * tickRate / MAX_FRAMES_PER_SECOND, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Get the number of simulation ticks per second. Speeds and gravities are given per second, and every object
+     * scales them to the length of a tick when it is created, so the game plays at the same speed at any tick rate
+     * @return The number of ticks per second
+     */
+    public int getTickRate() {
+        return tickRate;
+    }
+
+    /**
+     * Get the path of the font used for all text
+     * @return The path of the font file
+     */
+    public String getFont() {
+        return font;
+    }
+
+    /**
+     * Get the directory every game is recorded into as a replay
+     * @return The path of the replay directory, or null if games are not recorded
+     */
+    public String getReplayDirectory() {
+        return replayDirectory;
+    }
+
+    /**
+     * Get the CSV file frame timings are written to
+     * @return The path of the CSV file, or null if frame timings are not measured
+     */
+    public String getProfileOutput() {
+        return profileOutput;
+    }
+
+    /**
+     * Get how many seconds of play can be rewound
+     * @return The number of seconds, or 0 if rewinding is turned off
+     */
+    public int getRewindSeconds() {
+        return rewindSeconds;
+    }
+
+    /**
+     * Get the most memory the differences between rewind frames may take up
+     * @return The number of bytes
+     */
+    public int getRewindMaxBytes() {
+        return rewindMaxBytes;
+    }
+
+    /**
+     * Get the file the game being played is saved to, and resumed from when the game is launched
+     * @return The path of the save file, or null if games are not saved
+     */
+    public String getSaveFile() {
+        return saveFile;
+    }
+
+    /**
+     * Get how many seconds of play there are between saves
+     * @return The number of seconds
+     */
+    public int getSaveIntervalSeconds() {
+        return saveIntervalSeconds;
+    }
+
+    /**
+     * Get the font size of the title on the home screen
+     * @return The title font size
+     */
+    public int getTitleFontSize() {
+        return titleFontSize;
+    }
+
+    /**
+     * Get the y coordinate of the title on the home screen
+     * @return The title y coordinate
+     */
+    public double getTitleY() {
+        return titleY;
+    }
+
+    /**
+     * Get the font size of the prompt on the home screen
+     * @return The prompt font size
+     */
+    public int getPromptFontSize() {
+        return promptFontSize;
+    }
+
+    /**
+     * Get the y coordinate of the prompt on the home screen
+     * @return The prompt y coordinate
+     */
+    public double getPromptY() {
+        return promptY;
+    }
+
+    /**
+     * Get the font size of the win / loss message on the end screen
+     * @return The status font size
+     */
+    public int getStatusFontSize() {
+        return statusFontSize;
+    }
+
+    /**
+     * Get the y coordinate of the win / loss message on the end screen
+     * @return The status y coordinate
+     */
+    public double getStatusY() {
+        return statusY;
+    }
+
+    /**
+     * Get the font size of the final score on the end screen
+     * @return The final score font size
+     */
+    public int getScoresFontSize() {
+        return scoresFontSize;
+    }
+
+    /**
+     * Get the y coordinate of the final score on the end screen
+     * @return The final score y coordinate
+     */
+    public double getScoresY() {
+        return scoresY;
+    }
+
+    /**
+     * Get the font size of the score display during a level
+     * @return The score font size
+     */
+    public int getScoreFontSize() {
+        return scoreFontSize;
+    }
+
+    /**
+     * Get the x coordinate of the score display during a level
+     * @return The score x coordinate
+     */
+    public double getScoreX() {
+        return scoreX;
+    }
+
+    /**
+     * Get the y coordinate of the score display during a level
+     * @return The score y coordinate
+     */
+    public double getScoreY() {
+        return scoreY;
+    }
+
+    /**
+     * Get the position of the donkey health and ammo display
+     * @return The position of the donkey health display
+     */
+    public Point getDonkeyHealthPos() {
+        return donkeyHealthPos;
+    }
+
+    /**
+     * Get the hash of all game properties. Two configs with the same hash produce the same game
+     * @return The hash of the game properties
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Get the layout of a level
+     * @param level The level number, starting from 1
+     * @return The layout of the level
+     */
+    public LevelConfig getLevel(int level) {
+        return levels.get(level - 1);
+    }
+
+    /**
+     * Get the layouts of all levels, in order
+     * @return An unmodifiable list of all level layouts
+     */
+    public List<LevelConfig> getLevels() {
+        return levels;
+    }
+}
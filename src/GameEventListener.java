@@ -0,0 +1,13 @@
+/**
+ * Interface for anything which reacts to the events of the game, such as telemetry or achievements. Listeners are
+ * added to the world, and are handed every frame's events in one batch once the frame has been simulated
+ */
+public interface GameEventListener {
+    /**
+     * Handle the events of a frame. The buffer is cleared once every listener has read it, so events which are needed
+     * later must be copied
+     * @param world The world the events happened in, after its score and outcome have been updated
+     * @param events The events of the frame, oldest first
+     */
+    void onEvents(World world, EventBuffer events);
+}
@@ -1,23 +1,50 @@
-import bagel.Image;
-import bagel.util.Point;
-import bagel.util.Rectangle;
-
-import java.util.ArrayList;
-import java.util.Properties;
+import java.nio.ByteBuffer;
 
 /**
  * Abstract parent class for all game objects in the game.
  * Provides common properties such as position in terms of (x,y) coordinates (in pixels), vertical velocity, and
- * tracks whether the object is destroyed or not
+ * tracks whether the object is destroyed or not.
+ * The bounding box of the object is cached as plain doubles, and kept up to date whenever the position or image
+ * changes, so that collision tests do not need to allocate anything. If the object is stored in a SpatialGrid, the
+ * grid is told whenever the bounding box changes
  */
 public abstract class GameObject {
-    private final Properties GAME_PROPS = IOUtils.readPropertiesFile("res/app.properties");
-    private Image img;
+    // Bytes written by writeState: the position, velocity and position at the start of the frame, then the flags
+    private final int STATE_SIZE = 5 * Double.BYTES + 1;
+
+    private Sprite img;
     private double x;
     private double y;
     private double velocity;
     private boolean destroyed;
 
+    // Position at the start of the current simulation frame, used to smooth rendering between frames
+    private double prevX;
+    private double prevY;
+
+    // Cached half-extents and edges of the bounding box
+    private double halfWidth;
+    private double halfHeight;
+    private double left;
+    private double right;
+    private double top;
+    private double bottom;
+
+    // Broadphase bookkeeping, managed by the SpatialGrid the object has been inserted into (if any)
+    SpatialGrid grid;
+    int cellMinX;
+    int cellMinY;
+    int cellMaxX;
+    int cellMaxY;
+    int queryStamp;
+
+    // Physics bookkeeping, managed by the PhysicsSet the object has been added to (if any)
+    boolean sleeping;
+    boolean airborne;
+
+    // Index of the object in its level's snapshot order, used to refer to it in snapshots
+    int stateIndex;
+
     /**
      * Resets the object to it's initial state. Used to reset levels. Needs to be implemented by concrete subclasses
      */
@@ -25,22 +52,28 @@ public abstract class GameObject {
 
     /**
      * Method that can be called by other classes to see if a game object intersects with that object (by comparing
-     * their images)
+     * their bounding boxes). Boxes which only touch along an edge are not intersecting
      * @param gameObject The object we are test to see if it intersects with this object
      * @return True if the two objects are intersecting, otherwise false.
      */
     public boolean intersects(GameObject gameObject) {
-        Rectangle r1 = new Rectangle(new Point(gameObject.getX() - getImg().getWidth() / 2.0, gameObject.getY() - gameObject.getImg().getHeight() / 2.0), gameObject.getImg().getWidth(), gameObject.getImg().getHeight());
-        Rectangle r2 = new Rectangle(new Point(this.x - this.img.getWidth() / 2.0, this.y - this.img.getHeight() / 2.0), this.img.getWidth(), this.img.getHeight());
-        return r1.intersects(r2);
+        return left < gameObject.right && gameObject.left < right
+                && top < gameObject.bottom && gameObject.top < bottom;
     }
 
     /**
-     * Set an object's image. Generally a new instance of an Image (bagel class) read from the res folder
-     * @param img A new image with a path file in the res folder
+     * Set an object's image. Generally a shared Sprite read from the res folder
+     * @param img A sprite with a path file in the res folder
      */
-    public void setImg(Image img) {
+    public void setImg(Sprite img) {
         this.img = img;
+        halfWidth = img.getWidth() / 2.0;
+        halfHeight = img.getHeight() / 2.0;
+        updateBoundsX();
+        updateBoundsY();
+        if (grid != null) {
+            grid.update(this);
+        }
     }
 
     /**
@@ -49,6 +82,10 @@ public abstract class GameObject {
      */
     public void setX(double x) {
         this.x = x;
+        updateBoundsX();
+        if (grid != null) {
+            grid.update(this);
+        }
     }
 
     /**
@@ -57,6 +94,99 @@ public abstract class GameObject {
      */
     public void setY(double y) {
         this.y = y;
+        updateBoundsY();
+        if (grid != null) {
+            grid.update(this);
+        }
+    }
+
+    /**
+     * Helper method to update the left and right edges of the bounding box after the x coordinate or image changes
+     */
+    private void updateBoundsX() {
+        left = x - halfWidth;
+        right = x + halfWidth;
+    }
+
+    /**
+     * Helper method to update the top and bottom edges of the bounding box after the y coordinate or image changes
+     */
+    private void updateBoundsY() {
+        top = y - halfHeight;
+        bottom = y + halfHeight;
+    }
+
+    /**
+     * Write the state of the object which changes as the game is played into a snapshot. Subclasses with more state
+     * write it after the state of their parent class
+     * @param buffer The buffer to write to, which must have at least getStateSize() bytes left
+     */
+    public void writeState(ByteBuffer buffer) {
+        buffer.putDouble(x);
+        buffer.putDouble(y);
+        buffer.putDouble(velocity);
+        buffer.putDouble(prevX);
+        buffer.putDouble(prevY);
+        buffer.put((byte) ((destroyed ? 1 : 0) | (sleeping ? 2 : 0) | (airborne ? 4 : 0)));
+    }
+
+    /**
+     * Read the state of the object back from a snapshot written by writeState, and move it to its place in the grid
+     * @param buffer The buffer to read from
+     */
+    public void readState(ByteBuffer buffer) {
+        x = buffer.getDouble();
+        y = buffer.getDouble();
+        velocity = buffer.getDouble();
+        prevX = buffer.getDouble();
+        prevY = buffer.getDouble();
+        int flags = buffer.get();
+        destroyed = (flags & 1) != 0;
+        sleeping = (flags & 2) != 0;
+        airborne = (flags & 4) != 0;
+
+        updateBoundsX();
+        updateBoundsY();
+        if (grid != null) {
+            grid.update(this);
+        }
+    }
+
+    /**
+     * Get the number of bytes the state of the object takes up in a snapshot
+     * @return The number of bytes written by writeState
+     */
+    public int getStateSize() {
+        return STATE_SIZE;
+    }
+
+    /**
+     * Remember the current position of the object as its position at the start of the frame. Called by the world
+     * before every simulation frame
+     */
+    public void savePosition() {
+        prevX = x;
+        prevY = y;
+    }
+
+    /**
+     * Get the x coordinate to draw the object at, between its position at the start and end of the last
+     * simulation frame
+     * @param alpha How far between the two positions to draw the object, from 0 (start) to 1 (end)
+     * @return The interpolated x coordinate
+     */
+    public double getRenderX(double alpha) {
+        return prevX + (x - prevX) * alpha;
+    }
+
+    /**
+     * Get the y coordinate to draw the object at, between its position at the start and end of the last
+     * simulation frame
+     * @param alpha How far between the two positions to draw the object, from 0 (start) to 1 (end)
+     * @return The interpolated y coordinate
+     */
+    public double getRenderY(double alpha) {
+        return prevY + (y - prevY) * alpha;
     }
 
     /**
@@ -77,11 +207,11 @@ public abstract class GameObject {
     }
 
     /**
-     * Get the Image (bagel class) of this object. Used to draw objects with the .draw method, and to test for
+     * Get the Sprite of this object. Used to draw objects with the .draw method, and to test for
      * intersections with other objects
-     * @return An Image (bagel class) representing the image of the object
+     * @return A Sprite representing the image of the object
      */
-    public Image getImg() {
+    public Sprite getImg() {
         return this.img;
     }
 
@@ -101,6 +231,54 @@ public abstract class GameObject {
         return this.y;
     }
 
+    /**
+     * Get half the width of the object's image
+     * @return Half the width of the object in pixels
+     */
+    public double getHalfWidth() {
+        return halfWidth;
+    }
+
+    /**
+     * Get half the height of the object's image
+     * @return Half the height of the object in pixels
+     */
+    public double getHalfHeight() {
+        return halfHeight;
+    }
+
+    /**
+     * Get the x coordinate of the left edge of the object
+     * @return The x coordinate of the left edge in pixels
+     */
+    public double getLeft() {
+        return left;
+    }
+
+    /**
+     * Get the x coordinate of the right edge of the object
+     * @return The x coordinate of the right edge in pixels
+     */
+    public double getRight() {
+        return right;
+    }
+
+    /**
+     * Get the y coordinate of the top edge of the object
+     * @return The y coordinate of the top edge in pixels
+     */
+    public double getTop() {
+        return top;
+    }
+
+    /**
+     * Get the y coordinate of the bottom edge of the object
+     * @return The y coordinate of the bottom edge in pixels
+     */
+    public double getBottom() {
+        return bottom;
+    }
+
     /**
      * Get the vertical velocity of the object
      * @return The vertical velocity of the object
@@ -117,4 +295,21 @@ public abstract class GameObject {
     public boolean isDestroyed() {
         return this.destroyed;
     }
+
+    /**
+     * Check if the object has been put to sleep by its physics set, meaning it is resting and is not simulated
+     * @return True if the object is asleep, false if not
+     */
+    public boolean isSleeping() {
+        return sleeping;
+    }
+
+    /**
+     * Check if the object was in the air the last time its physics set simulated it. Sleeping objects are always
+     * grounded
+     * @return True if the object is in the air, false if it is grounded
+     */
+    public boolean isAirborne() {
+        return airborne;
+    }
 }
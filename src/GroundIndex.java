@@ -0,0 +1,151 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * An index of the top surfaces of every platform in a level, used to find the ground under a falling object.
+ * Platforms never move, so the index is built once when the level is loaded.
+ * Surfaces are grouped into rows of surfaces at the same height, with rows sorted by their y coordinate and the
+ * surfaces in each row sorted by their left edge. Finding the ground under a point is then a binary search for the
+ * rows at the right height, and another for the surfaces around the point's x coordinate, instead of checking
+ * every platform in the level.
+ */
+public class GroundIndex {
+    // Allowed distance between the bottom of an object and a surface for the object to be resting on it
+    private final double collisionError;
+
+    // Surfaces, sorted by height and then by left edge
+    private final Platform[] platforms;
+    private final double[] lefts;
+    private final double[] rights;
+
+    // Position of each surface's platform in the original platform list, used to break ties between surfaces
+    private final int[] order;
+
+    // Rows of surfaces at the same height. Each row holds the surfaces from rowStarts (inclusive) to rowEnds
+    // (exclusive), and the width of its widest surface
+    private final double[] rowTops;
+    private final int[] rowStarts;
+    private final int[] rowEnds;
+    private final double[] rowMaxWidths;
+
+    /**
+     * Builds the index from all platforms in a level
+     * @param platforms An array list of all platforms in the level
+     */
+    public GroundIndex(ArrayList<Platform> platforms) {
+        int n = platforms.size();
+        Integer[] sorted = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            sorted[i] = i;
+        }
+        Arrays.sort(sorted, (a, b) -> {
+            Platform p1 = platforms.get(a);
+            Platform p2 = platforms.get(b);
+            if (p1.getTop() != p2.getTop()) {
+                return Double.compare(p1.getTop(), p2.getTop());
+            }
+            return Double.compare(p1.getLeft(), p2.getLeft());
+        });
+
+        collisionError = n > 0 ? platforms.get(0).getCOLLISION_ERROR() : 0;
+        this.platforms = new Platform[n];
+        lefts = new double[n];
+        rights = new double[n];
+        order = new int[n];
+
+        double[] rowTops = new double[n];
+        int[] rowStarts = new int[n];
+        int[] rowEnds = new int[n];
+        double[] rowMaxWidths = new double[n];
+        int rows = 0;
+
+        for (int i = 0; i < n; i++) {
+            Platform p = platforms.get(sorted[i]);
+            this.platforms[i] = p;
+            lefts[i] = p.getLeft();
+            rights[i] = p.getRight();
+            order[i] = sorted[i];
+
+            // Start a new row whenever the height changes
+            if (rows == 0 || rowTops[rows - 1] != p.getTop()) {
+                rowTops[rows] = p.getTop();
+                rowStarts[rows] = i;
+                rows++;
+            }
+            rowEnds[rows - 1] = i + 1;
+            rowMaxWidths[rows - 1] = Math.max(rowMaxWidths[rows - 1], p.getRight() - p.getLeft());
+        }
+
+        this.rowTops = Arrays.copyOf(rowTops, rows);
+        this.rowStarts = Arrays.copyOf(rowStarts, rows);
+        this.rowEnds = Arrays.copyOf(rowEnds, rows);
+        this.rowMaxWidths = Arrays.copyOf(rowMaxWidths, rows);
+    }
+
+    /**
+     * Finds the platform whose top surface is under a point, within the collision error. If several surfaces
+     * match, the platform that comes first in the level's platform list is chosen
+     * @param x The x coordinate of the point (generally the centre of an object)
+     * @param bottom The y coordinate of the point (generally the bottom of an object)
+     * @return The platform under the point, or null if there is none
+     */
+    public Platform findGround(double x, double bottom) {
+        Platform ground = null;
+        int groundOrder = Integer.MAX_VALUE;
+
+        // Check every row between the collision error above and below the point
+        for (int r = firstRow(bottom - collisionError); r < rowTops.length && rowTops[r] <= bottom + collisionError; r++) {
+
+            // Surfaces further left than the widest surface in the row can not reach the point
+            for (int i = lastStartingBefore(x, rowStarts[r], rowEnds[r]);
+                 i >= rowStarts[r] && lefts[i] >= x - rowMaxWidths[r]; i--) {
+                if (x <= rights[i] && order[i] < groundOrder) {
+                    ground = platforms[i];
+                    groundOrder = order[i];
+                }
+            }
+        }
+
+        return ground;
+    }
+
+    /**
+     * Helper method to find the first row at or below a y coordinate, with a binary search
+     * @param y The y coordinate
+     * @return The index of the first row with a top at least y (the number of rows if there is none)
+     */
+    private int firstRow(double y) {
+        int low = 0;
+        int high = rowTops.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (rowTops[mid] < y) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Helper method to find the last surface in a row which starts at or before an x coordinate, with a binary search
+     * @param x The x coordinate
+     * @param start The index of the first surface in the row
+     * @param end The index after the last surface in the row
+     * @return The index of the last surface with a left edge at most x (start - 1 if there is none)
+     */
+    private int lastStartingBefore(double x, int start, int end) {
+        int low = start;
+        int high = end;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (lefts[mid] <= x) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low - 1;
+    }
+}
@@ -1,7 +1,6 @@
-import bagel.Image;
+import bagel.util.Point;
 
 import java.util.ArrayList;
-import java.util.Properties;
 
 /**
  * Represents a hammer in the game that can be collected and used by mario. They are stationary game objects
@@ -9,6 +8,9 @@ import java.util.Properties;
  * Extends game object to inherent basic object properties
  */
 public class Hammer extends GameObject {
+    // Image every hammer is drawn with
+    public static final String IMAGE = "res/hammer.png";
+
     /**
      * Constructs a hammer at the specified position. It will not move from this position (hammers can not move).
      * Loads in the image as well.
@@ -19,28 +21,19 @@ public class Hammer extends GameObject {
         setX(x);
         setY(y);
         setDestroyed(false);
-        setImg(new Image("res/hammer.png"));
+        setImg(Sprite.load(IMAGE));
     }
 
     /**
-     * Method to read in a list of hammers in the specified level  from the game properties file and store
-     * them in an array list
-     * @param level The specified level (1 or 2)
-     * @param gameProps The game properties file to read hammer information from
-     * @return The array list for which the hammers will be stored in
+     * Method to create an arraylist of the hammers for a specified level
+     * @param level The layout of the level, read from the game properties file
+     * @return A new array list containing all hammers for a specified level
      */
-    public static ArrayList<Hammer> readHammers(int level, Properties gameProps) {
+    public static ArrayList<Hammer> readHammers(LevelConfig level) {
         ArrayList<Hammer> hammers = new ArrayList<Hammer>();
 
-        int n = Integer.parseInt(gameProps.getProperty("hammer.level" + level + ".count"));
-
-        String points;
-        for (int i = 1; i <= n; i++) {
-            points = gameProps.getProperty("hammer.level" + level + "." + i);
-            hammers.add(new Hammer(
-                    Double.parseDouble(points.substring(0, points.indexOf(','))),
-                    Double.parseDouble(points.substring(points.indexOf(',') + 1))
-            ));
+        for (Point p : level.getHammers()) {
+            hammers.add(new Hammer(p.x, p.y));
         }
 
         return hammers;
@@ -0,0 +1,97 @@
+/**
+ * A histogram of non-negative values (such as durations in nanoseconds), stored in buckets whose width grows with
+ * the value. Each power of two is split into SUB_BUCKETS buckets, so any percentile is reported to within 1/8 of
+ * its true value, while values from 1 nanosecond up to many years fit in a few hundred counters.
+ * Recording a value only increments a counter, so it never allocates
+ */
+public class Histogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final long[] counts = new long[SUB_BUCKETS * (64 - SUB_BUCKET_BITS + 1)];
+    private long totalCount;
+    private long max;
+
+    /**
+     * Adds a value to the histogram
+     * @param value The value to add. Negative values are counted as 0
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts[bucket(value)]++;
+        totalCount++;
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    /**
+     * Get the value below which a given fraction of all recorded values fall
+     * @param fraction The fraction of values, from 0 to 1 (for example 0.99 for the 99th percentile)
+     * @return The highest value in the bucket holding the percentile (at most the largest value recorded), or 0
+     * if nothing has been recorded
+     */
+    public long percentile(double fraction) {
+        if (totalCount == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(fraction * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(bucketMax(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Get the number of values recorded
+     * @return The number of values
+     */
+    public long getCount() {
+        return totalCount;
+    }
+
+    /**
+     * Get the largest value recorded
+     * @return The largest value, or 0 if nothing has been recorded
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Helper method to find the bucket holding a value. Values below SUB_BUCKETS each have their own bucket, and
+     * every power of two above that is split into SUB_BUCKETS buckets of equal width
+     * @param value The value (not negative)
+     * @return The index of the bucket
+     */
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Helper method to find the highest value stored in a bucket
+     * @param bucket The index of the bucket
+     * @return The highest value in the bucket
+     */
+    private static long bucketMax(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -1,5 +1,12 @@
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.Properties;
 
 /**
@@ -23,4 +30,72 @@ public class IOUtils {
         return appProps;
     }
 
+    /**
+     * Read the width and height of an image from its header, without decoding the image. Works for every format
+     * in the res folder (some of the .png files are actually JPEG images)
+     * @param imageFile: the path to the image
+     * @return: an array containing the width and height of the image in pixels
+     */
+    public static int[] readImageSize(String imageFile) {
+        int[] size = new int[2];
+        try (ImageInputStream in = ImageIO.createImageInputStream(new File(imageFile))) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unsupported image format: " + imageFile);
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in);
+                size[0] = reader.getWidth(0);
+                size[1] = reader.getHeight(0);
+            } finally {
+                reader.dispose();
+            }
+        } catch(IOException ex) {
+            ex.printStackTrace();
+            System.exit(-1);
+        }
+
+        return size;
+    }
+
+    /***
+     * Read the entire contents of a file
+     * @param file: the path to the file
+     * @return: the contents of the file
+     */
+    public static byte[] readFile(String file) {
+        byte[] bytes = null;
+        try {
+            bytes = Files.readAllBytes(Paths.get(file));
+        } catch(IOException ex) {
+            ex.printStackTrace();
+            System.exit(-1);
+        }
+
+        return bytes;
+    }
+
+    /***
+     * Write bytes to a file, creating its directory if needed. Unlike reading, failing to write does not stop the
+     * game, since the game can carry on without the file
+     * @param file: the path to the file
+     * @param bytes: the contents to write
+     * @return: true if the file was written, false if not
+     */
+    public static boolean writeFile(String file, byte[] bytes) {
+        try {
+            Path path = Paths.get(file);
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Files.write(path, bytes);
+            return true;
+        } catch(IOException ex) {
+            ex.printStackTrace();
+            return false;
+        }
+    }
+
 }
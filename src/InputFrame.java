@@ -0,0 +1,121 @@
+import bagel.Input;
+import bagel.Keys;
+
+import java.util.Arrays;
+
+/**
+ * Represents the keyboard input for a single frame of the game, stored as a bitmask of the keys the game reads.
+ * Movement keys are set while they are held down, while the other keys are only set on the frame they were pressed.
+ * Input frames can be created from a bagel Input, or built directly so that the game can be played without a window
+ */
+public class InputFrame {
+    public static final int LEFT = 1;
+    public static final int RIGHT = 1 << 1;
+    public static final int UP = 1 << 2;
+    public static final int DOWN = 1 << 3;
+    public static final int SPACE = 1 << 4;
+    public static final int S = 1 << 5;
+    public static final int ENTER = 1 << 6;
+    public static final int NUM_2 = 1 << 7;
+
+    /**
+     * All keys which are only set on the frame they were pressed, rather than while held down
+     */
+    public static final int PRESS_KEYS = SPACE | S | ENTER | NUM_2;
+
+    /**
+     * An input frame with no keys pressed
+     */
+    public static final InputFrame NONE = new InputFrame(0);
+
+    // Names of the keys, in the order of their bits
+    private static final String[] KEY_NAMES = {"LEFT", "RIGHT", "UP", "DOWN", "SPACE", "S", "ENTER", "NUM_2"};
+
+    private final int keys;
+
+    /**
+     * Creates a new input frame from a bitmask of keys
+     * @param keys A bitmask of the keys pressed in this frame, using the constants of this class
+     */
+    public InputFrame(int keys) {
+        this.keys = keys;
+    }
+
+    /**
+     * Reads all keys the game uses from the current bagel input
+     * @param input The current mouse/keyboard input
+     * @return A new input frame representing the keys pressed in this frame
+     */
+    public static InputFrame fromInput(Input input) {
+        int keys = 0;
+
+        // Movement keys can be held down
+        if (input.isDown(Keys.LEFT)) {
+            keys |= LEFT;
+        }
+        if (input.isDown(Keys.RIGHT)) {
+            keys |= RIGHT;
+        }
+        if (input.isDown(Keys.UP)) {
+            keys |= UP;
+        }
+        if (input.isDown(Keys.DOWN)) {
+            keys |= DOWN;
+        }
+
+        // All other keys only act on the frame they are pressed
+        if (input.wasPressed(Keys.SPACE)) {
+            keys |= SPACE;
+        }
+        if (input.wasPressed(Keys.S)) {
+            keys |= S;
+        }
+        if (input.wasPressed(Keys.ENTER)) {
+            keys |= ENTER;
+        }
+        if (input.wasPressed(Keys.NUM_2)) {
+            keys |= NUM_2;
+        }
+
+        return new InputFrame(keys);
+    }
+
+    /**
+     * Reads an input frame from the names of its keys joined by '+', such as "RIGHT+SPACE", or "NONE" for no keys
+     * @param text The names of the keys pressed
+     * @return A new input frame with these keys pressed
+     * @throws IllegalArgumentException If a key name is not recognised
+     */
+    public static InputFrame parse(String text) {
+        int keys = 0;
+        if (text.trim().equals("NONE")) {
+            return new InputFrame(keys);
+        }
+
+        for (String name : text.split("\\+")) {
+            int bit = Arrays.asList(KEY_NAMES).indexOf(name.trim().toUpperCase());
+            if (bit < 0) {
+                throw new IllegalArgumentException("Unknown key " + name);
+            }
+            keys |= 1 << bit;
+        }
+        return new InputFrame(keys);
+    }
+
+    /**
+     * Check if a key is pressed in this frame
+     * @param key One of the key constants of this class
+     * @return True if the key is pressed, false if not
+     */
+    public boolean isPressed(int key) {
+        return (keys & key) != 0;
+    }
+
+    /**
+     * Get the bitmask of all keys pressed in this frame
+     * @return The bitmask of keys
+     */
+    public int getKeys() {
+        return keys;
+    }
+}
@@ -0,0 +1,12 @@
+/**
+ * Decides the keys pressed on each frame of a game which is played without a keyboard, such as the games run by the
+ * batch runner. A policy is used for a single game, and may look at the world to decide what to press
+ */
+public interface InputPolicy {
+    /**
+     * Decide the keys pressed on the next frame
+     * @param world The world about to be stepped with these keys
+     * @return The keys pressed on the next frame
+     */
+    InputFrame next(World world);
+}
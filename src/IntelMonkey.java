@@ -1,32 +1,35 @@
-import bagel.Image;
-
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Properties;
 
 /**
  * Represents an intelligent monkey in the game. They are able to walk paths and shoot bananas at regular intervals
  * Extends the Monkey class which has shooting behaviour and path walking methods
  */
 public class IntelMonkey extends Monkey {
+    // Images the monkey is drawn with when walking left and right
+    public static final String LEFT_IMAGE = "res/intelli_monkey_left.png";
+    public static final String RIGHT_IMAGE = "res/intelli_monkey_right.png";
+
     private final double shootPeriod = 5;
     private double shootTime;
 
+    // Bytes written by writeState on top of the monkey state: the time since the last shot
+    private final int STATE_SIZE = Double.BYTES;
+
     /**
      * Constructs a new intelligent monkey at a specified start position, with a direction and an array list for the
      * path it will follow. Reads and loads images.
-     * @param x The starting x coordinate of the monkey
-     * @param y The starting y coordinate of the monkey
-     * @param right The direction the monkey is facing (true if right, false if left)
-     * @param path An array of Integers representing the path the monkey will follow
+     * @param config The starting position, direction and path of the monkey
+     * @param tickRate The number of simulation ticks per second
      */
-    public IntelMonkey(double x, double y, boolean right, ArrayList<Integer> path) {
-        super(x, y, right, path);
-        setLeftImg(new Image("res/intelli_monkey_left.png"));
-        setRightImg(new Image("res/intelli_monkey_right.png"));
+    public IntelMonkey(MonkeyConfig config, int tickRate) {
+        super(config, tickRate);
+        setLeftImg(Sprite.load(LEFT_IMAGE));
+        setRightImg(Sprite.load(RIGHT_IMAGE));
         shootTime = 0;
 
         // Determine correct starting image from its direction
-        if (right) {
+        if (config.isRight()) {
             setImg(getRightImg());
         } else {
             setImg(getLeftImg());
@@ -34,43 +37,16 @@ public class IntelMonkey extends Monkey {
     }
 
     /**
-     * Read a list of intelligent monkey from the game properties file and return them as an array list
-     * @param gameProps The game properties file to read information from
+     * Create a list of intelligent monkeys for a specified level and return them as an array list
+     * @param level The layout of the level, read from the game properties file
+     * @param tickRate The number of simulation ticks per second
      * @return An array list of all intelligent monkeys
      */
-    public static ArrayList<IntelMonkey> readIntelMonkeys(Properties gameProps) {
+    public static ArrayList<IntelMonkey> readIntelMonkeys(LevelConfig level, int tickRate) {
         ArrayList<IntelMonkey> intelMonkeys = new ArrayList<IntelMonkey>();
 
-        // Read number of intelligent monkeys
-        int n = Integer.parseInt(gameProps.getProperty("intelligentMonkey.level2.count"));
-
-        // Read each individual monkey
-        String points;
-        double x, y;
-        boolean right;
-        ArrayList<Integer> path;
-        for (int i = 1; i <= n; i++) {
-
-            // Read x and y coordinates using string manipulation
-            points = gameProps.getProperty("intelligentMonkey.level2." + i);
-            x = Double.parseDouble(points.substring(0, points.indexOf(",")));
-            y = Double.parseDouble(points.substring(points.indexOf(",") + 1, points.indexOf(";")));
-
-            points = points.substring(points.indexOf(";") + 1);
-
-            // Read the initial direction of the monkey
-            if (points.substring(0, points.indexOf(";")).equals("right")) {
-                right = true;
-            } else {
-                right = false;
-            }
-
-            points = points.substring(points.indexOf(";") + 1);
-
-            // Finally, read the path the monkey will follow
-            path = readPath(points);
-
-            intelMonkeys.add(new IntelMonkey(x,y,right,path));
+        for (MonkeyConfig m : level.getIntelligentMonkeys()) {
+            intelMonkeys.add(new IntelMonkey(m, tickRate));
         }
 
         return intelMonkeys;
@@ -78,23 +54,19 @@ public class IntelMonkey extends Monkey {
 
     /**
      * Method allowing the intelligent monkey to shoot bananas, first checking if the interval has passed since the
-     * last shot, and adding the new banana to the bananas array list for the level
-     * @param bananas An array list representing all the bananas currently existing in the level
-     * @return An updated array list with the new banana, or the same one if no banana was shot
+     * last shot, and adding the new banana to the projectile pool for the level
+     * @param projectiles The projectile pool of the level, which the new banana (if shot) is added to
      */
-    public ArrayList<Banana> shoot(ArrayList<Banana> bananas) {
+    public void shoot(ProjectilePool projectiles) {
 
         // Check whether the interval has passed
         if (shootTime < shootPeriod) {
-            return bananas;
+            return;
         }
 
         // Ready to shoot
-        Banana banana = new Banana(getX(), getY(), isRight());
-        bananas.add(banana);
+        projectiles.spawn(ProjectilePool.BANANA, getX(), getY(), isRight());
         shootTime = 0;
-
-        return bananas;
     }
 
     /**
@@ -105,5 +77,42 @@ public class IntelMonkey extends Monkey {
     public void updateTime(int FPS) {
         shootTime += 1.0 / FPS;
     }
-}
 
+    /**
+     * Reset the state of the intelligent monkey, including the time since it last shot. Used to reset level 2
+     */
+    @Override
+    public void reset() {
+        super.reset();
+        shootTime = 0;
+    }
+
+    /**
+     * Write the state of the intelligent monkey into a snapshot, after its state as a monkey
+     * @param buffer The buffer to write to, which must have at least getStateSize() bytes left
+     */
+    @Override
+    public void writeState(ByteBuffer buffer) {
+        super.writeState(buffer);
+        buffer.putDouble(shootTime);
+    }
+
+    /**
+     * Read the state of the intelligent monkey back from a snapshot written by writeState
+     * @param buffer The buffer to read from
+     */
+    @Override
+    public void readState(ByteBuffer buffer) {
+        super.readState(buffer);
+        shootTime = buffer.getDouble();
+    }
+
+    /**
+     * Get the number of bytes the state of the intelligent monkey takes up in a snapshot
+     * @return The number of bytes written by writeState
+     */
+    @Override
+    public int getStateSize() {
+        return super.getStateSize() + STATE_SIZE;
+    }
+}
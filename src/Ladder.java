@@ -1,49 +1,47 @@
-import bagel.Image;
+import bagel.util.Point;
 
 import java.util.ArrayList;
-import java.util.Properties;
 
 /**
  * Represents a ladder in the game. Ladders can be climbed by mario, allowing him to move between platforms.
  * Implements Fallable to handle falling physics if a ladder spawns midair
  */
 public class Ladder extends GameObject implements Fallable {
-    private final double GRAVITY = 0.25;
+    // Image every ladder is drawn with
+    public static final String IMAGE = "res/ladder.png";
+
+    // Gravity in pixels per second squared
+    private final double GRAVITY = 900;
+    private final double gravity;
+    private final double maxVelocity;
 
     /**
      * Creates a ladder at the specified position. Loads in image as well
      * @param x The x coordinate of the ladder
      * @param y The y coordinate of the ladder
+     * @param tickRate The number of simulation ticks per second, which the falling physics are scaled to
      */
-    public Ladder(double x, double y) {
+    public Ladder(double x, double y, int tickRate) {
+        gravity = GRAVITY / (tickRate * tickRate);
+        maxVelocity = MAX_FALL_SPEED / tickRate;
         setX(x);
         setY(y);
         setVelocity(0);
-        setImg(new Image("res/ladder.png"));
+        setImg(Sprite.load(IMAGE));
     }
 
 
     /**
-     * Method to read in a list of ladders in the specified level  from the game properties file and store
-     * them in an array list
-     * @param level The specified level (1 or 2)
-     * @param gameProps The game properties file to read ladder information from
-     * @return The array list for which the ladders will be stored in
+     * Method to create an arraylist of the ladders for a specified level
+     * @param level The layout of the level, read from the game properties file
+     * @param tickRate The number of simulation ticks per second
+     * @return A new array list containing all ladders for a specified level
      */
-    public static ArrayList<Ladder> readLadders(int level, Properties gameProps) {
+    public static ArrayList<Ladder> readLadders(LevelConfig level, int tickRate) {
         ArrayList<Ladder> ladders = new ArrayList<Ladder>();
 
-        // Read number of ladders
-        int n = Integer.parseInt(gameProps.getProperty("ladder.level" + level + ".count"));
-
-        // Read and store each ladder
-        String points;
-        for (int i = 1; i <= n; i++) {
-            points = gameProps.getProperty("ladder.level" + level + "." + i);
-            ladders.add(new Ladder(
-                    Double.parseDouble(points.substring(0, points.indexOf(','))),
-                    Double.parseDouble(points.substring(points.indexOf(',') + 1))
-            ));
+        for (Point p : level.getLadders()) {
+            ladders.add(new Ladder(p.x, p.y, tickRate));
         }
 
         return ladders;
@@ -72,11 +70,33 @@ public class Ladder extends GameObject implements Fallable {
 
     }
 
+    /**
+     * Simulate one frame of the ladder's physics. The ladder is first moved out of any platform it is intersecting with,
+     * then falls if it is in the air
+     * @param platforms All platforms in the level
+     * @param ground The index of all platform surfaces in the level
+     * @param gameObject The object to simulate (this ladder)
+     * @return True if the ladder was in the air, false if it is grounded
+     */
+    @Override
+    public boolean fall(ArrayList<Platform> platforms, GroundIndex ground, GameObject gameObject) {
+        adjustPosition(platforms);
+        return Fallable.super.fall(platforms, ground, gameObject);
+    }
+
     /**
      * Get the gravity constant of the ladder for falling physics
-     * @return Gravity constant of the ladder
+     * @return Gravity constant of the ladder, in pixels per tick per tick
      */
     public double getGRAVITY() {
-        return GRAVITY;
+        return gravity;
+    }
+
+    /**
+     * Get the fastest the ladder can fall
+     * @return Terminal velocity of the ladder, in pixels per tick
+     */
+    public double getMaxVelocity() {
+        return maxVelocity;
     }
 }
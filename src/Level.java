@@ -1,47 +1,350 @@
 import bagel.Font;
 
-import java.util.Properties;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 
 /**
- * Abstract parent class representing a level in the game. Provides common functionality for constructors, and
- * level reset
+ * A level being played. Holds every game object and character in the level, the level timer, and the indexes used
+ * for ground and collision checks. A level is built from its layout in the game config when the player enters it,
+ * and every level is simulated by World in the same way, so the game supports any number of levels.
+ * Barrels and ladders are settled where they come to rest when the level is built, so they cost nothing per frame.
+ * Also renders the score display of the level. The level timer is advanced by the simulation, whilst rendering
+ * only draws the current state
  */
-public abstract class Level {
-    private final Properties GAME_PROPS = IOUtils.readPropertiesFile("res/app.properties");
-    private final int FRAMES_PER_SEC = 60;
+public class Level {
+    private final int FRAMES_PER_SEC;
+
+    // Size of each cell of the broadphase grid, roughly the size of the larger game objects
+    private final double GRID_CELL_SIZE = 64;
+
+    // Maximum number of bullets and bananas which can exist at once
+    private final int PROJECTILE_CAPACITY = 1024;
+
+    // Most seconds simulated when settling an object at load. Far longer than anything takes to fall the height of
+    // the window, so only objects which never land (or never stop moving) reach it
+    private final int MAX_SETTLE_SECONDS = 10;
+
+    private final GameConfig config;
+    private final int number;
     private int currentFrame;
-    private Font scoreFont;
+
+    // Score display
+    private String fontFile;
+    private int fontSize;
     private double scoreX;
     private double scoreY;
+    private double donkeyHpX;
+    private double donkeyHpY;
+
+    // Game objects
+    private final ArrayList<Platform> platforms;
+    private final ArrayList<Barrel> barrels;
+    private final ArrayList<Ladder> ladders;
+    private final ArrayList<Hammer> hammers;
+    private final ArrayList<Blaster> blasters;
+
+    // Bullets and bananas
+    private final ProjectilePool projectiles;
+
+    // Characters
+    private final Mario mario;
+    private final Donkey donkey;
+    private final ArrayList<NormMonkey> normMonkeys;
+    private final ArrayList<IntelMonkey> intelMonkeys;
+
+    // Index of the platform surfaces, used for all ground checks
+    private final GroundIndex ground;
+
+    // Every object subject to gravity except mario, who is simulated separately since he is controlled by the player
+    private final PhysicsSet physics;
+
+    // Broadphase grid holding every game object, used for all collision checks
+    private final SpatialGrid grid;
+
+    // Graph of the moves mario can make between platforms and ladders, shared by every level with the same layout.
+    // Only the autoplayer needs it, so it is found (or built) the first time it is asked for
+    private NavGraph navGraph;
+
+    // Every object whose state can change as the level is played, in the order they are written to snapshots.
+    // Platforms never change, so they are left out
+    private final GameObject[] stateObjects;
+
+    /**
+     * Creates a level with all game objects at their starting positions, from its layout in the game config.
+     * The font and images are only loaded once the level is rendered, so that levels can be simulated without a
+     * window (or built on a background thread)
+     * @param config The game config read from the game properties file
+     * @param number The level number, starting from 1
+     */
+    public Level(GameConfig config, int number) {
+        LevelConfig layout = config.getLevel(number);
+
+        this.config = config;
+        this.number = number;
+        FRAMES_PER_SEC = config.getTickRate();
+        currentFrame = config.getMaxFrames();
+
+        fontFile = config.getFont();
+        fontSize = config.getScoreFontSize();
+        scoreX = config.getScoreX();
+        scoreY = config.getScoreY();
+        donkeyHpX = config.getDonkeyHealthPos().x;
+        donkeyHpY = config.getDonkeyHealthPos().y;
+
+        // Initialise all array lists using class static methods which create objects from the level layout
+        platforms = Platform.readPlatforms(layout, FRAMES_PER_SEC);
+        barrels = Barrel.readBarrels(layout, FRAMES_PER_SEC);
+        ladders = Ladder.readLadders(layout, FRAMES_PER_SEC);
+        hammers = Hammer.readHammers(layout);
+        blasters = Blaster.readBlasters(layout);
+        projectiles = new ProjectilePool(PROJECTILE_CAPACITY, FRAMES_PER_SEC);
+
+        // Characters start at the positions given in the level layout
+        mario = new Mario(layout.getMario().x, layout.getMario().y, FRAMES_PER_SEC);
+        donkey = new Donkey(layout.getDonkey().x, layout.getDonkey().y, FRAMES_PER_SEC);
+        normMonkeys = NormMonkey.readNormMonkeys(layout, FRAMES_PER_SEC);
+        intelMonkeys = IntelMonkey.readIntelMonkeys(layout, FRAMES_PER_SEC);
+        compileRoutes(normMonkeys, config.getWindowWidth());
+        compileRoutes(intelMonkeys, config.getWindowWidth());
+
+        // Platforms never move, so their surfaces are indexed once
+        ground = new GroundIndex(platforms);
+        physics = new PhysicsSet(config.getWindowHeight());
+
+        // Barrels and ladders fall into place straight away, since they never move again once landed. Characters
+        // start awake, and play their opening fall
+        settle(barrels);
+        settle(ladders);
+        physics.add(donkey, false);
+        physics.addAll(normMonkeys);
+        physics.addAll(intelMonkeys);
+
+        // Add every object to the grid
+        grid = new SpatialGrid(config.getWindowWidth(), config.getWindowHeight(), GRID_CELL_SIZE);
+        grid.insertAll(platforms);
+        grid.insertAll(barrels);
+        grid.insertAll(ladders);
+        grid.insertAll(hammers);
+        grid.insertAll(blasters);
+        grid.insertAll(normMonkeys);
+        grid.insertAll(intelMonkeys);
+        grid.insert(donkey);
+        grid.insert(mario);
+
+        stateObjects = listStateObjects();
+
+        savePositions();
+    }
+
+    /**
+     * Helper method to list every object whose state can change, in snapshot order, and give each its index
+     * @return An array of the objects
+     */
+    private GameObject[] listStateObjects() {
+        ArrayList<GameObject> objects = new ArrayList<GameObject>();
+        objects.add(mario);
+        objects.add(donkey);
+        objects.addAll(barrels);
+        objects.addAll(ladders);
+        objects.addAll(hammers);
+        objects.addAll(blasters);
+        objects.addAll(normMonkeys);
+        objects.addAll(intelMonkeys);
+
+        GameObject[] array = objects.toArray(new GameObject[0]);
+        for (int i = 0; i < array.length; i++) {
+            array[i].stateIndex = i;
+        }
+        return array;
+    }
+
+    /**
+     * Write the state of the level into a snapshot: the timer, every object which can change, which objects are being
+     * simulated, and every projectile
+     * @param buffer The buffer to write to, which must have at least getStateSize() bytes left
+     */
+    public void writeState(ByteBuffer buffer) {
+        buffer.putInt(currentFrame);
+        buffer.putInt(stateObjects.length);
+        for (GameObject object : stateObjects) {
+            object.writeState(buffer);
+        }
+        physics.writeState(buffer);
+        projectiles.writeState(buffer);
+    }
+
+    /**
+     * Read the state of the level back from a snapshot written by writeState. The level must have been built from the
+     * same layout as the level the snapshot was taken of
+     * @param buffer The buffer to read from
+     * @throws IllegalArgumentException If the snapshot has a different number of objects than the level
+     */
+    public void readState(ByteBuffer buffer) {
+        currentFrame = buffer.getInt();
+        int count = buffer.getInt();
+        if (count != stateObjects.length) {
+            throw new IllegalArgumentException("Snapshot has " + count + " objects, but level " + number + " has "
+                    + stateObjects.length);
+        }
+        for (GameObject object : stateObjects) {
+            object.readState(buffer);
+        }
+        physics.readState(buffer, stateObjects);
+        projectiles.readState(buffer);
+    }
+
+    /**
+     * Get the number of bytes the state of the level takes up in a snapshot
+     * @return The number of bytes written by writeState
+     */
+    public int getStateSize() {
+        int size = 2 * Integer.BYTES + physics.getStateSize() + projectiles.getStateSize();
+        for (GameObject object : stateObjects) {
+            size += object.getStateSize();
+        }
+        return size;
+    }
+
+    /**
+     * Helper method to compile the path of every monkey in a list for this level's platforms
+     * @param monkeys The monkeys to compile the paths of
+     * @param screenWidth The width of the screen in pixels
+     */
+    private void compileRoutes(ArrayList<? extends Monkey> monkeys, double screenWidth) {
+        for (Monkey m : monkeys) {
+            m.compileRoute(platforms, screenWidth);
+        }
+    }
+
+    /**
+     * Helper method to move every object in a list to where it comes to rest, by simulating its physics until a
+     * frame leaves it unchanged. Settled objects are added to the physics set asleep, while objects which are still
+     * moving after the maximum number of frames are added awake, to carry on being simulated every frame
+     * @param objects The objects to settle
+     */
+    private <T extends GameObject & Fallable> void settle(ArrayList<T> objects) {
+        for (T object : objects) {
+            boolean settled = false;
+            for (int i = 0; i < MAX_SETTLE_SECONDS * FRAMES_PER_SEC && !settled; i++) {
+                double y = object.getY();
+                double velocity = object.getVelocity();
+                object.fall(platforms, ground, object);
+
+                // Each frame only depends on the position and velocity, so an unchanged frame will repeat forever
+                settled = object.getY() == y && object.getVelocity() == velocity;
+            }
+
+            physics.add(object, settled);
+        }
+    }
+
+    /**
+     * Advances the level timer by one frame. Called once every time the level is simulated, so the timer counts
+     * simulation ticks rather than rendered frames
+     */
+    public void tick() {
+        currentFrame--;
+    }
+
+    /**
+     * Render the score and time left in the level. Levels with blasters also show donkey kong's health and
+     * mario's ammo, since only they let mario shoot donkey kong
+     * @param score The current player score
+     */
+    public void render(int score) {
+        getScoreFont().drawString(String.format("Score %d\n" + "Time Left %d", score, currentFrame / FRAMES_PER_SEC),
+                scoreX, scoreY);
+
+        if (!blasters.isEmpty()) {
+            getScoreFont().drawString(String.format("Donkey Health %d\n" + "Bullet %d", donkey.getHealth(),
+                    mario.getAmmo()), donkeyHpX, donkeyHpY);
+        }
+    }
+
+    /**
+     * Remember the position of every game object at the start of a frame, so that the renderer can draw objects
+     * between their positions in the last two frames
+     */
+    public void savePositions() {
+        savePositions(platforms);
+        savePositions(barrels);
+        savePositions(ladders);
+        savePositions(hammers);
+        savePositions(blasters);
+        savePositions(normMonkeys);
+        savePositions(intelMonkeys);
+        mario.savePosition();
+        donkey.savePosition();
+    }
+
+    /**
+     * Helper method to remember the position of every game object in a list at the start of a frame
+     * @param gameObjects The objects to update
+     */
+    private static void savePositions(ArrayList<? extends GameObject> gameObjects) {
+        for (GameObject gameObject : gameObjects) {
+            gameObject.savePosition();
+        }
+    }
 
     /**
-     * Constructs a new level by reading in information from game properties file
+     * Get every image used to draw a level, so they can be loaded before the level is first drawn. The images are
+     * found from the kinds of objects in the level's layout, without building the level
+     * @param layout The layout of the level, read from the game properties file
+     * @return An array list of the paths of the level's images
      */
-    public Level() {
-        currentFrame = Integer.parseInt(GAME_PROPS.getProperty("gamePlay.maxFrames"));
-        scoreFont = new Font(GAME_PROPS.getProperty("font"),
-                Integer.parseInt(GAME_PROPS.getProperty("gamePlay.score.fontSize")));
-        scoreX = Double.parseDouble(GAME_PROPS.getProperty("gamePlay.score.x"));
-        scoreY = Double.parseDouble(GAME_PROPS.getProperty("gamePlay.score.y"));
+    public static ArrayList<String> getImagePaths(LevelConfig layout) {
+        ArrayList<String> paths = new ArrayList<String>();
+        if (!layout.getPlatforms().isEmpty()) {
+            paths.add(Platform.IMAGE);
+        }
+        if (!layout.getBarrels().isEmpty()) {
+            paths.add(Barrel.IMAGE);
+        }
+        if (!layout.getLadders().isEmpty()) {
+            paths.add(Ladder.IMAGE);
+        }
+        if (!layout.getHammers().isEmpty()) {
+            paths.add(Hammer.IMAGE);
+        }
+        if (!layout.getBlasters().isEmpty()) {
+            paths.add(Blaster.IMAGE);
+            paths.add(ProjectilePool.BULLET_LEFT_IMAGE);
+            paths.add(ProjectilePool.BULLET_RIGHT_IMAGE);
+        }
+        paths.add(Donkey.IMAGE);
+        paths.addAll(Mario.getImagePaths());
+        if (!layout.getNormalMonkeys().isEmpty()) {
+            paths.add(NormMonkey.LEFT_IMAGE);
+            paths.add(NormMonkey.RIGHT_IMAGE);
+        }
+        if (!layout.getIntelligentMonkeys().isEmpty()) {
+            paths.add(IntelMonkey.LEFT_IMAGE);
+            paths.add(IntelMonkey.RIGHT_IMAGE);
+            paths.add(ProjectilePool.BANANA_IMAGE);
+        }
+        return paths;
     }
 
     /**
-     * Resets the level by resetting the frames to the original value
+     * Get the font used for score display. The font is shared by every level, and is loaded the first time any
+     * level needs it
+     * @return The score display font
      */
-    public void reset() {
-        currentFrame = Integer.parseInt(GAME_PROPS.getProperty("gamePlay.maxFrames"));
+    private Font getScoreFont() {
+        return AssetLoader.getFont(fontFile, fontSize);
     }
 
     /**
-     * Get the game properties to read information from. Used in concrete subclasses
-     * @return The game properties
+     * Get the level number
+     * @return The level number, starting from 1
      */
-    public Properties getGAME_PROPS() {
-        return GAME_PROPS;
+    public int getNumber() {
+        return number;
     }
 
     /**
-     * Get the constant representing the number of frames rendered per second
+     * Get the number of frames simulated per second (the tick rate of the game)
      * @return The number of frames per second
      */
     public int getFPS() {
@@ -57,34 +360,118 @@ public abstract class Level {
     }
 
     /**
-     * Get the font used for score display
-     * @return The score display font
+     * Get all platforms in the level
+     * @return An array list of all platforms
+     */
+    public ArrayList<Platform> getPlatforms() {
+        return platforms;
+    }
+
+    /**
+     * Get all barrels in the level
+     * @return An array list of all barrels
+     */
+    public ArrayList<Barrel> getBarrels() {
+        return barrels;
+    }
+
+    /**
+     * Get all ladders in the level
+     * @return An array list of all ladders
+     */
+    public ArrayList<Ladder> getLadders() {
+        return ladders;
+    }
+
+    /**
+     * Get all hammers in the level
+     * @return An array list of all hammers
+     */
+    public ArrayList<Hammer> getHammers() {
+        return hammers;
+    }
+
+    /**
+     * Get all blasters in the level
+     * @return An array list of all blasters
+     */
+    public ArrayList<Blaster> getBlasters() {
+        return blasters;
+    }
+
+    /**
+     * Get all bullets and bananas currently existing in the level
+     * @return The projectile pool of the level
+     */
+    public ProjectilePool getProjectiles() {
+        return projectiles;
+    }
+
+    /**
+     * Get mario
+     * @return Mario
+     */
+    public Mario getMario() {
+        return mario;
+    }
+
+    /**
+     * Get donkey kong
+     * @return Donkey kong
+     */
+    public Donkey getDonkey() {
+        return donkey;
+    }
+
+    /**
+     * Get all normal monkeys in the level
+     * @return An array list of all normal monkeys
+     */
+    public ArrayList<NormMonkey> getNormMonkeys() {
+        return normMonkeys;
+    }
+
+    /**
+     * Get all intelligent monkeys in the level
+     * @return An array list of all intelligent monkeys
+     */
+    public ArrayList<IntelMonkey> getIntelMonkeys() {
+        return intelMonkeys;
+    }
+
+    /**
+     * Get the set of objects subject to gravity (every one except mario), which only simulates those which are awake
+     * @return The physics set of the level
      */
-    public Font getScoreFont() {
-        return scoreFont;
+    public PhysicsSet getPhysics() {
+        return physics;
     }
 
     /**
-     * Get the x value at which scores are displayed at
-     * @return x coordinate at which scores are displayed at
+     * Get the index of the platform surfaces in the level
+     * @return The ground index
      */
-    public double getScoreX() {
-        return scoreX;
+    public GroundIndex getGround() {
+        return ground;
     }
 
     /**
-     * Get the y value at which scores are displayed at
-     * @return y coordinate at which scores are displayed at
+     * Get the broadphase grid holding every game object in the level
+     * @return The broadphase grid
      */
-    public double getScoreY() {
-        return scoreY;
+    public SpatialGrid getGrid() {
+        return grid;
     }
 
     /**
-     * Set the frame number to a new value. Used to update the frames after each render
-     * @param currentFrame The new number of frames remaining
+     * Get the navigation graph of the level, used to plan paths for mario. The graph is built from the settled
+     * platforms and ladders the first time any level with this layout asks for it, and shared after that
+     * @return The navigation graph
      */
-    public void setCurrentFrame(int currentFrame) {
-        this.currentFrame = currentFrame;
+    public NavGraph getNavGraph() {
+        if (navGraph == null) {
+            navGraph = NavGraph.get(config.getLevel(number), this, config.getWindowWidth(), config.getWindowHeight());
+        }
+        return navGraph;
     }
 }
@@ -0,0 +1,185 @@
+import bagel.util.Point;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Immutable layout of a single level, read from the game properties file. Holds the starting positions of every
+ * game object and character in the level. Objects with a count property (barrels, ladders, hammers, blasters and
+ * monkeys) are optional, and a level without that property has none of them.
+ */
+public final class LevelConfig {
+    private final int number;
+    private final Point mario;
+    private final Point donkey;
+    private final List<Point> platforms;
+    private final List<Point> barrels;
+    private final List<Point> ladders;
+    private final List<Point> hammers;
+    private final List<Point> blasters;
+    private final List<MonkeyConfig> normalMonkeys;
+    private final List<MonkeyConfig> intelligentMonkeys;
+
+    /**
+     * Parses and validates the layout of a level from the game properties
+     * @param gameProps The game properties to read from
+     * @param number The level number, starting from 1
+     * @throws IllegalArgumentException If a property is missing or malformed
+     */
+    LevelConfig(Properties gameProps, int number) {
+        String level = "level" + number;
+        this.number = number;
+
+        mario = GameConfig.parsePoint("mario." + level, GameConfig.readString(gameProps, "mario." + level));
+        donkey = GameConfig.parsePoint("donkey." + level, GameConfig.readString(gameProps, "donkey." + level));
+        platforms = readPointList(gameProps, "platforms." + level);
+        barrels = readCountedPoints(gameProps, "barrel." + level);
+        ladders = readCountedPoints(gameProps, "ladder." + level);
+        hammers = readCountedPoints(gameProps, "hammer." + level);
+        blasters = readCountedPoints(gameProps, "blaster." + level);
+        normalMonkeys = readMonkeys(gameProps, "normalMonkey." + level);
+        intelligentMonkeys = readMonkeys(gameProps, "intelligentMonkey." + level);
+    }
+
+    /**
+     * Read a list of points stored in a single property, in the format of xx,yy;xx,yy;xx,yy
+     * @param gameProps The game properties to read from
+     * @param key The key of the property
+     * @return An unmodifiable list of the points
+     */
+    private static List<Point> readPointList(Properties gameProps, String key) {
+        List<Point> points = new ArrayList<Point>();
+        for (String point : GameConfig.readString(gameProps, key).split(";")) {
+            points.add(GameConfig.parsePoint(key, point));
+        }
+        return Collections.unmodifiableList(points);
+    }
+
+    /**
+     * Read a list of points stored as a count property (prefix.count) followed by one property for each point
+     * (prefix.1, prefix.2, ...)
+     * @param gameProps The game properties to read from
+     * @param prefix The prefix of the properties
+     * @return An unmodifiable list of the points, empty if there is no count property
+     */
+    private static List<Point> readCountedPoints(Properties gameProps, String prefix) {
+        List<Point> points = new ArrayList<Point>();
+        int n = readCount(gameProps, prefix);
+        for (int i = 1; i <= n; i++) {
+            String key = prefix + "." + i;
+            points.add(GameConfig.parsePoint(key, GameConfig.readString(gameProps, key)));
+        }
+        return Collections.unmodifiableList(points);
+    }
+
+    /**
+     * Read a list of monkeys stored in the same way as the counted points
+     * @param gameProps The game properties to read from
+     * @param prefix The prefix of the properties
+     * @return An unmodifiable list of the monkeys, empty if there is no count property
+     */
+    private static List<MonkeyConfig> readMonkeys(Properties gameProps, String prefix) {
+        List<MonkeyConfig> monkeys = new ArrayList<MonkeyConfig>();
+        int n = readCount(gameProps, prefix);
+        for (int i = 1; i <= n; i++) {
+            String key = prefix + "." + i;
+            monkeys.add(MonkeyConfig.parse(key, GameConfig.readString(gameProps, key)));
+        }
+        return Collections.unmodifiableList(monkeys);
+    }
+
+    /**
+     * Read the number of objects of a counted list
+     * @param gameProps The game properties to read from
+     * @param prefix The prefix of the properties
+     * @return The number of objects, or 0 if there is no count property
+     */
+    private static int readCount(Properties gameProps, String prefix) {
+        if (gameProps.getProperty(prefix + ".count") == null) {
+            return 0;
+        }
+        return GameConfig.readInt(gameProps, prefix + ".count");
+    }
+
+    /**
+     * Get the level number
+     * @return The level number, starting from 1
+     */
+    public int getNumber() {
+        return number;
+    }
+
+    /**
+     * Get the starting position of mario
+     * @return The starting position of mario
+     */
+    public Point getMario() {
+        return mario;
+    }
+
+    /**
+     * Get the starting position of donkey kong
+     * @return The starting position of donkey kong
+     */
+    public Point getDonkey() {
+        return donkey;
+    }
+
+    /**
+     * Get the positions of all platforms
+     * @return An unmodifiable list of platform positions
+     */
+    public List<Point> getPlatforms() {
+        return platforms;
+    }
+
+    /**
+     * Get the starting positions of all barrels
+     * @return An unmodifiable list of barrel positions
+     */
+    public List<Point> getBarrels() {
+        return barrels;
+    }
+
+    /**
+     * Get the starting positions of all ladders
+     * @return An unmodifiable list of ladder positions
+     */
+    public List<Point> getLadders() {
+        return ladders;
+    }
+
+    /**
+     * Get the positions of all hammers
+     * @return An unmodifiable list of hammer positions
+     */
+    public List<Point> getHammers() {
+        return hammers;
+    }
+
+    /**
+     * Get the positions of all blasters
+     * @return An unmodifiable list of blaster positions
+     */
+    public List<Point> getBlasters() {
+        return blasters;
+    }
+
+    /**
+     * Get the starting positions and routes of all normal monkeys
+     * @return An unmodifiable list of normal monkeys
+     */
+    public List<MonkeyConfig> getNormalMonkeys() {
+        return normalMonkeys;
+    }
+
+    /**
+     * Get the starting positions and routes of all intelligent monkeys
+     * @return An unmodifiable list of intelligent monkeys
+     */
+    public List<MonkeyConfig> getIntelligentMonkeys() {
+        return intelligentMonkeys;
+    }
+}
@@ -0,0 +1,122 @@
+import java.util.Locale;
+
+/**
+ * Draws a level. Every object in the level is recorded into a render queue in layers, then the queue is sorted and
+ * submitted to a render backend in one pass. The game draws with a bagel backend, while a recording backend keeps
+ * the draw list, so a level can be rendered and checked without a window.
+ */
+public class LevelRenderer {
+    // Sprites drawn each frame are recorded here, then sorted and drawn together
+    private final RenderQueue renderQueue = new RenderQueue();
+
+    // Measures how long recording, sorting and submitting the sprites takes
+    private final PhaseProfiler profiler;
+
+    /**
+     * Creates a new level renderer
+     * @param profiler The profiler to record the render phases into, or PhaseProfiler.DISABLED
+     */
+    public LevelRenderer(PhaseProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * Method used to render all objects and characters in a level. Their images are recorded into the render queue
+     * in layers, then the queue is sorted by layer and texture and drawn in one pass.
+     * Checks are performed for destroyable objects to see if it is destroyed or not, before rendering them.
+     * @param level The level to render
+     * @param alpha How far the current time is between the last two simulation frames, from 0 to 1
+     * @param backend The backend which draws the sorted sprites
+     */
+    public void render(Level level, double alpha, RenderBackend backend) {
+        // Render platforms
+        for (Platform p : level.getPlatforms()) {
+            draw(p, alpha, RenderQueue.PLATFORMS);
+        }
+
+        // Render (non-destroyed) barrels
+        for (Barrel b : level.getBarrels()) {
+            if (!b.isDestroyed()) {
+                draw(b, alpha, RenderQueue.BARRELS);
+            }
+        }
+
+        // Render ladders
+        for (Ladder l : level.getLadders()) {
+            draw(l, alpha, RenderQueue.LADDERS);
+        }
+
+        // Render (non-destroyed) hammers
+        for (Hammer h : level.getHammers()) {
+            if (!h.isDestroyed()) {
+                draw(h, alpha, RenderQueue.ITEMS);
+            }
+        }
+
+        // Render (non-destroyed) blasters
+        for (Blaster b : level.getBlasters()) {
+            if (!b.isDestroyed()) {
+                draw(b, alpha, RenderQueue.ITEMS);
+            }
+        }
+
+        // Render projectiles
+        ProjectilePool projectiles = level.getProjectiles();
+        for (int i = 0; i < projectiles.size(); i++) {
+            renderQueue.add(projectiles.getImg(i), projectiles.getRenderX(i, alpha), projectiles.getY(i),
+                    RenderQueue.PROJECTILES);
+        }
+
+        // Render characters
+        draw(level.getDonkey(), alpha, RenderQueue.DONKEY);
+        draw(level.getMario(), alpha, RenderQueue.MARIO);
+
+        // Render (non-destroyed) monkeys
+        for (NormMonkey m : level.getNormMonkeys()) {
+            if (!m.isDestroyed()) {
+                draw(m, alpha, RenderQueue.MONKEYS);
+            }
+        }
+
+        for (IntelMonkey m : level.getIntelMonkeys()) {
+            if (!m.isDestroyed()) {
+                draw(m, alpha, RenderQueue.MONKEYS);
+            }
+        }
+        profiler.mark(level.getNumber(), PhaseProfiler.LEVEL_RENDER);
+
+        renderQueue.sort();
+        profiler.mark(level.getNumber(), PhaseProfiler.RENDER_SORT);
+        renderQueue.submit(backend);
+        profiler.mark(level.getNumber(), PhaseProfiler.RENDER_SUBMIT);
+    }
+
+    /**
+     * Helper method to record a game object in the render queue, between its positions in the last two simulation
+     * frames
+     * @param gameObject The object to draw
+     * @param alpha How far the current time is between the last two simulation frames, from 0 to 1
+     * @param layer The layer to draw the object in
+     */
+    private void draw(GameObject gameObject, double alpha, int layer) {
+        renderQueue.add(gameObject.getImg(), gameObject.getRenderX(alpha), gameObject.getRenderY(alpha), layer);
+    }
+
+    /**
+     * Get the render queue, which holds the draw call count, texture switch count and sort time of the last
+     * rendered frame
+     * @return The render queue
+     */
+    public RenderQueue getRenderQueue() {
+        return renderQueue;
+    }
+
+    /**
+     * Describe the draw calls, texture switches and sort time of the last rendered frame
+     * @return A line describing the last frame
+     */
+    public String describe() {
+        return String.format(Locale.ROOT, "%d draw calls, %d texture switches, sorted in %.1f us",
+                renderQueue.getDrawCalls(), renderQueue.getTextureSwitches(), renderQueue.getSortNanos() / 1000.0);
+    }
+}
@@ -1,6 +1,4 @@
-import bagel.Image;
-import bagel.Window;
-
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 
 /**
@@ -9,35 +7,63 @@ import java.util.ArrayList;
  * It also implements Fallable which handles the falling physics for mario
  */
 public class Mario extends Character implements Fallable {
-    private final double GRAVITY = 0.2;
-    private final double JUMP_VELOCITY = -5;
+    // Images mario is drawn with when facing left and right, on his own, with a hammer and with a blaster
+    public static final String LEFT_IMAGE = "res/mario_left.png";
+    public static final String RIGHT_IMAGE = "res/mario_right.png";
+    public static final String LEFT_HAMMER_IMAGE = "res/mario_hammer_left.png";
+    public static final String RIGHT_HAMMER_IMAGE = "res/mario_hammer_right.png";
+    public static final String LEFT_BLASTER_IMAGE = "res/mario_blaster_left.png";
+    public static final String RIGHT_BLASTER_IMAGE = "res/mario_blaster_right.png";
+    // Gravity in pixels per second squared, and jump velocity and walking and climbing speed in pixels per second.
+    // Mario moves by a tick's share of these each tick
+    private final double GRAVITY = 720;
+    private final double JUMP_VELOCITY = -300;
     private final double JUMP_HEIGHT = 65;
-    private final double SPEED = 3.5;
+    private final double SPEED = 210;
+    private final double gravity;
+    private final double jumpVelocity;
+    private final double maxVelocity;
+
+    // Bytes written by writeState on top of the game object state: the flags, ammo and image
+    private final int STATE_SIZE = 1 + Integer.BYTES + 1;
+    private final int MARIO_SPRITES = 6;
     private boolean climbing;
     private boolean hammer;
     private boolean blaster;
-    private Image marioL;
-    private Image marioR;
-    private Image marioLHammer;
-    private Image marioRHammer;
-    private Image marioLBlaster;
-    private Image marioRBlaster;
+    private Sprite marioL;
+    private Sprite marioR;
+    private Sprite marioLHammer;
+    private Sprite marioRHammer;
+    private Sprite marioLBlaster;
+    private Sprite marioRBlaster;
     private int ammo;
     private boolean right;
 
+    // Reused lists for the results of broadphase queries, so that no lists are created every frame
+    private final ArrayList<Ladder> nearLadders = new ArrayList<Ladder>();
+    private final ArrayList<Barrel> nearBarrels = new ArrayList<Barrel>();
+    private final ArrayList<Hammer> nearHammers = new ArrayList<Hammer>();
+    private final ArrayList<Blaster> nearBlasters = new ArrayList<Blaster>();
+    private final ArrayList<Monkey> nearMonkeys = new ArrayList<Monkey>();
+
     /**
      * Creates a new mario at the specified position (it will be his starting position) and loads in image files
      * and initialise state
      * @param x The starting x coordinate of mario
      * @param y The starting y coordinate of mario
+     * @param tickRate The number of simulation ticks per second, which his speeds and falling physics are scaled to
      */
-    public Mario(double x, double y) {
-        marioL = new Image("res/mario_left.png");
-        marioR = new Image("res/mario_right.png");
-        marioLHammer = new Image("res/mario_hammer_left.png");
-        marioRHammer = new Image("res/mario_hammer_right.png");
-        marioLBlaster = new Image("res/mario_blaster_left.png");
-        marioRBlaster = new Image("res/mario_blaster_right.png");
+    public Mario(double x, double y, int tickRate) {
+        gravity = GRAVITY / (tickRate * tickRate);
+        jumpVelocity = JUMP_VELOCITY / tickRate;
+        maxVelocity = MAX_FALL_SPEED / tickRate;
+
+        marioL = Sprite.load(LEFT_IMAGE);
+        marioR = Sprite.load(RIGHT_IMAGE);
+        marioLHammer = Sprite.load(LEFT_HAMMER_IMAGE);
+        marioRHammer = Sprite.load(RIGHT_HAMMER_IMAGE);
+        marioLBlaster = Sprite.load(LEFT_BLASTER_IMAGE);
+        marioRBlaster = Sprite.load(RIGHT_BLASTER_IMAGE);
 
         setStartX(x);
         setStartY(y);
@@ -50,27 +76,68 @@ public class Mario extends Character implements Fallable {
         blaster = false;
         ammo = 0;
         right = true;
-        sethSpeed(SPEED);
-        setvSpeed(SPEED);
+        sethSpeed(SPEED / tickRate);
+        setvSpeed(SPEED / tickRate);
     }
 
 
+    /**
+     * Find everything mario is touching this frame: the ladder he is on, whether he is standing on the ground, and
+     * every barrel, monkey, hammer, blaster, banana and donkey kong touching him. Only the objects near mario are
+     * checked. Called once per frame, once mario has fallen, and every other check reads the result
+     * @param grid The broadphase grid holding all objects in the level
+     * @param ground The index of all platform surfaces in the level
+     * @param projectiles The projectile pool of the level
+     * @param donkey Donkey kong in the game
+     * @param contacts The contact set to fill, which is emptied first
+     */
+    public void findContacts(SpatialGrid grid, GroundIndex ground, ProjectilePool projectiles, Donkey donkey,
+                             ContactSet contacts) {
+        contacts.clear();
+
+        Ladder ladder = findLadder(grid);
+        contacts.setLadder(ladder);
+        contacts.setGrounded(ladder != null || ground.findGround(getX(), getBottom()) != null);
+
+        for (Barrel b : grid.query(this, Barrel.class, nearBarrels)) {
+            if (!b.isDestroyed() && b.intersects(this)) {
+                contacts.getBarrels().add(b);
+            }
+        }
+        for (Monkey m : grid.query(this, Monkey.class, nearMonkeys)) {
+            if (!m.isDestroyed() && this.intersects(m)) {
+                contacts.getMonkeys().add(m);
+            }
+        }
+        for (Hammer h : grid.query(this, Hammer.class, nearHammers)) {
+            if (!h.isDestroyed() && this.intersects(h)) {
+                contacts.getHammers().add(h);
+            }
+        }
+        for (Blaster b : grid.query(this, Blaster.class, nearBlasters)) {
+            if (!b.isDestroyed() && this.intersects(b)) {
+                contacts.getBlasters().add(b);
+            }
+        }
+
+        contacts.setBanana(projectiles.touches(ProjectilePool.BANANA, this));
+        contacts.setDonkey(this.intersects(donkey));
+    }
+
     // Below are methods used to handle ladder climbing
 
     /**
      * Method to test if mario is currently on (intersecting) a ladder, if so we accordingly
      * adjust the correct variables
-     * @param ladders An array list of all the ladders in the level
+     * @param contacts Everything mario is touching this frame
      * @return True if mario is on a ladder, false if not
      */
-    public boolean onLadder(ArrayList<Ladder> ladders) {
-        for (Ladder l : ladders) {
-            if (intersectingLadder(l)) {
-                // Mario is on this ladder, set variables accordingly
-                setVelocity(0);
-                climbing = true;
-                return true;
-            }
+    public boolean onLadder(ContactSet contacts) {
+        if (contacts.getLadder() != null) {
+            // Mario is on this ladder, set variables accordingly
+            setVelocity(0);
+            climbing = true;
+            return true;
         }
         climbing = false;
         return false;
@@ -80,34 +147,41 @@ public class Mario extends Character implements Fallable {
      * Test to see if the bottom of mario is above the very bottom pixel of the ladder.
      * Note that if he is on the bottom pixel, whilst he is still on the ladder, he should not be able to climb
      * down any further (otherwise he will climb down into a platform)
-     * @param ladders An array list of all the platforms in the level
+     * @param contacts Everything mario is touching this frame
      * @return True of mario as above the bottom of the ladder, false if he is at the very bottom pixel
      */
-    public boolean aboveLadderBottom(ArrayList<Ladder> ladders) {
-        for (Ladder l : ladders) {
-            // Find the ladder that mario is currently on (if he is on one)
-            if (intersectingLadder(l)) {
-                return getY() + getImg().getHeight() / 2.0 < l.getY() + l.getImg().getHeight() / 2.0;
-            }
-        }
-
-        return false;
+    public boolean aboveLadderBottom(ContactSet contacts) {
+        Ladder l = contacts.getLadder();
+        return l != null && getBottom() < l.getBottom();
     }
 
     /**
      * Test to see if the bottom of mario is at the very top pixel of a ladder.
      * Note that if mario is on the top pixel, whilst he is still on the ladder, he should not be able to climb
      * up any further (otherwise he will climb off the top of the ladder)
-     * @param ladders An array list of all ladders in the level
+     * @param contacts Everything mario is touching this frame
      * @return True if mario is at the very top pixel of a ladder
      */
-    public boolean atLadderTop(ArrayList<Ladder> ladders) {
-        for (Ladder l : ladders) {
-            if (intersectingLadder(l)) {
-                return getY() + getImg().getHeight() / 2.0 == l.getY() - l.getImg().getHeight() / 2.0;
+    public boolean atLadderTop(ContactSet contacts) {
+        Ladder l = contacts.getLadder();
+        return l != null && getBottom() == l.getTop();
+    }
+
+    /**
+     * Helper method to find the ladder mario is currently on. Only the ladders near mario are checked
+     * @param grid The broadphase grid holding all objects in the level
+     * @return The ladder mario is on, or null if he is not on a ladder
+     */
+    private Ladder findLadder(SpatialGrid grid) {
+        // A ladder can only be intersecting if it overlaps mario's x coordinate, between his centre and 1 pixel
+        // below his feet
+        grid.query(getX(), getY(), getX(), getBottom() + 1, Ladder.class, nearLadders);
+        for (int i = 0; i < nearLadders.size(); i++) {
+            if (intersectingLadder(nearLadders.get(i))) {
+                return nearLadders.get(i);
             }
         }
-        return false;
+        return null;
     }
 
     /**
@@ -116,25 +190,25 @@ public class Mario extends Character implements Fallable {
      * @return True if mario is on this ladder, false if not
      */
     private boolean intersectingLadder(Ladder l) {
-        return getX() >= l.getX() - l.getImg().getWidth() / 2.0 && getX() <= l.getX() + l.getImg().getWidth() / 2.0
-                && getY() + getImg().getHeight() / 2.0 >= l.getY() - l.getImg().getHeight() / 2.0 - 1
-                && getY() <= l.getY() + l.getImg().getHeight() / 2.0;
+        return getX() >= l.getLeft() && getX() <= l.getRight()
+                && getBottom() >= l.getTop() - 1
+                && getY() <= l.getBottom();
     }
 
     /**
      * Override the inAir function from the Fallable interface to account for if mario is on a ladder. If he is,
      * then he is not in the air.
-     * @param platforms An array list of all platforms in the level
+     * @param ground The index of all platform surfaces in the level
      * @param gameObject The object to check
      * @return True if mario is midair, false if he is climbing a ladder or resting on a platform
      */
     @Override
-    public boolean inAir(ArrayList<Platform> platforms, GameObject gameObject) {
+    public boolean inAir(GroundIndex ground, GameObject gameObject) {
         if (isClimbing()) {
             return false;
         }
 
-        return Fallable.super.inAir(platforms, gameObject);
+        return Fallable.super.inAir(ground, gameObject);
     }
 
     /**
@@ -143,7 +217,7 @@ public class Mario extends Character implements Fallable {
     public void startJump() {
         // check to see mario is currently grounded (not in a jump or in the air)
         if (getVelocity() == 0) {
-            setVelocity(JUMP_VELOCITY);
+            setVelocity(jumpVelocity);
             setY(getY() + getVelocity());
         }
     }
@@ -151,21 +225,18 @@ public class Mario extends Character implements Fallable {
     // Below are methods used for interaction with barrels
 
     /**
-     * Method to check if mario is intersecting any barrels. If he is holding the hammer while doing so,
-     * we destroy that barrel.
-     * @param barrels Array list of all barrels in the level
-     * @return True if mario is touching a barrel, false if not
+     * Method to smash the barrels mario is touching, if he is holding the hammer
+     * @param contacts Everything mario is touching this frame
+     * @param events The event buffer, which a smashed event is emitted into for every barrel destroyed
      */
-    public boolean touchBarrel(ArrayList<Barrel> barrels) {
-        for (Barrel b : barrels) {
-            if (b.intersects(this) && !b.isDestroyed()) {
-                if (hammer) {
-                    b.setDestroyed(true);
-                }
-                return true;
-            }
+    public void smashBarrels(ContactSet contacts, EventBuffer events) {
+        if (!hammer) {
+            return;
+        }
+        for (Barrel b : contacts.getBarrels()) {
+            b.setDestroyed(true);
+            events.emit(EventBuffer.BARREL_SMASHED, b.getX(), b.getY(), 0);
         }
-        return false;
     }
 
 
@@ -173,14 +244,18 @@ public class Mario extends Character implements Fallable {
     /**
      * Test if mario passes above the top of a barrel (as long as he passes lower than the maximum jump height), this
      * way we know that mario has jumped over a barrel. passBarrelR is for when mario is travelling to the right.
-     * @param barrels Array list of all barrels in the level
+     * @param grid The broadphase grid holding all objects in the level
+     * @param events The event buffer, which a jumped event is emitted into if mario passes over a barrel
      * @return True if he has passed the top of a barrel, to the right
      */
-    public boolean passBarrelR(ArrayList<Barrel> barrels) {
-        for (Barrel b : barrels) {
+    public boolean passBarrelR(SpatialGrid grid, EventBuffer events) {
+        // Only barrels overlapping the area mario passes over (up to the jump height below him) can be jumped
+        for (Barrel b : grid.query(getX(), getY(), getX() + gethSpeed(), getY() + JUMP_HEIGHT, Barrel.class,
+                nearBarrels)) {
             if (!b.isDestroyed()
                     && getX() < b.getX() && getX() + gethSpeed() >= b.getX()
                     && getY() < b.getY() && b.getY() - b.getImg().getHeight() / 2.0 - getY() <= JUMP_HEIGHT) {
+                events.emit(EventBuffer.BARREL_JUMPED, b.getX(), b.getY(), 0);
                 return true;
             }
         }
@@ -189,37 +264,31 @@ public class Mario extends Character implements Fallable {
 
     /**
      * Same as above method, but for when mario is travelling to the left
-     * @param barrels Array list of all barrels in the level
+     * @param grid The broadphase grid holding all objects in the level
+     * @param events The event buffer, which a jumped event is emitted into if mario passes over a barrel
      * @return True if he has passed the top of a barrel, to the left
      */
-    public boolean passBarrelL(ArrayList<Barrel> barrels) {
-        for (Barrel b : barrels) {
+    public boolean passBarrelL(SpatialGrid grid, EventBuffer events) {
+        for (Barrel b : grid.query(getX() - gethSpeed(), getY(), getX(), getY() + JUMP_HEIGHT, Barrel.class,
+                nearBarrels)) {
             if (!b.isDestroyed()
                     && getX() > b.getX() && getX() - gethSpeed() <= b.getX()
                     && getY() < b.getY() && b.getY() - b.getImg().getHeight() / 2.0 - getY() <= JUMP_HEIGHT) {
+                events.emit(EventBuffer.BARREL_JUMPED, b.getX(), b.getY(), 0);
                 return true;
             }
         }
         return false;
     }
 
-    /**
-     * Method to test if mario has made contact with donkey kong
-     * @param donkey Donkey kong in the game
-     * @return True if mario has made contact with donkey kong, false if not
-     */
-    public boolean touchDonkey(Donkey donkey) {
-        return this.intersects(donkey);
-    }
-
     /**
      * Method to test if mario is collecting a hammer. Handles the logic for hammer collection.
-     * @param hammers All hammers existing in the current level
+     * @param contacts Everything mario is touching this frame
      * @return True if mario has collected a hammer, false if not
      */
-    public boolean touchHammer(ArrayList<Hammer> hammers) {
-        for (Hammer h : hammers) {
-            if (!h.isDestroyed() && this.intersects(h)) {
+    public boolean touchHammer(ContactSet contacts) {
+        for (Hammer h : contacts.getHammers()) {
+            if (!h.isDestroyed()) {
 
                 // Adjust image
                 if (right) {
@@ -238,12 +307,12 @@ public class Mario extends Character implements Fallable {
 
     /**
      * Method to test if mario is collecting a blaster. Handles the logic for blaster collection.
-     * @param blasters All hammers existing in the current level
+     * @param contacts Everything mario is touching this frame
      * @return True if mario has collected a blaster, false if not
      */
-    public boolean touchBlaster(ArrayList<Blaster> blasters) {
-        for (Blaster b : blasters) {
-            if (!b.isDestroyed() && this.intersects(b)) {
+    public boolean touchBlaster(ContactSet contacts) {
+        for (Blaster b : contacts.getBlasters()) {
+            if (!b.isDestroyed()) {
 
                 // Adjust image
                 if (right) {
@@ -261,71 +330,37 @@ public class Mario extends Character implements Fallable {
     }
 
     /**
-     * Method to check if a banana (shot by intelligent monkeys) has connected with mario
-     * @param bananas An array list of all bananas existing in the level
-     * @return True if a banana has connected with mario, otherwise false.
-     */
-    public boolean touchBanana(ArrayList<Banana> bananas) {
-        for (Banana b : bananas) {
-            if (this.intersects(b)) {
-                return true;
-                // we don't need to destroy the banana because the game will end anyway
-            }
-        }
-
-        return false;
-    }
-
-    /**
-     * Method to check if mario has made contact with normal monkeys OR intelligent monkeys. If mario has a hammer,
-     * the monkeys are destroyed within this method as well.
-     * @param normMonkeys All normal monkeys in the level
-     * @param intelMonkeys A intelligent monkeys in the level
-     * @return True if mario has made contact with a monkey, false if not
+     * Method to smash the monkeys (normal or intelligent) mario is touching, if he is holding the hammer
+     * @param contacts Everything mario is touching this frame
+     * @param events The event buffer, which a killed event is emitted into for every monkey destroyed
      */
-    public boolean touchMonkeys(ArrayList<NormMonkey> normMonkeys, ArrayList<IntelMonkey> intelMonkeys) {
-        for (NormMonkey m : normMonkeys) {
-            if (this.intersects(m) && !m.isDestroyed()) {
-
-                // For if mario has a hammer
-                if (hammer) {
-                    m.setDestroyed(true);
-                }
-                return true;
-            }
+    public void smashMonkeys(ContactSet contacts, EventBuffer events) {
+        if (!hammer) {
+            return;
         }
-
-        for (IntelMonkey m : intelMonkeys) {
-            if (this.intersects(m) && !m.isDestroyed()) {
-
-                // For if mario has a hammer
-                if (hammer) {
-                    m.setDestroyed(true);
-                }
-                return true;
-            }
+        for (Monkey m : contacts.getMonkeys()) {
+            m.setDestroyed(true);
+            events.emit(EventBuffer.MONKEY_KILLED, m.getX(), m.getY(), 0);
         }
-
-        return false;
     }
 
     /**
      * Method which handles shooting logic for mario. Does a check to see if mario has ammo to shoot, and if so,
-     * a bullet is created. If mario runs out of bullets, this method will also update the logic by removing the
+     * a bullet is created. A bullet is only used up if it was actually shot, which it is not if the projectile pool
+     * is full. If mario runs out of bullets, this method will also update the logic by removing the
      * blater and updating the mario image
-     * @param bullets Array of all bullet in the game. This array will be updated with the new bullet (if shot)
-     * @return Updated array with the newly shot bullet, otherwise if no bullet is shot this array will
-     * be the same as the input array
+     * @param projectiles The projectile pool of the level, which the new bullet (if shot) is added to
      */
-    public ArrayList<Bullet> shoot(ArrayList<Bullet> bullets) {
+    public void shoot(ProjectilePool projectiles) {
         if (ammo == 0) {
             // no ammo, can't shoot
-            return bullets;
+            return;
         }
 
-        // create the bullet
-        Bullet bullet = new Bullet(getX(), getY(), right);
-        bullets.add(bullet);
+        // create the bullet, keeping it if the pool is full and nothing was shot
+        if (!projectiles.spawn(ProjectilePool.BULLET, getX(), getY(), right)) {
+            return;
+        }
         ammo--;
 
         // case for if we just shot the last bullet
@@ -337,8 +372,6 @@ public class Mario extends Character implements Fallable {
                 setImg(marioL);
             }
         }
-
-        return bullets;
     }
 
     // Below are methods for movement, adjusting the image of mario when necessary
@@ -362,9 +395,10 @@ public class Mario extends Character implements Fallable {
     /**
      * Method for mario to move right, updating his position. Activated by right arrow on the keyboard input.
      * Handles logic to ensure mario does not walk past screen boundaries, and updated directional variable 'right'.
+     * @param screenWidth The width of the screen in pixels, which mario can not walk past
      */
-    public void right() {
-        setX(Math.min(getX() + gethSpeed(), Window.getWidth()));
+    public void right(double screenWidth) {
+        setX(Math.min(getX() + gethSpeed(), screenWidth));
         if (hammer) {
             setImg(marioRHammer);
         } else if (blaster) {
@@ -406,12 +440,93 @@ public class Mario extends Character implements Fallable {
         right = true;
     }
 
+    /**
+     * Write the state of mario into a snapshot, after his state as a game object
+     * @param buffer The buffer to write to, which must have at least getStateSize() bytes left
+     */
+    @Override
+    public void writeState(ByteBuffer buffer) {
+        super.writeState(buffer);
+        buffer.put((byte) ((climbing ? 1 : 0) | (hammer ? 2 : 0) | (blaster ? 4 : 0) | (right ? 8 : 0)));
+        buffer.putInt(ammo);
+
+        Sprite img = getImg();
+        int sprite = 0;
+        while (sprite < MARIO_SPRITES - 1 && getSprite(sprite) != img) {
+            sprite++;
+        }
+        buffer.put((byte) sprite);
+    }
+
+    /**
+     * Read the state of mario back from a snapshot written by writeState
+     * @param buffer The buffer to read from
+     */
+    @Override
+    public void readState(ByteBuffer buffer) {
+        super.readState(buffer);
+        int flags = buffer.get();
+        climbing = (flags & 1) != 0;
+        hammer = (flags & 2) != 0;
+        blaster = (flags & 4) != 0;
+        right = (flags & 8) != 0;
+        ammo = buffer.getInt();
+        setImg(getSprite(buffer.get()));
+    }
+
+    /**
+     * Get the number of bytes the state of mario takes up in a snapshot
+     * @return The number of bytes written by writeState
+     */
+    @Override
+    public int getStateSize() {
+        return super.getStateSize() + STATE_SIZE;
+    }
+
+    /**
+     * Helper method to get one of mario's images by its index, in the same order as getImagePaths
+     * @param index The index of the image
+     * @return The image
+     */
+    private Sprite getSprite(int index) {
+        switch (index) {
+            case 0:
+                return marioL;
+            case 1:
+                return marioR;
+            case 2:
+                return marioLHammer;
+            case 3:
+                return marioRHammer;
+            case 4:
+                return marioLBlaster;
+            default:
+                return marioRBlaster;
+        }
+    }
+
     /**
      * Get the gravity constant affecting mario. Used for falling physics
-     * @return The gravity constant for mario
+     * @return The gravity constant for mario, in pixels per tick per tick
      */
     public double getGRAVITY() {
-        return GRAVITY;
+        return gravity;
+    }
+
+    /**
+     * Get the fastest mario can fall. Used for falling physics, and to work out where jumps can reach
+     * @return The terminal velocity of mario, in pixels per tick
+     */
+    public double getMaxVelocity() {
+        return maxVelocity;
+    }
+
+    /**
+     * Get the velocity mario starts a jump with. Used to work out where jumps can reach
+     * @return The starting velocity of a jump in pixels per tick (negative, since it is upwards)
+     */
+    public double getJUMP_VELOCITY() {
+        return jumpVelocity;
     }
 
     /**
@@ -469,4 +584,19 @@ public class Mario extends Character implements Fallable {
     public int getAmmo() {
         return ammo;
     }
+
+    /**
+     * Get every image mario can be drawn with, so they can be loaded before mario is first drawn
+     * @return An array list of the paths of mario's images
+     */
+    public static ArrayList<String> getImagePaths() {
+        ArrayList<String> paths = new ArrayList<String>();
+        paths.add(LEFT_IMAGE);
+        paths.add(RIGHT_IMAGE);
+        paths.add(LEFT_HAMMER_IMAGE);
+        paths.add(RIGHT_HAMMER_IMAGE);
+        paths.add(LEFT_BLASTER_IMAGE);
+        paths.add(RIGHT_BLASTER_IMAGE);
+        return paths;
+    }
 }
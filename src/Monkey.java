@@ -1,6 +1,4 @@
-import bagel.Image;
-import bagel.Window;
-
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 
 /**
@@ -10,60 +8,86 @@ import java.util.ArrayList;
  * to inherit basic character properties
  */
 public abstract class Monkey extends Character implements Fallable {
-    private final double GRAVITY = 0.4;
-    private final double SPEED = 0.5;
-    private Image rightImg;
-    private Image leftImg;
+    // Gravity in pixels per second squared, and walking speed in pixels per second
+    private final double GRAVITY = 1440;
+    private final double SPEED = 30;
+    private final double gravity;
+    private final double maxVelocity;
+    private Sprite rightImg;
+    private Sprite leftImg;
     private boolean right;
+    private final boolean startRight;
+
+    // Bytes written by writeState on top of the game object state: the flags, step, and how far along the path the
+    // monkey is
+    private final int STATE_SIZE = 1 + Integer.BYTES + 3 * Double.BYTES;
 
     // Used to track how much of the current path section the monkey has walked
     private double currDistance;
-    private ArrayList<Integer> path;
+    private final int[] path;
+
+    // The path compiled for the current level, and the x coordinate where the monkey turns around at the end of the
+    // current section, found for the monkey's height at routeY
+    private MonkeyRoute route;
+    private double turnX;
+    private double routeY = Double.NaN;
 
     // Used to track the index of the path which the monkey is currently walking
     private int step;
-    private final double COLLISION_ERROR = 2;
 
     /**
      * Creates a new monkey at a specified posiiton, given a specified path. This information is read from the
-     * game properties file, using another method.
-     * @param x The starting x coordinate of the monkey
-     * @param y The starting y coordinate of the monkey
-     * @param right True if the monkey begins facing right, otherwise false
-     * @param path An array list of integers which is the path which this monkey will travel
+     * game properties file.
+     * @param config The starting position, direction and path of the monkey
+     * @param tickRate The number of simulation ticks per second, which the speed and falling physics are scaled to
      */
-    public Monkey(double x, double y, boolean right, ArrayList<Integer> path) {
-        setStartX(x);
-        setStartY(y);
-        setX(x);
-        setY(y);
-        sethSpeed(SPEED);
+    public Monkey(MonkeyConfig config, int tickRate) {
+        gravity = GRAVITY / (tickRate * tickRate);
+        maxVelocity = MAX_FALL_SPEED / tickRate;
+        setStartX(config.getStart().x);
+        setStartY(config.getStart().y);
+        setX(config.getStart().x);
+        setY(config.getStart().y);
+        sethSpeed(SPEED / tickRate);
         currDistance = 0;
         step = 0;
-        this.right = right;
-        this.path = path;
+        this.right = config.isRight();
+        this.startRight = config.isRight();
+        this.path = config.getPath();
     }
 
     /**
-     * Method which handles path travelling logic. First checks if the current path cannot be travelled anymore,
-     * otherwise it continues travelling the current path and the position is updated
+     * Compile the monkey's path for the level it is in, resolving where the platform and screen edges make it turn
+     * around. Must be called before the monkey travels its path
      * @param platforms An array list of every platform in the level
+     * @param screenWidth The width of the screen in pixels, which the monkey can not walk past
      */
-    public void travelPath(ArrayList<Platform> platforms) {
-        // step loops around to 0 if needed
-        step = step % path.size();
+    public void compileRoute(ArrayList<Platform> platforms, double screenWidth) {
+        route = new MonkeyRoute(path, gethSpeed(), getHalfWidth(), platforms, screenWidth);
+        routeY = Double.NaN;
+    }
 
-        double currentPath = path.get(step);
+    /**
+     * Method which handles path travelling logic. First checks if the monkey has reached the point where the current
+     * path section ends, in which case it turns around to walk the next section, otherwise it continues travelling the
+     * current section and the position is updated
+     */
+    public void travelPath() {
+        // The platform edges the monkey can reach change if it has fallen, so find where the section ends again
+        if (getY() != routeY) {
+            routeY = getY();
+            turnX = route.findTurn(getX(), getBottom(), right, step, currDistance);
+        }
 
-        // checks the cases for if the monkey should switch direction and walk the next path
-        if (currDistance + gethSpeed() > currentPath || atPlatformEdge(platforms) || atScreenEdge()) {
+        if (right ? getX() >= turnX : getX() <= turnX) {
             // I have made an assumption here that if the remaining path is less than our speed, we will skip this.
             // i.e. if 0.25 to walk, but speed is 0.5, therefore we will skip
-            step += 1;
+            step = (step + 1) % route.size();
 
             // change direction
             right = !right;
             currDistance = 0;
+            turnX = route.findTurn(getX(), getBottom(), right, step, currDistance);
         } else {
             // we can keep travelling this path
             if (right) {
@@ -76,120 +100,85 @@ public abstract class Monkey extends Character implements Fallable {
 
             currDistance += gethSpeed();
         }
-
-
     }
 
     /**
-     * Helper method for path travelling. Detects if a monkey is at the edge of it's current platform (with room for
-     * collision error.
-     * @param platforms An array list of all platforms in the level
-     * @return Boolean value true if the monkey is at a platform edge, and false if not
+     * Monkeys are always walking their path, so they are never put to sleep
+     * @return True
      */
-    private boolean atPlatformEdge(ArrayList<Platform> platforms) {
-        for (Platform p : platforms) {
-            if (onPlatform(p)) {
-                // we know that the monkey is at the same y value as this platform (allowing for a small error)
-
-                // Values representing the x coordinate of the right edge of the platform, and the left edge
-                double platformRight = p.getX() + p.getImg().getWidth() / 2.0;
-                double platformLeft = p.getX() - p.getImg().getWidth() / 2.0;
-
-                // Check if the monkey is close to either of these edges
-                if (right && (Math.abs(getX() - (platformRight - getImg().getWidth() / 2.0)) <= COLLISION_ERROR)) {
-                    return true;
-                } else if (!right && Math.abs(getX() - (platformLeft + getImg().getWidth() / 2.0)) <= COLLISION_ERROR) {
-                    return true;
-                }
-            }
-        }
-
-        return false;
+    @Override
+    public boolean isWalking() {
+        return true;
     }
 
     /**
-     * Helper method for the platform edge detection method. Checks if a monkey is on the current platform,
-     * by comparing y values, with room for collision error.
-     * @param p The platform to be compared with
-     * @return True of the monkey is on this platform, false if not
+     * Get the gravity constant affecting this monkey. Used for falling physics
+     * @return Gravity constant affecting this monkey, in pixels per tick per tick
      */
-    private boolean onPlatform(Platform p) {
-        double difference = (Math.abs(getY() + getImg().getHeight() / 2.0 - (p.getY() - p.getImg().getHeight() / 2.0)));
-        return (difference < COLLISION_ERROR);
+    public double getGRAVITY() {
+        return gravity;
     }
 
     /**
-     * Helper method for the path travelling. Checks if the monkey is at the edge of the screen on the x-axis. We make
-     * the assumption that there will always be platforms blocking the bottom edge, and the top edge is never reached.
-     * @return True if the monkey is at the edge of the screen, false if not
+     * Get the fastest this monkey can fall. Used for falling physics
+     * @return Terminal velocity of this monkey, in pixels per tick
      */
-    private boolean atScreenEdge() {
-        if (right) {
-            return getX() + getImg().getWidth() / 2.0 >= Window.getWidth();
-        } else {
-            return getX() - getImg().getWidth() / 2.0 <= 0;
-        }
+    public double getMaxVelocity() {
+        return maxVelocity;
     }
 
     /**
-     * Method to check if a bullet shot by mario has connected with this monkey. If so, the bullet is destroyed, and
-     * this monkey is also destroyed (handled in the main class of the game)
-     * @param bullets An arraylist of all bullets currently in the level
-     * @return True of this monkey has been shot, false if not
+     * Method to reset the state of a monkey. Used to reset level 2. The monkey faces the direction it started in
      */
-    public boolean touchBullet(ArrayList<Bullet> bullets) {
-        for (Bullet b : bullets) {
-            if (this.intersects(b)) {
-                // bullet is destroyed upon contact
-                b.setDestroyed(true);
-                return true;
-            }
-        }
-
-        return false;
+    public void reset() {
+        setX(getStartX());
+        setY(getStartY());
+        setVelocity(0);
+        step = 0;
+        currDistance = 0;
+        right = startRight;
+        setImg(right ? rightImg : leftImg);
+        routeY = Double.NaN;
+        setDestroyed(false);
     }
 
     /**
-     * Helper method to read the path a monkey will follow.
-     * @param points A substring from the game properties file, in the form of xx,yy,zz containing the path
-     *               of the intelligent monkey
-     * @return An array list of integers representing this path
+     * Write the state of the monkey into a snapshot, after its state as a game object
+     * @param buffer The buffer to write to, which must have at least getStateSize() bytes left
      */
-    public static ArrayList<Integer> readPath(String points) {
-        ArrayList<Integer> path = new ArrayList<Integer>();
-
-        while (points.contains(",")) {
-            path.add(Integer.parseInt(
-                    points.substring(0, points.indexOf((",")))
-            ));
-            points = points.substring(points.indexOf(",") + 1);
-        }
-
-        // last one
-        path.add(Integer.parseInt(points));
-
-        return path;
+    @Override
+    public void writeState(ByteBuffer buffer) {
+        super.writeState(buffer);
+        buffer.put((byte) ((right ? 1 : 0) | (getImg() == rightImg ? 2 : 0)));
+        buffer.putInt(step);
+        buffer.putDouble(currDistance);
+        buffer.putDouble(turnX);
+        buffer.putDouble(routeY);
     }
 
-
     /**
-     * Get the gravity constant affecting this monkey. Used for falling physics
-     * @return Gravity constant affecting this monkey
+     * Read the state of the monkey back from a snapshot written by writeState
+     * @param buffer The buffer to read from
      */
-    public double getGRAVITY() {
-        return GRAVITY;
+    @Override
+    public void readState(ByteBuffer buffer) {
+        super.readState(buffer);
+        int flags = buffer.get();
+        right = (flags & 1) != 0;
+        setImg((flags & 2) != 0 ? rightImg : leftImg);
+        step = buffer.getInt();
+        currDistance = buffer.getDouble();
+        turnX = buffer.getDouble();
+        routeY = buffer.getDouble();
     }
 
     /**
-     * Method to reset the state of a monkey. Used to reset level 2
+     * Get the number of bytes the state of the monkey takes up in a snapshot
+     * @return The number of bytes written by writeState
      */
-    public void reset() {
-        setX(getStartX());
-        setY(getStartY());
-        step = 0;
-        currDistance = 0;
-        right = true;
-        setDestroyed(false);
+    @Override
+    public int getStateSize() {
+        return super.getStateSize() + STATE_SIZE;
     }
 
     /**
@@ -204,7 +193,7 @@ public abstract class Monkey extends Character implements Fallable {
      * Edit the left image of the monkey. Used in constructors of concrete child classes
      * @param leftImg The image to be shown when a monkey is travelling to the left
      */
-    public void setLeftImg(Image leftImg) {
+    public void setLeftImg(Sprite leftImg) {
         this.leftImg = leftImg;
     }
 
@@ -212,7 +201,7 @@ public abstract class Monkey extends Character implements Fallable {
      * Edit the right image of the monkey. Used in constructors of concrete child classes
      * @param rightImg The image to be shown when a monkey is travelling to the right
      */
-    public void setRightImg(Image rightImg) {
+    public void setRightImg(Sprite rightImg) {
         this.rightImg = rightImg;
     }
 
@@ -220,7 +209,7 @@ public abstract class Monkey extends Character implements Fallable {
      * Get the left image of the monkey
      * @return The image to be shown when the monkey is travelling left
      */
-    public Image getLeftImg() {
+    public Sprite getLeftImg() {
         return leftImg;
     }
 
@@ -228,7 +217,7 @@ public abstract class Monkey extends Character implements Fallable {
      * Get the right image of the monkey
      * @return The image to be shown when the monkey is travelling right
      */
-    public Image getRightImg() {
+    public Sprite getRightImg() {
         return rightImg;
     }
 }
@@ -0,0 +1,87 @@
+import bagel.util.Point;
+
+/**
+ * Immutable starting position, direction and patrol route of a monkey, read from the game properties file
+ * in the format of xx,yy;direction;aa,bb,cc
+ */
+public final class MonkeyConfig {
+    private final Point start;
+    private final boolean right;
+    private final int[] path;
+
+    /**
+     * Creates a new monkey config
+     * @param start The starting position of the monkey
+     * @param right True if the monkey begins facing right, otherwise false
+     * @param path The distances the monkey walks before turning around
+     */
+    public MonkeyConfig(Point start, boolean right, int[] path) {
+        this.start = start;
+        this.right = right;
+        this.path = path.clone();
+    }
+
+    /**
+     * Parses and validates a monkey from the game properties
+     * @param key The key of the property, used for error messages
+     * @param value The value of the property
+     * @return The parsed monkey config
+     * @throws IllegalArgumentException If the value is malformed
+     */
+    static MonkeyConfig parse(String key, String value) {
+        String[] parts = value.split(";");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Game property " + key + " is not a monkey: " + value);
+        }
+
+        // Read the initial direction of the monkey
+        boolean right;
+        if (parts[1].trim().equals("right")) {
+            right = true;
+        } else if (parts[1].trim().equals("left")) {
+            right = false;
+        } else {
+            throw new IllegalArgumentException("Game property " + key + " has an invalid direction: " + parts[1]);
+        }
+
+        // Finally, read the path the monkey will follow
+        String[] distances = parts[2].split(",");
+        int[] path = new int[distances.length];
+        for (int i = 0; i < distances.length; i++) {
+            try {
+                path[i] = Integer.parseInt(distances[i].trim());
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Game property " + key + " has an invalid path: " + parts[2]);
+            }
+            if (path[i] <= 0) {
+                throw new IllegalArgumentException("Game property " + key + " has an invalid path: " + parts[2]);
+            }
+        }
+
+        return new MonkeyConfig(GameConfig.parsePoint(key, parts[0]), right, path);
+    }
+
+    /**
+     * Get the starting position of the monkey
+     * @return The starting position
+     */
+    public Point getStart() {
+        return start;
+    }
+
+    /**
+     * Check which direction the monkey begins facing
+     * @return True if the monkey begins facing right, false if left
+     */
+    public boolean isRight() {
+        return right;
+    }
+
+    /**
+     * Get the patrol route of the monkey
+     * @return A copy of the distances the monkey walks before turning around
+     */
+    public int[] getPath() {
+        return path.clone();
+    }
+}
@@ -0,0 +1,112 @@
+import java.util.ArrayList;
+
+/**
+ * The patrol route of a monkey, compiled once when its level is built. The distances of the path are kept in a
+ * primitive array, and the edges of the platforms and the screen are turned into the x coordinates at which a monkey
+ * walking towards them turns around. Whenever the monkey starts a section of its path (or lands on new ground), the
+ * route finds the absolute x coordinate where that section ends, so that walking the path each frame only has to
+ * compare the monkey's position with it
+ */
+public class MonkeyRoute {
+    private final double COLLISION_ERROR = 2;
+
+    private final double[] distances;
+    private final double speed;
+
+    // The monkey turns around at the screen edges once its centre reaches these x coordinates
+    private final double screenLeft;
+    private final double screenRight;
+
+    // For each platform: the y coordinate of its top, and the x coordinates of the monkey's centre when it is at the
+    // left and right edges of the platform
+    private final double[] tops;
+    private final double[] leftTurns;
+    private final double[] rightTurns;
+
+    /**
+     * Compiles the route of a monkey for a level
+     * @param path The distances the monkey walks before turning around
+     * @param speed The distance the monkey walks each frame
+     * @param halfWidth Half the width of the monkey
+     * @param platforms An array list of every platform in the level
+     * @param screenWidth The width of the screen in pixels, which the monkey can not walk past
+     */
+    public MonkeyRoute(int[] path, double speed, double halfWidth, ArrayList<Platform> platforms,
+                       double screenWidth) {
+        this.speed = speed;
+        distances = new double[path.length];
+        for (int i = 0; i < path.length; i++) {
+            distances[i] = path[i];
+        }
+
+        screenLeft = halfWidth;
+        screenRight = screenWidth - halfWidth;
+
+        tops = new double[platforms.size()];
+        leftTurns = new double[platforms.size()];
+        rightTurns = new double[platforms.size()];
+        for (int i = 0; i < platforms.size(); i++) {
+            Platform p = platforms.get(i);
+            tops[i] = p.getTop();
+            leftTurns[i] = p.getLeft() + halfWidth;
+            rightTurns[i] = p.getRight() - halfWidth;
+        }
+    }
+
+    /**
+     * Get the number of sections in the path
+     * @return The number of distances the monkey walks before its path repeats
+     */
+    public int size() {
+        return distances.length;
+    }
+
+    /**
+     * Find where the monkey turns around at the end of the section of the path it is walking. The section ends when
+     * less than a step of it is left to walk, or the monkey is within the collision error of the edge of a platform it
+     * is standing on, or it reaches the edge of the screen, whichever comes first
+     * @param x The x coordinate of the monkey
+     * @param bottom The y coordinate of the bottom of the monkey
+     * @param right True if the monkey is walking right, false if left
+     * @param step The index of the section of the path being walked
+     * @param walked How much of the section has been walked already
+     * @return The x coordinate at which the monkey turns around
+     */
+    public double findTurn(double x, double bottom, boolean right, int step, double walked) {
+        double remaining = distances[step] - walked;
+        double steps = remaining < speed ? 0 : Math.floor(remaining / speed);
+
+        // Edges are approached one step at a time, so the monkey stops on the first step which reaches them
+        double screenTurn = right ? screenRight : screenLeft;
+        steps = Math.min(steps, stepsTo(x, right, screenTurn, 0));
+
+        for (int i = 0; i < tops.length; i++) {
+            if (Math.abs(bottom - tops[i]) < COLLISION_ERROR) {
+                steps = Math.min(steps, stepsTo(x, right, right ? rightTurns[i] : leftTurns[i], COLLISION_ERROR));
+            }
+        }
+
+        return right ? x + steps * speed : x - steps * speed;
+    }
+
+    /**
+     * Helper method to count the steps before the monkey reaches a point, within an error
+     * @param x The x coordinate of the monkey
+     * @param right True if the monkey is walking right, false if left
+     * @param turn The x coordinate of the point
+     * @param error How close the monkey must get to the point. The screen edges have no error, but can not be passed
+     * @return The number of steps, or infinity if the monkey has already walked past the point
+     */
+    private double stepsTo(double x, boolean right, double turn, double error) {
+        // Distance left to walk before the monkey is within the error of the point
+        double gap = right ? turn - error - x : x - (turn + error);
+        if (gap <= 0) {
+            // Screen edges can never be passed, while platform edges are only reached when within the error
+            return error == 0 || Math.abs(x - turn) <= error ? 0 : Double.POSITIVE_INFINITY;
+        }
+
+        double steps = Math.ceil(gap / speed);
+        double end = right ? x + steps * speed : x - steps * speed;
+        return error == 0 || Math.abs(end - turn) <= error ? steps : Double.POSITIVE_INFINITY;
+    }
+}
@@ -0,0 +1,1029 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Navigation graph of a level, used to plan how mario can get from where he is to a goal (such as a hammer or donkey
+ * kong). The walkable surfaces are the tops of the platforms, with overlapping platforms at the same height merged into
+ * one surface. Vertices are points along the surfaces: their ends, the ends of ladders, points mario can jump from,
+ * and points where jumps land. Mario can walk between neighbouring points on a surface, climb a ladder between the
+ * surfaces at either end, or jump or walk off the end of a surface and land on another one.
+ * Where each jump and drop lands is found by simulating mario's movement frame by frame with his jump velocity,
+ * gravity and speed, in the same order the game does, so the graph only holds moves mario can really make.
+ * Platforms and ladders never move once a level is built, so each level layout's graph is only built once and shared
+ * by every level built from it. The graph is stored in arrays and searched with A*, with the cost of each move being
+ * the number of frames it takes, so a path can be found every frame.
+ */
+public class NavGraph {
+    /**
+     * Kinds of step in a path
+     */
+    public static final int REACH = 0;
+    public static final int LADDER_UP = 1;
+    public static final int LADDER_DOWN = 2;
+    public static final int JUMP = 3;
+    public static final int DROP = 4;
+
+    // Moves along a surface, which are not stored as edges since every pair of neighbouring vertices is joined
+    private static final int WALK = -1;
+
+    // Space between the points mario can jump from along a surface
+    private static final double JUMP_SPACING = 24;
+
+    // Jumps from the ends of a surface are taken this far in, since mario walks in steps and could step off the end
+    private static final double END_MARGIN = 6;
+
+    // Most seconds a jump or drop is simulated for before it is given up on
+    private static final int MAX_AIR_SECONDS = 10;
+
+    // Frames mario can walk past the end of a surface without falling before a drop is given up on
+    private static final int MAX_DROP_WALK_FRAMES = 3;
+
+    // Graphs of every level layout built so far
+    private static final ConcurrentHashMap<LevelConfig, NavGraph> GRAPHS = new ConcurrentHashMap<LevelConfig, NavGraph>();
+
+    // Mario's movement and size
+    private final double speed;
+    private final double climbSpeed;
+    private final double jumpVelocity;
+    private final double gravity;
+    private final double maxVelocity;
+    private final int maxAirFrames;
+    private final double halfWidth;
+    private final double halfHeight;
+    private final double jumpRise;
+
+    private final double width;
+    private final double height;
+    private final double collisionError;
+
+    // Walkable surfaces, sorted by height and then by left edge. The vertices on surface s are stored from
+    // surfaceFirst[s] (inclusive) to surfaceEnd[s] (exclusive), sorted by x
+    private int surfaceCount;
+    private double[] surfaceTops;
+    private double[] surfaceLefts;
+    private double[] surfaceRights;
+    private int[] surfaceFirst;
+    private int[] surfaceEnd;
+
+    // Ladder spans, and the vertices at the top and bottom of each ladder (-1 if there is no surface there)
+    private double[] ladderXs;
+    private double[] ladderLefts;
+    private double[] ladderRights;
+    private double[] ladderTops;
+    private double[] ladderBottoms;
+    private int[] ladderTopVertices;
+    private int[] ladderBottomVertices;
+
+    // Vertices, as the surface they are on and their x coordinate
+    private int vertexCount;
+    private int[] vertexSurfaces;
+    private double[] vertexXs;
+
+    // Edges leaving vertex v are stored from edgeFirst[v] (inclusive) to edgeFirst[v + 1] (exclusive)
+    private int[] edgeFirst;
+    private int[] edgeTargets;
+    private int[] edgeKinds;
+    private int[] edgeDirections;
+    private double[] edgeCosts;
+
+    // Position of mario in every frame of each jump and drop, stored from edgeSampleFirst to edgeSampleEnd, and the
+    // box mario covers over the whole move (left, top, right, bottom)
+    private int[] edgeSampleFirst;
+    private int[] edgeSampleEnd;
+    private double[] edgeBoxes;
+    private double[] sampleXs = new double[256];
+    private double[] sampleYs = new double[256];
+    private int sampleCount;
+
+    /**
+     * A jump or drop found while building the graph
+     */
+    private static class Arc {
+        private int kind;
+        private int direction;
+        private int fromSurface;
+        private double fromX;
+        private int toSurface;
+        private double toX;
+        private int frames;
+        private int sampleFirst;
+        private int sampleEnd;
+    }
+
+    /**
+     * A path found by a search, as the steps mario takes. Each step starts by walking to its x coordinate along the
+     * surface mario is on, then making the move of its kind (reaching the goal, climbing a ladder, jumping, or
+     * walking off the end of the surface). Also holds the working arrays of the search, so searching again does not
+     * allocate anything. Each path can only be used by one thread at a time
+     */
+    public static class Path {
+        private static final int INITIAL_STEPS = 16;
+
+        // Steps of the path
+        private int length;
+        private int[] kinds = new int[INITIAL_STEPS];
+        private double[] xs = new double[INITIAL_STEPS];
+        private int[] directions = new int[INITIAL_STEPS];
+        private double[] tops = new double[INITIAL_STEPS];
+        private double frames;
+
+        // Best way found to each vertex (and the start, stored after the vertices) in the current search. Entries
+        // are only valid if their stamp matches the search's stamp, so nothing needs clearing between searches
+        private double[] costs = new double[0];
+        private int[] parents = new int[0];
+        private int[] parentKinds = new int[0];
+        private int[] parentDirections = new int[0];
+        private int[] seen = new int[0];
+        private int[] closed = new int[0];
+        private int stamp;
+
+        // Binary heap of vertices to visit, ordered by their estimated total cost
+        private int[] heapNodes = new int[INITIAL_STEPS];
+        private double[] heapKeys = new double[INITIAL_STEPS];
+        private int heapSize;
+
+        // The goal of the current search, and the best way of reaching it found so far
+        private double goalLeft;
+        private double goalTop;
+        private double goalRight;
+        private double goalBottom;
+        private double bestCost;
+        private int bestParent;
+        private int bestKind;
+        private int bestDirection;
+        private double bestX;
+        private int bestSurface;
+
+        /**
+         * Get the number of steps in the path
+         * @return The number of steps
+         */
+        public int getLength() {
+            return length;
+        }
+
+        /**
+         * Get the kind of a step, using the constants of NavGraph
+         * @param i The index of the step
+         * @return The kind of the step
+         */
+        public int getKind(int i) {
+            return kinds[i];
+        }
+
+        /**
+         * Get the x coordinate mario walks to before making a step's move
+         * @param i The index of the step
+         * @return The x coordinate the step starts from
+         */
+        public double getX(int i) {
+            return xs[i];
+        }
+
+        /**
+         * Get the direction mario holds during a jump or drop step
+         * @param i The index of the step
+         * @return -1 for left, 1 for right, or 0 for other steps
+         */
+        public int getDirection(int i) {
+            return directions[i];
+        }
+
+        /**
+         * Get the height of the surface mario is on once a step is finished
+         * @param i The index of the step
+         * @return The y coordinate of the top of the surface
+         */
+        public double getTop(int i) {
+            return tops[i];
+        }
+
+        /**
+         * Get how many frames the path is expected to take
+         * @return The number of frames until the goal is reached
+         */
+        public double getFrames() {
+            return frames;
+        }
+
+        /**
+         * Helper method to start a new search, making sure the working arrays are large enough
+         * @param nodes The number of nodes in the search
+         */
+        private void start(int nodes) {
+            if (costs.length < nodes) {
+                costs = new double[nodes];
+                parents = new int[nodes];
+                parentKinds = new int[nodes];
+                parentDirections = new int[nodes];
+                seen = new int[nodes];
+                closed = new int[nodes];
+                stamp = 0;
+            }
+            stamp++;
+            heapSize = 0;
+            length = 0;
+            bestCost = Double.POSITIVE_INFINITY;
+        }
+
+        /**
+         * Helper method to add a node to the heap
+         * @param node The node
+         * @param key The estimated total cost of a path through the node
+         */
+        private void push(int node, double key) {
+            if (heapSize == heapNodes.length) {
+                heapNodes = Arrays.copyOf(heapNodes, heapSize * 2);
+                heapKeys = Arrays.copyOf(heapKeys, heapSize * 2);
+            }
+
+            // Move the new node up until its parent has a smaller key
+            int i = heapSize++;
+            while (i > 0 && heapKeys[(i - 1) / 2] > key) {
+                heapNodes[i] = heapNodes[(i - 1) / 2];
+                heapKeys[i] = heapKeys[(i - 1) / 2];
+                i = (i - 1) / 2;
+            }
+            heapNodes[i] = node;
+            heapKeys[i] = key;
+        }
+
+        /**
+         * Helper method to remove the node with the smallest key from the heap. Its key is left in heapKeys[heapSize]
+         * @return The node
+         */
+        private int pop() {
+            int top = heapNodes[0];
+            double topKey = heapKeys[0];
+            int node = heapNodes[--heapSize];
+            double key = heapKeys[heapSize];
+
+            // Move the last node down from the root until both its children have larger keys
+            int i = 0;
+            while (2 * i + 1 < heapSize) {
+                int child = 2 * i + 1;
+                if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) {
+                    child++;
+                }
+                if (heapKeys[child] >= key) {
+                    break;
+                }
+                heapNodes[i] = heapNodes[child];
+                heapKeys[i] = heapKeys[child];
+                i = child;
+            }
+            heapNodes[i] = node;
+            heapKeys[i] = key;
+            heapKeys[heapSize] = topKey;
+            return top;
+        }
+
+        /**
+         * Helper method to add a step to the end of the path
+         * @param kind The kind of the step
+         * @param x The x coordinate the step starts from
+         * @param direction The direction held during the step
+         * @param top The height of the surface the step ends on
+         */
+        private void addStep(int kind, double x, int direction, double top) {
+            if (length == kinds.length) {
+                kinds = Arrays.copyOf(kinds, length * 2);
+                xs = Arrays.copyOf(xs, length * 2);
+                directions = Arrays.copyOf(directions, length * 2);
+                tops = Arrays.copyOf(tops, length * 2);
+            }
+            kinds[length] = kind;
+            xs[length] = x;
+            directions[length] = direction;
+            tops[length] = top;
+            length++;
+        }
+    }
+
+    /**
+     * Get the navigation graph of a level, building it the first time it is asked for with this layout
+     * @param layout The layout the level was built from
+     * @param level The level, once its ladders have settled
+     * @param width The width of the window
+     * @param height The height of the window
+     * @return The shared navigation graph of the layout
+     */
+    public static NavGraph get(LevelConfig layout, Level level, double width, double height) {
+        return GRAPHS.computeIfAbsent(layout, key -> new NavGraph(level, width, height));
+    }
+
+    /**
+     * Builds the navigation graph of a level
+     * @param level The level, once its ladders have settled
+     * @param width The width of the window
+     * @param height The height of the window
+     */
+    private NavGraph(Level level, double width, double height) {
+        Mario mario = level.getMario();
+        speed = mario.gethSpeed();
+        climbSpeed = mario.getvSpeed();
+        jumpVelocity = mario.getJUMP_VELOCITY();
+        gravity = mario.getGRAVITY();
+        maxVelocity = mario.getMaxVelocity();
+        maxAirFrames = MAX_AIR_SECONDS * level.getFPS();
+        halfWidth = mario.getHalfWidth();
+        halfHeight = mario.getHalfHeight();
+        jumpRise = findJumpRise();
+
+        this.width = width;
+        this.height = height;
+        ArrayList<Platform> platforms = level.getPlatforms();
+        collisionError = platforms.isEmpty() ? 0 : platforms.get(0).getCOLLISION_ERROR();
+
+        readSurfaces(platforms);
+        readLadders(level.getLadders());
+
+        // Points of each surface which become vertices, starting with the ends of the surface and the ladders
+        ArrayList<ArrayList<Double>> points = new ArrayList<ArrayList<Double>>();
+        for (int s = 0; s < surfaceCount; s++) {
+            points.add(new ArrayList<Double>());
+            points.get(s).add(getLow(s));
+            points.get(s).add(getHigh(s));
+        }
+        for (int l = 0; l < ladderXs.length; l++) {
+            addLadderPoint(points, ladderXs[l], ladderTops[l]);
+            addLadderPoint(points, ladderXs[l], ladderBottoms[l]);
+        }
+
+        // Jumps from points spread along each surface, and drops off each end which is not a wall
+        ArrayList<Arc> arcs = new ArrayList<Arc>();
+        GroundIndex ground = level.getGround();
+        for (int s = 0; s < surfaceCount; s++) {
+            double low = getLow(s);
+            double high = getHigh(s);
+            for (double x = low + END_MARGIN; x < high - END_MARGIN + JUMP_SPACING; x += JUMP_SPACING) {
+                double from = Math.min(x, high - END_MARGIN);
+                points.get(s).add(from);
+                addArc(arcs, ground, s, from, -1, true);
+                addArc(arcs, ground, s, from, 1, true);
+            }
+            if (low > 0) {
+                addArc(arcs, ground, s, low, -1, false);
+            }
+            if (high < width) {
+                addArc(arcs, ground, s, high, 1, false);
+            }
+        }
+        for (Arc arc : arcs) {
+            points.get(arc.toSurface).add(arc.toX);
+        }
+
+        buildVertices(points);
+        buildEdges(arcs);
+    }
+
+    /**
+     * Helper method to find how high mario rises above the ground in a jump, frame by frame in the same way as the game
+     * @return The height of a jump in pixels
+     */
+    private double findJumpRise() {
+        double velocity = jumpVelocity;
+        double y = velocity;
+        double highest = y;
+        while (velocity < 0) {
+            velocity += gravity;
+            y += velocity;
+            highest = Math.min(highest, y);
+        }
+        return -highest;
+    }
+
+    /**
+     * Helper method to merge the tops of platforms at the same height which overlap into surfaces
+     * @param platforms All platforms in the level
+     */
+    private void readSurfaces(ArrayList<Platform> platforms) {
+        ArrayList<Platform> sorted = new ArrayList<Platform>(platforms);
+        sorted.sort((p1, p2) -> p1.getTop() != p2.getTop() ? Double.compare(p1.getTop(), p2.getTop())
+                : Double.compare(p1.getLeft(), p2.getLeft()));
+
+        surfaceTops = new double[sorted.size()];
+        surfaceLefts = new double[sorted.size()];
+        surfaceRights = new double[sorted.size()];
+        surfaceCount = 0;
+        for (Platform p : sorted) {
+            int last = surfaceCount - 1;
+            if (last >= 0 && surfaceTops[last] == p.getTop() && p.getLeft() <= surfaceRights[last]) {
+                surfaceRights[last] = Math.max(surfaceRights[last], p.getRight());
+            } else {
+                surfaceTops[surfaceCount] = p.getTop();
+                surfaceLefts[surfaceCount] = p.getLeft();
+                surfaceRights[surfaceCount] = p.getRight();
+                surfaceCount++;
+            }
+        }
+    }
+
+    /**
+     * Helper method to copy the span of every ladder
+     * @param ladders All ladders in the level, once they have settled
+     */
+    private void readLadders(ArrayList<Ladder> ladders) {
+        int n = ladders.size();
+        ladderXs = new double[n];
+        ladderLefts = new double[n];
+        ladderRights = new double[n];
+        ladderTops = new double[n];
+        ladderBottoms = new double[n];
+        for (int l = 0; l < n; l++) {
+            Ladder ladder = ladders.get(l);
+            ladderXs[l] = ladder.getX();
+            ladderLefts[l] = ladder.getLeft();
+            ladderRights[l] = ladder.getRight();
+            ladderTops[l] = ladder.getTop();
+            ladderBottoms[l] = ladder.getBottom();
+        }
+    }
+
+    /**
+     * Helper method to add a point at the end of a ladder to the surface there, if there is one
+     * @param points The points of each surface
+     * @param x The x coordinate of the ladder
+     * @param y The y coordinate of the end of the ladder
+     */
+    private void addLadderPoint(ArrayList<ArrayList<Double>> points, double x, double y) {
+        int s = findSurface(x, y);
+        if (s >= 0) {
+            points.get(s).add(x);
+        }
+    }
+
+    /**
+     * Helper method to simulate a jump or drop, adding it to the list of arcs if it lands on a different surface
+     * @param arcs The arcs found so far
+     * @param ground The index of all platform surfaces in the level
+     * @param surface The surface mario starts on
+     * @param x The x coordinate mario starts from
+     * @param direction The direction held, -1 for left or 1 for right
+     * @param jump True to jump, false to walk off the end of the surface
+     */
+    private void addArc(ArrayList<Arc> arcs, GroundIndex ground, int surface, double x, int direction, boolean jump) {
+        int first = sampleCount;
+        double fromX = x;
+        double y = surfaceTops[surface] - halfHeight;
+        double velocity = 0;
+        boolean airborne = false;
+
+        // Mario can not jump while climbing a ladder, unless he is at the top of it
+        int ladder = findLadder(x, y, y + halfHeight);
+        boolean climbing = ladder >= 0;
+        if (jump && climbing && y + halfHeight != ladderTops[ladder]) {
+            return;
+        }
+
+        // On the first frame mario moves, then takes off if jumping
+        x = move(x, direction);
+        if (jump) {
+            velocity = jumpVelocity;
+            y += velocity;
+            airborne = true;
+        }
+        addSample(x, y);
+
+        // Falling is simulated before ladders are checked and mario moves, in the same order as the game
+        for (int frame = 1; frame < maxAirFrames && y - halfHeight <= height; frame++) {
+            if (!climbing) {
+                Platform p = ground.findGround(x, y + halfHeight);
+                if (p == null) {
+                    velocity = Math.min(velocity + gravity, maxVelocity);
+                    y += velocity;
+                    airborne = true;
+                } else if (airborne) {
+                    int landing = findSurface(x, p.getTop());
+                    if (landing < 0 || landing == surface) {
+                        break;
+                    }
+
+                    Arc arc = new Arc();
+                    arc.kind = jump ? JUMP : DROP;
+                    arc.direction = direction;
+                    arc.fromSurface = surface;
+                    arc.fromX = fromX;
+                    arc.toSurface = landing;
+                    arc.toX = x;
+                    arc.frames = frame;
+                    arc.sampleFirst = first;
+                    arc.sampleEnd = sampleCount;
+                    arcs.add(arc);
+                    return;
+                } else if (frame > MAX_DROP_WALK_FRAMES) {
+                    break;
+                }
+            }
+
+            // Touching a ladder stops mario falling until he moves off it
+            climbing = findLadder(x, y, y + halfHeight) >= 0;
+            if (climbing) {
+                velocity = 0;
+            }
+            x = move(x, direction);
+            addSample(x, y);
+        }
+
+        // The move never landed anywhere new
+        sampleCount = first;
+    }
+
+    /**
+     * Helper method to move mario one step sideways, without leaving the window
+     * @param x The x coordinate of mario
+     * @param direction The direction to move, -1 for left or 1 for right
+     * @return The new x coordinate
+     */
+    private double move(double x, int direction) {
+        return Math.max(0, Math.min(x + direction * speed, width));
+    }
+
+    /**
+     * Helper method to record where mario is in a frame of a jump or drop
+     * @param x The x coordinate of mario
+     * @param y The y coordinate of mario
+     */
+    private void addSample(double x, double y) {
+        if (sampleCount == sampleXs.length) {
+            sampleXs = Arrays.copyOf(sampleXs, sampleCount * 2);
+            sampleYs = Arrays.copyOf(sampleYs, sampleCount * 2);
+        }
+        sampleXs[sampleCount] = x;
+        sampleYs[sampleCount] = y;
+        sampleCount++;
+    }
+
+    /**
+     * Helper method to turn the points of each surface into vertices, sorted by x with duplicates removed
+     * @param points The points of each surface
+     */
+    private void buildVertices(ArrayList<ArrayList<Double>> points) {
+        int total = 0;
+        for (ArrayList<Double> surfacePoints : points) {
+            total += surfacePoints.size();
+        }
+
+        vertexSurfaces = new int[total];
+        vertexXs = new double[total];
+        surfaceFirst = new int[surfaceCount];
+        surfaceEnd = new int[surfaceCount];
+        vertexCount = 0;
+        for (int s = 0; s < surfaceCount; s++) {
+            ArrayList<Double> surfacePoints = points.get(s);
+            surfacePoints.sort(null);
+            surfaceFirst[s] = vertexCount;
+            for (int i = 0; i < surfacePoints.size(); i++) {
+                if (i == 0 || !surfacePoints.get(i).equals(surfacePoints.get(i - 1))) {
+                    vertexSurfaces[vertexCount] = s;
+                    vertexXs[vertexCount] = surfacePoints.get(i);
+                    vertexCount++;
+                }
+            }
+            surfaceEnd[s] = vertexCount;
+        }
+        vertexSurfaces = Arrays.copyOf(vertexSurfaces, vertexCount);
+        vertexXs = Arrays.copyOf(vertexXs, vertexCount);
+    }
+
+    /**
+     * Helper method to build the ladder, jump and drop edges, grouped by the vertex they leave from
+     * @param arcs Every jump and drop which lands on a different surface
+     */
+    private void buildEdges(ArrayList<Arc> arcs) {
+        // Every ladder joining two surfaces gives an edge up and an edge down
+        int ladders = ladderXs.length;
+        ladderTopVertices = new int[ladders];
+        ladderBottomVertices = new int[ladders];
+        int edges = arcs.size();
+        for (int l = 0; l < ladders; l++) {
+            ladderTopVertices[l] = findVertex(findSurface(ladderXs[l], ladderTops[l]), ladderXs[l]);
+            ladderBottomVertices[l] = findVertex(findSurface(ladderXs[l], ladderBottoms[l]), ladderXs[l]);
+            if (ladderTopVertices[l] >= 0 && ladderBottomVertices[l] >= 0) {
+                edges += 2;
+            }
+        }
+
+        int[] from = new int[edges];
+        int[] to = new int[edges];
+        int[] kinds = new int[edges];
+        int[] directions = new int[edges];
+        double[] costs = new double[edges];
+        int[] samples = new int[edges];
+        int e = 0;
+        for (int l = 0; l < ladders; l++) {
+            int top = ladderTopVertices[l];
+            int bottom = ladderBottomVertices[l];
+            if (top >= 0 && bottom >= 0) {
+                double frames = (ladderBottoms[l] - ladderTops[l]) / climbSpeed;
+                from[e] = bottom;
+                to[e] = top;
+                kinds[e] = LADDER_UP;
+                costs[e] = frames;
+                samples[e] = -1;
+                e++;
+                from[e] = top;
+                to[e] = bottom;
+                kinds[e] = LADDER_DOWN;
+                costs[e] = frames;
+                samples[e] = -1;
+                e++;
+            }
+        }
+        for (int a = 0; a < arcs.size(); a++) {
+            Arc arc = arcs.get(a);
+            from[e] = findVertex(arc.fromSurface, arc.fromX);
+            to[e] = findVertex(arc.toSurface, arc.toX);
+            kinds[e] = arc.kind;
+            directions[e] = arc.direction;
+            costs[e] = arc.frames;
+            samples[e] = a;
+            e++;
+        }
+
+        // Count the edges leaving each vertex, then place each edge after those of the vertices before its own
+        edgeFirst = new int[vertexCount + 1];
+        for (int i = 0; i < edges; i++) {
+            edgeFirst[from[i] + 1]++;
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            edgeFirst[v + 1] += edgeFirst[v];
+        }
+        int[] next = Arrays.copyOf(edgeFirst, vertexCount);
+
+        edgeTargets = new int[edges];
+        edgeKinds = new int[edges];
+        edgeDirections = new int[edges];
+        edgeCosts = new double[edges];
+        edgeSampleFirst = new int[edges];
+        edgeSampleEnd = new int[edges];
+        edgeBoxes = new double[edges * 4];
+        for (int i = 0; i < edges; i++) {
+            int slot = next[from[i]]++;
+            edgeTargets[slot] = to[i];
+            edgeKinds[slot] = kinds[i];
+            edgeDirections[slot] = directions[i];
+            edgeCosts[slot] = costs[i];
+            if (samples[i] >= 0) {
+                Arc arc = arcs.get(samples[i]);
+                edgeSampleFirst[slot] = arc.sampleFirst;
+                edgeSampleEnd[slot] = arc.sampleEnd;
+                setBox(slot, arc.sampleFirst, arc.sampleEnd);
+            }
+        }
+        sampleXs = Arrays.copyOf(sampleXs, sampleCount);
+        sampleYs = Arrays.copyOf(sampleYs, sampleCount);
+    }
+
+    /**
+     * Helper method to work out the box mario covers over a whole jump or drop
+     * @param edge The edge of the jump or drop
+     * @param first The first sample of the move
+     * @param end One past the last sample of the move
+     */
+    private void setBox(int edge, int first, int end) {
+        double left = Double.POSITIVE_INFINITY;
+        double top = Double.POSITIVE_INFINITY;
+        double right = Double.NEGATIVE_INFINITY;
+        double bottom = Double.NEGATIVE_INFINITY;
+        for (int k = first; k < end; k++) {
+            left = Math.min(left, sampleXs[k] - halfWidth);
+            right = Math.max(right, sampleXs[k] + halfWidth);
+            top = Math.min(top, sampleYs[k] - halfHeight);
+            bottom = Math.max(bottom, sampleYs[k] + halfHeight);
+        }
+        edgeBoxes[edge * 4] = left;
+        edgeBoxes[edge * 4 + 1] = top;
+        edgeBoxes[edge * 4 + 2] = right;
+        edgeBoxes[edge * 4 + 3] = bottom;
+    }
+
+    /**
+     * Find the fastest way for mario to reach a goal from where he is, searching the graph with A*. Mario must be
+     * standing on a surface or climbing a ladder. A goal counts as reached once mario's box would touch the goal's box,
+     * either while walking along a surface (jumping on the spot if the goal is above him), or during a jump or drop
+     * @param mario Mario, where he is now
+     * @param goal The game object to reach
+     * @param path The path to fill with the steps to the goal, which also holds the working arrays of the search
+     * @return True if a path was found, false if the goal can not be reached or mario is in the air
+     */
+    public boolean findPath(Mario mario, GameObject goal, Path path) {
+        double x = mario.getX();
+        double bottom = mario.getBottom();
+        int start = vertexCount;
+        path.start(vertexCount + 1);
+        path.goalLeft = goal.getLeft();
+        path.goalTop = goal.getTop();
+        path.goalRight = goal.getRight();
+        path.goalBottom = goal.getBottom();
+
+        int surface = findSurface(x, bottom);
+        int ladder = surface < 0 && mario.isClimbing() ? findLadder(x, mario.getY(), bottom) : -1;
+        if (surface >= 0) {
+            // Start by walking to the nearest vertex on either side
+            reach(path, start, surface, x, 0);
+            int right = findRight(surface, x);
+            if (right < surfaceEnd[surface]) {
+                visit(path, right, start, WALK, 0, (vertexXs[right] - x) / speed);
+            }
+            if (right > surfaceFirst[surface]) {
+                visit(path, right - 1, start, WALK, 0, (x - vertexXs[right - 1]) / speed);
+            }
+        } else if (ladder >= 0) {
+            // Start by climbing to either end of the ladder
+            if (ladderTopVertices[ladder] >= 0) {
+                visit(path, ladderTopVertices[ladder], start, LADDER_UP, 0,
+                        (bottom - ladderTops[ladder]) / climbSpeed);
+            }
+            if (ladderBottomVertices[ladder] >= 0) {
+                visit(path, ladderBottomVertices[ladder], start, LADDER_DOWN, 0,
+                        (ladderBottoms[ladder] - bottom) / climbSpeed);
+            }
+        } else {
+            return false;
+        }
+
+        while (path.heapSize > 0) {
+            int v = path.pop();
+            if (path.heapKeys[path.heapSize] >= path.bestCost) {
+                break;
+            }
+            if (path.closed[v] == path.stamp) {
+                continue;
+            }
+            path.closed[v] = path.stamp;
+
+            double cost = path.costs[v];
+            int s = vertexSurfaces[v];
+            reach(path, v, s, vertexXs[v], cost);
+
+            // Walk to the neighbouring vertices
+            if (v > surfaceFirst[s]) {
+                visit(path, v - 1, v, WALK, 0, cost + (vertexXs[v] - vertexXs[v - 1]) / speed);
+            }
+            if (v + 1 < surfaceEnd[s]) {
+                visit(path, v + 1, v, WALK, 0, cost + (vertexXs[v + 1] - vertexXs[v]) / speed);
+            }
+
+            // Climb, jump or drop, checking if jumps and drops pass through the goal on the way
+            for (int e = edgeFirst[v]; e < edgeFirst[v + 1]; e++) {
+                visit(path, edgeTargets[e], v, edgeKinds[e], edgeDirections[e], cost + edgeCosts[e]);
+                if (edgeKinds[e] == JUMP || edgeKinds[e] == DROP) {
+                    int frames = findHit(path, e);
+                    if (frames > 0 && cost + frames < path.bestCost) {
+                        setBest(path, cost + frames, v, edgeKinds[e], edgeDirections[e], vertexXs[v],
+                                vertexSurfaces[edgeTargets[e]]);
+                    }
+                }
+            }
+        }
+
+        if (path.bestCost == Double.POSITIVE_INFINITY) {
+            return false;
+        }
+        buildSteps(path, start, x);
+        return true;
+    }
+
+    /**
+     * Helper method to update the best way to a vertex, if a new way is cheaper than any found before
+     * @param path The path being searched
+     * @param node The vertex reached
+     * @param parent The node it was reached from
+     * @param kind The kind of move from the parent
+     * @param direction The direction held during the move
+     * @param cost The number of frames to reach the vertex this way
+     */
+    private void visit(Path path, int node, int parent, int kind, int direction, double cost) {
+        if (path.seen[node] == path.stamp && path.costs[node] <= cost) {
+            return;
+        }
+        path.seen[node] = path.stamp;
+        path.costs[node] = cost;
+        path.parents[node] = parent;
+        path.parentKinds[node] = kind;
+        path.parentDirections[node] = direction;
+
+        // Mario never moves sideways faster than his walking speed, so this estimate never overestimates
+        double x = vertexXs[node];
+        double gap = Math.max(0, Math.max(path.goalLeft - halfWidth - x, x - path.goalRight - halfWidth));
+        path.push(node, cost + gap / speed);
+    }
+
+    /**
+     * Helper method to check if the goal can be reached by walking along a surface (and jumping on the spot), and
+     * if so, update the best way to the goal
+     * @param path The path being searched
+     * @param node The node mario walks from
+     * @param surface The surface the node is on
+     * @param x The x coordinate of the node
+     * @param cost The number of frames taken to reach the node
+     */
+    private void reach(Path path, int node, int surface, double x, double cost) {
+        // Mario's box, stretched up by the height of a jump, must overlap the goal
+        double top = surfaceTops[surface];
+        if (top - 2 * halfHeight - jumpRise >= path.goalBottom || path.goalTop >= top) {
+            return;
+        }
+
+        // Aim a step inside the edge of the range which touches the goal, since mario walks in steps
+        double low = Math.max(path.goalLeft - halfWidth + speed, getLow(surface));
+        double high = Math.min(path.goalRight + halfWidth - speed, getHigh(surface));
+        if (low > high) {
+            return;
+        }
+        double target = Math.max(low, Math.min(x, high));
+        double total = cost + Math.abs(target - x) / speed;
+        if (total < path.bestCost) {
+            setBest(path, total, node, REACH, 0, target, surface);
+        }
+    }
+
+    /**
+     * Helper method to find the first frame of a jump or drop in which mario touches the goal
+     * @param path The path being searched
+     * @param edge The edge of the jump or drop
+     * @return The number of frames into the move mario first touches the goal, or 0 if he never does
+     */
+    private int findHit(Path path, int edge) {
+        // Most moves pass nowhere near the goal, which the box around the whole move shows straight away
+        int box = edge * 4;
+        if (edgeBoxes[box] >= path.goalRight || path.goalLeft >= edgeBoxes[box + 2]
+                || edgeBoxes[box + 1] >= path.goalBottom || path.goalTop >= edgeBoxes[box + 3]) {
+            return 0;
+        }
+
+        for (int k = edgeSampleFirst[edge]; k < edgeSampleEnd[edge]; k++) {
+            if (sampleXs[k] - halfWidth < path.goalRight && path.goalLeft < sampleXs[k] + halfWidth
+                    && sampleYs[k] - halfHeight < path.goalBottom && path.goalTop < sampleYs[k] + halfHeight) {
+                return k - edgeSampleFirst[edge] + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Helper method to record a new best way of reaching the goal
+     * @param path The path being searched
+     * @param cost The number of frames to reach the goal
+     * @param parent The node of the last step
+     * @param kind The kind of the last step
+     * @param direction The direction held during the last step
+     * @param x The x coordinate the last step starts from
+     * @param surface The surface the last step ends on
+     */
+    private static void setBest(Path path, double cost, int parent, int kind, int direction, double x, int surface) {
+        path.bestCost = cost;
+        path.bestParent = parent;
+        path.bestKind = kind;
+        path.bestDirection = direction;
+        path.bestX = x;
+        path.bestSurface = surface;
+    }
+
+    /**
+     * Helper method to fill in the steps of a path once the search has finished, by following the best way to each
+     * node back from the goal. Walks between vertices are left out, since every step starts by walking
+     * @param path The path searched
+     * @param start The start node
+     * @param startX The x coordinate of mario at the start
+     */
+    private void buildSteps(Path path, int start, double startX) {
+        path.frames = path.bestCost;
+        path.addStep(path.bestKind, path.bestX, path.bestDirection, surfaceTops[path.bestSurface]);
+        for (int node = path.bestParent; node != start; node = path.parents[node]) {
+            if (path.parentKinds[node] != WALK) {
+                int parent = path.parents[node];
+                path.addStep(path.parentKinds[node], parent == start ? startX : vertexXs[parent],
+                        path.parentDirections[node], surfaceTops[vertexSurfaces[node]]);
+            }
+        }
+
+        // Steps were added from the goal back, so reverse them
+        for (int i = 0, j = path.length - 1; i < j; i++, j--) {
+            int kind = path.kinds[i];
+            double x = path.xs[i];
+            int direction = path.directions[i];
+            double top = path.tops[i];
+            path.kinds[i] = path.kinds[j];
+            path.xs[i] = path.xs[j];
+            path.directions[i] = path.directions[j];
+            path.tops[i] = path.tops[j];
+            path.kinds[j] = kind;
+            path.xs[j] = x;
+            path.directions[j] = direction;
+            path.tops[j] = top;
+        }
+    }
+
+    /**
+     * Check if mario is in the air, rather than standing on a surface or climbing a ladder. Paths can only be found
+     * from the ground or a ladder
+     * @param mario Mario, where he is now
+     * @return True if mario is in the air
+     */
+    public boolean isInAir(Mario mario) {
+        return findSurface(mario.getX(), mario.getBottom()) < 0
+                && !(mario.isClimbing() && findLadder(mario.getX(), mario.getY(), mario.getBottom()) >= 0);
+    }
+
+    /**
+     * Helper method to find the surface under a point, within the platforms' collision error
+     * @param x The x coordinate of the point
+     * @param bottom The y coordinate of the point
+     * @return The index of the surface, or -1 if there is none
+     */
+    private int findSurface(double x, double bottom) {
+        for (int s = 0; s < surfaceCount; s++) {
+            if (Math.abs(surfaceTops[s] - bottom) <= collisionError && x >= surfaceLefts[s] && x <= surfaceRights[s]) {
+                return s;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Helper method to find the ladder mario is on, using the same test as mario does
+     * @param x The x coordinate of mario
+     * @param y The y coordinate of the centre of mario
+     * @param bottom The y coordinate of the bottom of mario
+     * @return The index of the ladder, or -1 if mario is not on one
+     */
+    private int findLadder(double x, double y, double bottom) {
+        for (int l = 0; l < ladderXs.length; l++) {
+            if (x >= ladderLefts[l] && x <= ladderRights[l] && bottom >= ladderTops[l] - 1 && y <= ladderBottoms[l]) {
+                return l;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Helper method to find the vertex at a point of a surface
+     * @param surface The surface, or -1 if there is none
+     * @param x The x coordinate of the vertex
+     * @return The index of the vertex, or -1 if there is none
+     */
+    private int findVertex(int surface, double x) {
+        if (surface < 0) {
+            return -1;
+        }
+        int v = findRight(surface, x);
+        return v < surfaceEnd[surface] && vertexXs[v] == x ? v : -1;
+    }
+
+    /**
+     * Helper method to find the first vertex of a surface at or to the right of a point, with a binary search
+     * @param surface The surface
+     * @param x The x coordinate of the point
+     * @return The index of the vertex, or the end of the surface's vertices if there is none
+     */
+    private int findRight(int surface, double x) {
+        int low = surfaceFirst[surface];
+        int high = surfaceEnd[surface];
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (vertexXs[middle] < x) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Helper method to get the lowest x coordinate mario can stand at on a surface
+     * @param surface The surface
+     * @return The left end of the surface, or the left edge of the window if it is further right
+     */
+    private double getLow(int surface) {
+        return Math.max(surfaceLefts[surface], 0);
+    }
+
+    /**
+     * Helper method to get the highest x coordinate mario can stand at on a surface
+     * @param surface The surface
+     * @return The right end of the surface, or the right edge of the window if it is further left
+     */
+    private double getHigh(int surface) {
+        return Math.min(surfaceRights[surface], width);
+    }
+
+    /**
+     * Get the number of vertices in the graph
+     * @return The number of vertices
+     */
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Get the number of ladder, jump and drop edges in the graph. Walks along surfaces are not counted
+     * @return The number of edges
+     */
+    public int getEdgeCount() {
+        return edgeTargets.length;
+    }
+}
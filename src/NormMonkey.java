@@ -1,28 +1,27 @@
-import bagel.Image;
-
 import java.util.ArrayList;
-import java.util.Properties;
 
 /**
  * Represents a normalmonkey in the game. They are only able to walk paths.
  * Extends the Monkey class which has shooting behaviour and path walking methods
  */
 public class NormMonkey extends Monkey {
+    // Images the monkey is drawn with when walking left and right
+    public static final String LEFT_IMAGE = "res/normal_monkey_left.png";
+    public static final String RIGHT_IMAGE = "res/normal_monkey_right.png";
+
     /**
      * Constructs a new normal monkey at a specified start position, with a direction and an array list for the
      * path it will follow. Reads and loads images.
-     * @param x The starting x coordinate of the monkey
-     * @param y The starting y coordinate of the monkey
-     * @param right The direction the monkey is facing (true if right, false if left)
-     * @param path An array of Integers representing the path the monkey will follow
+     * @param config The starting position, direction and path of the monkey
+     * @param tickRate The number of simulation ticks per second
      */
-    public NormMonkey(double x, double y, boolean right, ArrayList<Integer> path) {
-        super(x, y, right, path);
-        setLeftImg(new Image("res/normal_monkey_left.png"));
-        setRightImg(new Image("res/normal_monkey_right.png"));
+    public NormMonkey(MonkeyConfig config, int tickRate) {
+        super(config, tickRate);
+        setLeftImg(Sprite.load(LEFT_IMAGE));
+        setRightImg(Sprite.load(RIGHT_IMAGE));
 
         // Determine correct starting image from its direction
-        if (right) {
+        if (config.isRight()) {
             setImg(getRightImg());
         } else {
             setImg(getLeftImg());
@@ -30,41 +29,16 @@ public class NormMonkey extends Monkey {
     }
 
     /**
-     * Read a list of normal monkey from the game properties file and return them as an array list
-     * @param gameProps The game properties file to read information from
+     * Create a list of normal monkeys for a specified level and return them as an array list
+     * @param level The layout of the level, read from the game properties file
+     * @param tickRate The number of simulation ticks per second
      * @return An array list of all normal monkeys
      */
-    public static ArrayList<NormMonkey> readNormMonkeys(ArrayList<NormMonkey> normMonkeys, Properties gameProps) {
-        normMonkeys = new ArrayList<NormMonkey>();
-
-        int n = Integer.parseInt(gameProps.getProperty("normalMonkey.level2.count"));
-
-        String points;
-        double x, y;
-        boolean right;
-        ArrayList<Integer> path;
-        for (int i = 1; i <= n; i++) {
-
-            // Read x and y coordinates using string manipulation
-            points = gameProps.getProperty("normalMonkey.level2." + i);
-            x = Double.parseDouble(points.substring(0, points.indexOf(",")));
-            y = Double.parseDouble(points.substring(points.indexOf(",") + 1, points.indexOf(";")));
-
-            points = points.substring(points.indexOf(";") + 1);
-
-            // Read the initial direction of the monkey
-            if (points.substring(0, points.indexOf(";")).equals("right")) {
-                right = true;
-            } else {
-                right = false;
-            }
-
-            points = points.substring(points.indexOf(";") + 1);
-
-            // Finally, read the path the monkey will follow
-            path = readPath(points);
+    public static ArrayList<NormMonkey> readNormMonkeys(LevelConfig level, int tickRate) {
+        ArrayList<NormMonkey> normMonkeys = new ArrayList<NormMonkey>();
 
-            normMonkeys.add(new NormMonkey(x,y,right,path));
+        for (MonkeyConfig m : level.getNormalMonkeys()) {
+            normMonkeys.add(new NormMonkey(m, tickRate));
         }
 
         return normMonkeys;
@@ -0,0 +1,123 @@
+import java.util.ArrayList;
+import java.util.Locale;
+
+/**
+ * Measures how long each phase of a frame takes, separately for every level. The game marks the end of each phase
+ * as it goes, and the time since the previous mark is recorded into a histogram for that phase and level, so each
+ * phase only costs a single clock read. A disabled profiler does nothing at all.
+ * Level 0 is used for the home and end screens.
+ */
+public class PhaseProfiler {
+    public static final int BACKGROUND = 0;
+    public static final int OBJECT_UPDATE = 1;
+    public static final int CHARACTER_UPDATE = 2;
+    public static final int INPUT = 3;
+    public static final int LOSE_CHECK = 4;
+    public static final int HUD = 5;
+    public static final int LEVEL_RENDER = 6;
+    public static final int RENDER_SORT = 7;
+    public static final int RENDER_SUBMIT = 8;
+
+    private static final String[] PHASE_NAMES = {
+            "background", "objectUpdate", "characterUpdate", "input", "loseCheck", "hud", "levelRender", "renderSort",
+            "renderSubmit"
+    };
+
+    /**
+     * A profiler which records nothing, used when profiling is turned off
+     */
+    public static final PhaseProfiler DISABLED = new PhaseProfiler(false);
+
+    private final boolean enabled;
+
+    // Histograms of every phase, for each level
+    private final ArrayList<Histogram[]> levels = new ArrayList<Histogram[]>();
+
+    // Time of the last mark
+    private long lastMark;
+
+    /**
+     * Creates a new profiler
+     * @param enabled True to record timings, false to create a profiler which does nothing
+     */
+    public PhaseProfiler(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Start timing the first phase of a sequence of phases
+     */
+    public void start() {
+        if (enabled) {
+            lastMark = System.nanoTime();
+        }
+    }
+
+    /**
+     * Mark the end of a phase, recording the time since the last mark (or start) as the duration of the phase
+     * @param level The level being played, or 0 for the home and end screens
+     * @param phase The phase which just ended, using the constants of this class
+     */
+    public void mark(int level, int phase) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        histogram(level, phase).record(now - lastMark);
+        lastMark = now;
+    }
+
+    /**
+     * Writes the 50th, 99th and 99.9th percentile and maximum duration of every phase of every level to a CSV file,
+     * in microseconds. Phases which were never recorded are left out
+     * @param csvFile The path to write the CSV file to
+     */
+    public void writeCsv(String csvFile) {
+        if (!enabled) {
+            return;
+        }
+
+        StringBuilder csv = new StringBuilder("level,phase,count,p50_us,p99_us,p99.9_us,max_us\n");
+        for (int level = 0; level < levels.size(); level++) {
+            for (int phase = 0; phase < PHASE_NAMES.length; phase++) {
+                Histogram histogram = levels.get(level)[phase];
+                if (histogram.getCount() == 0) {
+                    continue;
+                }
+                csv.append(String.format(Locale.ROOT, "%d,%s,%d,%.3f,%.3f,%.3f,%.3f%n", level, PHASE_NAMES[phase],
+                        histogram.getCount(), histogram.percentile(0.5) / 1000.0,
+                        histogram.percentile(0.99) / 1000.0, histogram.percentile(0.999) / 1000.0,
+                        histogram.getMax() / 1000.0));
+            }
+        }
+
+        if (IOUtils.writeFile(csvFile, csv.toString().getBytes())) {
+            System.out.println("Frame timings written to " + csvFile);
+        }
+    }
+
+    /**
+     * Check if this profiler records timings
+     * @return True if enabled, false if not
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Helper method to get the histogram of a phase in a level, creating the histograms of new levels
+     * @param level The level number
+     * @param phase The phase
+     * @return The histogram of the phase
+     */
+    private Histogram histogram(int level, int phase) {
+        while (levels.size() <= level) {
+            Histogram[] histograms = new Histogram[PHASE_NAMES.length];
+            for (int i = 0; i < histograms.length; i++) {
+                histograms[i] = new Histogram();
+            }
+            levels.add(histograms);
+        }
+        return levels.get(level)[phase];
+    }
+}
@@ -0,0 +1,179 @@
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/**
+ * Holds every object in a level which is subject to gravity, and simulates their falling each frame. An object which
+ * is not walking and comes to rest (a frame leaves its position and velocity unchanged, which happens once it is
+ * grounded) is put to sleep, and is no longer simulated at all, since platforms never move and so nothing can make it
+ * fall again by itself. Sleeping objects only wake up when told to (for example when they are hit).
+ * Only awake objects are stored in the list which is looped over every frame, so resting objects cost nothing.
+ * Each object is stored both as a GameObject and as a Fallable, at the same index of two lists, so no casts are needed.
+ */
+public class PhysicsSet {
+    // Height of the level. Objects which fall below it have nothing left to land on
+    private final double height;
+
+    // Every object in the set, used for counting
+    private final ArrayList<GameObject> bodies = new ArrayList<GameObject>();
+
+    // Objects which are simulated every frame
+    private final ArrayList<GameObject> awake = new ArrayList<GameObject>();
+    private final ArrayList<Fallable> awakeFallables = new ArrayList<Fallable>();
+
+    /**
+     * Creates a new empty physics set
+     * @param height The height of the level in pixels
+     */
+    public PhysicsSet(double height) {
+        this.height = height;
+    }
+
+    /**
+     * Add an object to the set
+     * @param body The object to add
+     * @param sleeping True if the object is already resting, false if it should be simulated from the next frame
+     * @param <T> The type of the object, which must be a game object subject to gravity
+     */
+    public <T extends GameObject & Fallable> void add(T body, boolean sleeping) {
+        bodies.add(body);
+        body.sleeping = true;
+        body.airborne = false;
+        if (!sleeping) {
+            wake(body);
+        }
+    }
+
+    /**
+     * Add every object in a list to the set, all awake
+     * @param bodies The objects to add
+     * @param <T> The type of the objects, which must be game objects subject to gravity
+     */
+    public <T extends GameObject & Fallable> void addAll(ArrayList<T> bodies) {
+        for (T body : bodies) {
+            add(body, false);
+        }
+    }
+
+    /**
+     * Wake an object up, so it is simulated again from the next frame. Does nothing if the object is already awake
+     * @param body The object to wake
+     * @param <T> The type of the object, which must be a game object subject to gravity
+     */
+    public <T extends GameObject & Fallable> void wake(T body) {
+        if (body.sleeping) {
+            body.sleeping = false;
+            awake.add(body);
+            awakeFallables.add(body);
+        }
+    }
+
+    /**
+     * Simulate one frame of falling for every awake object. Objects which are not walking and have come to rest are
+     * put to sleep, as are objects which have fallen out of the bottom of the level (they can never land). Destroyed objects
+     * are dropped from the set
+     * @param platforms All platforms in the level
+     * @param ground The index of all platform surfaces in the level
+     */
+    public void update(ArrayList<Platform> platforms, GroundIndex ground) {
+        // Loop backwards, so removing the current object (by moving the last object into its place) is safe
+        for (int i = awake.size() - 1; i >= 0; i--) {
+            GameObject body = awake.get(i);
+            if (body.isDestroyed()) {
+                bodies.remove(body);
+                removeAwake(i);
+                continue;
+            }
+
+            Fallable fallable = awakeFallables.get(i);
+            double y = body.getY();
+            double velocity = body.getVelocity();
+            body.airborne = fallable.fall(platforms, ground, body);
+
+            // Each frame only depends on the position and velocity, so an unchanged frame will repeat forever
+            boolean resting = body.getY() == y && body.getVelocity() == velocity;
+            if (resting && !fallable.isWalking() || body.getTop() > height) {
+                body.sleeping = true;
+                removeAwake(i);
+            }
+        }
+    }
+
+    /**
+     * Get the number of objects being simulated every frame
+     * @return The number of awake objects
+     */
+    public int getAwakeCount() {
+        return awake.size();
+    }
+
+    /**
+     * Get the number of resting objects which are not being simulated. Objects destroyed while asleep are not counted
+     * @return The number of sleeping objects
+     */
+    public int getSleepingCount() {
+        int count = 0;
+        for (GameObject body : bodies) {
+            if (body.sleeping && !body.isDestroyed()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Write which objects are in the set, and which of them are awake (in the order they are simulated), into a
+     * snapshot. Objects are written by their index in the level's snapshot order
+     * @param buffer The buffer to write to, which must have at least getStateSize() bytes left
+     */
+    public void writeState(ByteBuffer buffer) {
+        buffer.putInt(bodies.size());
+        for (GameObject body : bodies) {
+            buffer.putInt(body.stateIndex);
+        }
+        buffer.putInt(awake.size());
+        for (GameObject body : awake) {
+            buffer.putInt(body.stateIndex);
+        }
+    }
+
+    /**
+     * Read which objects are in the set, and which are awake, back from a snapshot written by writeState. The sleeping
+     * and airborne flags of each object are part of its own state, so are not read here
+     * @param buffer The buffer to read from
+     * @param objects Every object of the level, in its snapshot order. Objects in the set must be subject to gravity
+     */
+    public void readState(ByteBuffer buffer, GameObject[] objects) {
+        bodies.clear();
+        for (int i = buffer.getInt(); i > 0; i--) {
+            bodies.add(objects[buffer.getInt()]);
+        }
+
+        awake.clear();
+        awakeFallables.clear();
+        for (int i = buffer.getInt(); i > 0; i--) {
+            GameObject body = objects[buffer.getInt()];
+            awake.add(body);
+            awakeFallables.add((Fallable) body);
+        }
+    }
+
+    /**
+     * Get the number of bytes the set takes up in a snapshot
+     * @return The number of bytes written by writeState
+     */
+    public int getStateSize() {
+        return Integer.BYTES * (2 + bodies.size() + awake.size());
+    }
+
+    /**
+     * Helper method to remove an object from the awake lists, by moving the last awake object into its place
+     * @param i The index of the object to remove
+     */
+    private void removeAwake(int i) {
+        int last = awake.size() - 1;
+        awake.set(i, awake.get(last));
+        awakeFallables.set(i, awakeFallables.get(last));
+        awake.remove(last);
+        awakeFallables.remove(last);
+    }
+}
@@ -1,4 +1,5 @@
-import bagel.Image;
+import bagel.util.Point;
+
 import java.util.ArrayList;
 
 /**
@@ -7,62 +8,43 @@ import java.util.ArrayList;
  * is read from the game properties file
  */
 public class Platform extends GameObject {
-    private final double COLLISION_ERROR = 4.5;
+    // Image every platform is drawn with
+    public static final String IMAGE = "res/platform.png";
+
+    // Room for error when checking if an object rests on a platform, as a speed in pixels per second. It is scaled to
+    // the distance moved in one tick, so that objects land, and mario takes off, the same way at any tick rate
+    private final double COLLISION_SPEED = 270;
+    private final double collisionError;
 
     /**
      * Creates a new platform at a specified position. It will not move from this position. Also reads in image
      * from res folder
      * @param x The x coordinate of the platform centre
      * @param y The y coordinate of the platform centre
+     * @param tickRate The number of simulation ticks per second, which the collision error is scaled to
      */
-    public Platform(double x, double y) {
+    public Platform(double x, double y, int tickRate) {
+        collisionError = COLLISION_SPEED / tickRate;
         this.setX(x);
         this.setY(y);
-        this.setImg(new Image("res/platform.png"));
+        this.setImg(Sprite.load(IMAGE));
     }
 
     /**
-     * Method to read in the platform positions from the app properties file and create an arraylist of these platforms
-     * for a specified level
-     * @param points A string from game properties containing platform positions in the format of xx,yy:xx,yy:xx,yy
-     * @return A new array list containing all barrels for a specified level
+     * Method to create an arraylist of the platforms for a specified level
+     * @param level The layout of the level, read from the game properties file
+     * @param tickRate The number of simulation ticks per second
+     * @return A new array list containing all platforms for a specified level
      */
-    public static ArrayList<Platform> readPlatforms(String points) {
+    public static ArrayList<Platform> readPlatforms(LevelConfig level, int tickRate) {
         ArrayList<Platform> platforms = new ArrayList<Platform>();
 
-        // Find number of platforms
-        int n = 0;
-        for (int i = 0; i < points.length(); i++) {
-            if (points.charAt(i) == ';') {
-                n++;
-            }
-        }
-
-        // increment to account for last one
-        n++;
-
-        // Read each individual platform, creating a new platform at that position and storing it in platforms
-        for (int i = 1; i <= n; i++) {
-            if (i == n) {
-                // special case for last co-ordinate
-                platforms.add(
-                        new Platform(
-                                Double.parseDouble(points.substring(0, points.indexOf(","))),
-                                Double.parseDouble(points.substring(points.indexOf(',') + 1))
-                ));
-            } else {
-                platforms.add(new Platform(
-                        Double.parseDouble(points.substring(0, points.indexOf(","))),
-                        Double.parseDouble(points.substring(points.indexOf(',') + 1, points.indexOf(';')))
-                ));
-                points = points.substring(points.indexOf(";") + 1);
-            }
+        for (Point p : level.getPlatforms()) {
+            platforms.add(new Platform(p.x, p.y, tickRate));
         }
         return platforms;
     }
 
-
-
     /**
      * Method that determines if another entity intersects this platform, with an error for collision if the entity
      * is moving
@@ -70,10 +52,10 @@ public class Platform extends GameObject {
      * @return True of the gameObject is making contact with the platform, false if not
      */
     public boolean platformIntersect(GameObject gameObject) {
-        return (gameObject.getY() + gameObject.getImg().getHeight() / 2.0 >= this.getY() - this.getImg().getHeight() / 2.0 - COLLISION_ERROR
-                && gameObject.getY() + gameObject.getImg().getHeight() / 2.0 <= this.getY() - this.getImg().getHeight() / 2.0 + COLLISION_ERROR
-                && gameObject.getX() >= this.getX() - this.getImg().getWidth() / 2.0
-                && gameObject.getX() <= this.getX() + this.getImg().getWidth() / 2.0);
+        return (gameObject.getBottom() >= this.getTop() - collisionError
+                && gameObject.getBottom() <= this.getTop() + collisionError
+                && gameObject.getX() >= this.getLeft()
+                && gameObject.getX() <= this.getRight());
     }
 
     /**
@@ -95,4 +77,13 @@ public class Platform extends GameObject {
     public void reset() {
 
     }
+
+    /**
+     * Get the allowed distance between the bottom of an object and the top of this platform for the object to
+     * be resting on it
+     * @return The collision error in pixels
+     */
+    public double getCOLLISION_ERROR() {
+        return collisionError;
+    }
 }
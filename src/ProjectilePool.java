@@ -0,0 +1,331 @@
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/**
+ * Holds every projectile (bullets shot by mario and bananas shot by intelligent monkeys) in a level. Projectiles
+ * are stored in fixed size arrays, one array for each property, rather than as separate objects. Spawning a
+ * projectile only fills in the next free slot, and a projectile is removed by moving the last projectile into its
+ * slot, so the pool never allocates anything once it has been created.
+ * Projectiles travel in a straight line until they reach their maximum distance. We do not care if projectiles go
+ * outside the window, as they won't hit anything anyway and will be removed after travelling the max distance
+ */
+public class ProjectilePool {
+    /**
+     * Kind of projectile shot by mario with a blaster
+     */
+    public static final int BULLET = 0;
+
+    /**
+     * Kind of projectile shot by intelligent monkeys
+     */
+    public static final int BANANA = 1;
+
+    // Distance projectiles travel in pixels, and their speeds in pixels per second
+    private final double MAX_DISTANCE = 300;
+    private final double BULLET_SPEED = 228;
+    private final double BANANA_SPEED = 108;
+
+    // Distance each kind of projectile travels in one tick
+    private final double bulletStep;
+    private final double bananaStep;
+
+    // Bytes written by writeState for each projectile: its position, distance and speed, then its direction and kind
+    private final int PROJECTILE_STATE_SIZE = 5 * Double.BYTES + 2;
+
+    // Images bullets are drawn with when moving left and right, and the image bananas are drawn with
+    public static final String BULLET_LEFT_IMAGE = "res/bullet_left.png";
+    public static final String BULLET_RIGHT_IMAGE = "res/bullet_right.png";
+    public static final String BANANA_IMAGE = "res/banana.png";
+
+    private final Sprite bulletLeft = Sprite.load(BULLET_LEFT_IMAGE);
+    private final Sprite bulletRight = Sprite.load(BULLET_RIGHT_IMAGE);
+    private final Sprite banana = Sprite.load(BANANA_IMAGE);
+
+    // Properties of each projectile, where projectile i is stored at index i of every array
+    private final double[] x;
+    private final double[] prevX;
+    private final double[] y;
+    private final double[] distance;
+    private final double[] speed;
+    private final boolean[] right;
+    private final int[] kind;
+    private int size;
+
+    // Reused list for the results of broadphase queries
+    private final ArrayList<Monkey> nearMonkeys = new ArrayList<Monkey>();
+
+    /**
+     * Creates a new empty pool
+     * @param capacity The maximum number of projectiles which can exist at once
+     * @param tickRate The number of simulation ticks per second, which the projectile speeds are scaled to
+     */
+    public ProjectilePool(int capacity, int tickRate) {
+        bulletStep = BULLET_SPEED / tickRate;
+        bananaStep = BANANA_SPEED / tickRate;
+        x = new double[capacity];
+        prevX = new double[capacity];
+        y = new double[capacity];
+        distance = new double[capacity];
+        speed = new double[capacity];
+        right = new boolean[capacity];
+        kind = new int[capacity];
+        size = 0;
+    }
+
+    /**
+     * Shoots a new projectile from a specified position in a specified direction
+     * @param kind The kind of projectile (BULLET or BANANA)
+     * @param x The x coordinate the projectile originates from
+     * @param y The y coordinate the projectile originates from
+     * @param right True if the projectile is shot to the right, false if to the left
+     * @return True if the projectile was shot, false if the pool is full
+     */
+    public boolean spawn(int kind, double x, double y, boolean right) {
+        if (size == this.x.length) {
+            return false;
+        }
+
+        this.x[size] = x;
+        this.prevX[size] = x;
+        this.y[size] = y;
+        this.distance[size] = 0;
+        this.speed[size] = kind == BULLET ? bulletStep : bananaStep;
+        this.right[size] = right;
+        this.kind[size] = kind;
+        size++;
+        return true;
+    }
+
+    /**
+     * Moves every projectile along its path. Projectiles which have reached the end of their path are removed
+     */
+    public void update() {
+        // Projectiles are visited from last to first, so a removed projectile is always replaced by one that has
+        // already been moved
+        for (int i = size - 1; i >= 0; i--) {
+            if (distance[i] + speed[i] > MAX_DISTANCE) {
+                remove(i);
+            } else {
+                prevX[i] = x[i];
+                x[i] += right[i] ? speed[i] : -speed[i];
+                distance[i] += speed[i];
+            }
+        }
+    }
+
+    /**
+     * Checks if any projectile of a kind is touching a game object
+     * @param kind The kind of projectile (BULLET or BANANA)
+     * @param gameObject The object to check
+     * @return True if a projectile of this kind is touching the object, false if not
+     */
+    public boolean touches(int kind, GameObject gameObject) {
+        for (int i = 0; i < size; i++) {
+            if (this.kind[i] == kind && intersects(i, gameObject)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Handles bullets connecting with monkeys. Each bullet destroys the first (non-destroyed) monkey it touches, and
+     * the bullet is removed. Only the monkeys near each bullet are checked
+     * @param grid The broadphase grid holding all objects in the level
+     * @param events The event buffer, which a killed event is emitted into for every monkey destroyed
+     */
+    public void hitMonkeys(SpatialGrid grid, EventBuffer events) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (kind[i] != BULLET) {
+                continue;
+            }
+
+            grid.query(getLeft(i), getTop(i), getRight(i), getBottom(i), Monkey.class, nearMonkeys);
+            for (Monkey m : nearMonkeys) {
+                if (!m.isDestroyed() && intersects(i, m)) {
+                    m.setDestroyed(true);
+                    events.emit(EventBuffer.MONKEY_KILLED, m.getX(), m.getY(), 0);
+                    remove(i);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Handles bullets connecting with a game object which can be hit several times (donkey kong). Every bullet
+     * touching the object is removed
+     * @param gameObject The object to check
+     * @return The number of bullets which hit the object
+     */
+    public int hit(GameObject gameObject) {
+        int hits = 0;
+        for (int i = size - 1; i >= 0; i--) {
+            if (kind[i] == BULLET && intersects(i, gameObject)) {
+                remove(i);
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Removes every projectile from the pool. Used to reset a level
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Write every projectile into a snapshot
+     * @param buffer The buffer to write to, which must have at least getStateSize() bytes left
+     */
+    public void writeState(ByteBuffer buffer) {
+        buffer.putInt(size);
+        for (int i = 0; i < size; i++) {
+            buffer.putDouble(x[i]);
+            buffer.putDouble(prevX[i]);
+            buffer.putDouble(y[i]);
+            buffer.putDouble(distance[i]);
+            buffer.putDouble(speed[i]);
+            buffer.put((byte) (right[i] ? 1 : 0));
+            buffer.put((byte) kind[i]);
+        }
+    }
+
+    /**
+     * Replace every projectile with the projectiles of a snapshot written by writeState
+     * @param buffer The buffer to read from
+     * @throws IllegalArgumentException If the snapshot has more projectiles than the pool can hold
+     */
+    public void readState(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        if (count < 0 || count > x.length) {
+            throw new IllegalArgumentException("Snapshot has " + count + " projectiles, but the pool holds " + x.length);
+        }
+
+        size = count;
+        for (int i = 0; i < size; i++) {
+            x[i] = buffer.getDouble();
+            prevX[i] = buffer.getDouble();
+            y[i] = buffer.getDouble();
+            distance[i] = buffer.getDouble();
+            speed[i] = buffer.getDouble();
+            right[i] = buffer.get() != 0;
+            kind[i] = buffer.get();
+        }
+    }
+
+    /**
+     * Get the number of bytes the projectiles take up in a snapshot
+     * @return The number of bytes written by writeState
+     */
+    public int getStateSize() {
+        return Integer.BYTES + size * PROJECTILE_STATE_SIZE;
+    }
+
+    /**
+     * Helper method to remove a projectile, by moving the last projectile into its slot
+     * @param i The index of the projectile to remove
+     */
+    private void remove(int i) {
+        size--;
+        x[i] = x[size];
+        prevX[i] = prevX[size];
+        y[i] = y[size];
+        distance[i] = distance[size];
+        speed[i] = speed[size];
+        right[i] = right[size];
+        kind[i] = kind[size];
+    }
+
+    /**
+     * Helper method to check if a projectile's bounding box intersects a game object's bounding box
+     * @param i The index of the projectile
+     * @param gameObject The object to check
+     * @return True if they are intersecting, false if not
+     */
+    private boolean intersects(int i, GameObject gameObject) {
+        return getLeft(i) < gameObject.getRight() && gameObject.getLeft() < getRight(i)
+                && getTop(i) < gameObject.getBottom() && gameObject.getTop() < getBottom(i);
+    }
+
+    /**
+     * Get the number of projectiles currently existing
+     * @return The number of projectiles
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the x coordinate of a projectile
+     * @param i The index of the projectile, from 0 to size() - 1
+     * @return The x coordinate of the projectile
+     */
+    public double getX(int i) {
+        return x[i];
+    }
+
+    /**
+     * Get the x coordinate to draw a projectile at, between its position at the start and end of the last
+     * simulation frame. Projectiles only move horizontally, so the y coordinate never needs interpolating
+     * @param i The index of the projectile, from 0 to size() - 1
+     * @param alpha How far between the two positions to draw the projectile, from 0 (start) to 1 (end)
+     * @return The interpolated x coordinate
+     */
+    public double getRenderX(int i, double alpha) {
+        return prevX[i] + (x[i] - prevX[i]) * alpha;
+    }
+
+    /**
+     * Get the y coordinate of a projectile
+     * @param i The index of the projectile, from 0 to size() - 1
+     * @return The y coordinate of the projectile
+     */
+    public double getY(int i) {
+        return y[i];
+    }
+
+    /**
+     * Get the kind of a projectile
+     * @param i The index of the projectile, from 0 to size() - 1
+     * @return BULLET or BANANA
+     */
+    public int getKind(int i) {
+        return kind[i];
+    }
+
+    /**
+     * Get the image of a projectile. Bullets have a different image for when they are travelling left or right
+     * @param i The index of the projectile, from 0 to size() - 1
+     * @return The sprite to draw the projectile with
+     */
+    public Sprite getImg(int i) {
+        if (kind[i] == BANANA) {
+            return banana;
+        }
+        return right[i] ? bulletRight : bulletLeft;
+    }
+
+    /**
+     * Helper methods to get the edges of a projectile's bounding box
+     * @param i The index of the projectile
+     * @return The coordinate of the edge
+     */
+    private double getLeft(int i) {
+        return x[i] - getImg(i).getWidth() / 2.0;
+    }
+
+    private double getRight(int i) {
+        return x[i] + getImg(i).getWidth() / 2.0;
+    }
+
+    private double getTop(int i) {
+        return y[i] - getImg(i).getHeight() / 2.0;
+    }
+
+    private double getBottom(int i) {
+        return y[i] + getImg(i).getHeight() / 2.0;
+    }
+}
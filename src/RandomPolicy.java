@@ -0,0 +1,57 @@
+import java.util.Random;
+
+/**
+ * Input policy which plays randomly, like a player mashing keys. A random set of movement keys is held down for a
+ * random number of frames, while jumping and shooting are pressed now and then. The game is started from the home
+ * screen with a given key. Policies created with the same seed always press the same keys
+ */
+public class RandomPolicy implements InputPolicy {
+    private final int MIN_HOLD_FRAMES = 10;
+    private final int MAX_HOLD_FRAMES = 60;
+
+    // Chance of pressing jump or shoot on any frame
+    private final double PRESS_CHANCE = 0.05;
+
+    private final Random random;
+    private final int startKey;
+    private int heldKeys;
+    private int holdLeft;
+
+    /**
+     * Creates a new random policy
+     * @param seed The seed of the random number generator
+     * @param startKey The key pressed on the home screen (ENTER for level 1, or NUM_2 to skip to level 2)
+     */
+    public RandomPolicy(long seed, int startKey) {
+        random = new Random(seed);
+        this.startKey = startKey;
+    }
+
+    /**
+     * Decide the keys pressed on the next frame
+     * @param world The world about to be stepped with these keys
+     * @return The start key on the home screen, otherwise random keys
+     */
+    @Override
+    public InputFrame next(World world) {
+        if (!world.isGameStart()) {
+            return new InputFrame(startKey);
+        }
+
+        if (holdLeft == 0) {
+            // Hold a new direction, each of the four movement keys being down half of the time
+            heldKeys = random.nextInt(16);
+            holdLeft = MIN_HOLD_FRAMES + random.nextInt(MAX_HOLD_FRAMES - MIN_HOLD_FRAMES + 1);
+        }
+        holdLeft--;
+
+        int keys = heldKeys;
+        if (random.nextDouble() < PRESS_CHANCE) {
+            keys |= InputFrame.SPACE;
+        }
+        if (random.nextDouble() < PRESS_CHANCE) {
+            keys |= InputFrame.S;
+        }
+        return new InputFrame(keys);
+    }
+}
@@ -0,0 +1,89 @@
+import java.util.ArrayList;
+
+/**
+ * Render backend which records every sprite drawn instead of drawing it, so the exact draw list of a frame can be
+ * checked without a window
+ */
+public class RecordingBackend implements RenderBackend {
+    /**
+     * A single recorded draw
+     */
+    public static class Draw {
+        private final Sprite sprite;
+        private final double x;
+        private final double y;
+
+        /**
+         * Creates a new recorded draw
+         * @param sprite The sprite drawn
+         * @param x The x coordinate of the centre of the sprite
+         * @param y The y coordinate of the centre of the sprite
+         */
+        public Draw(Sprite sprite, double x, double y) {
+            this.sprite = sprite;
+            this.x = x;
+            this.y = y;
+        }
+
+        /**
+         * Get the sprite drawn
+         * @return The sprite
+         */
+        public Sprite getSprite() {
+            return sprite;
+        }
+
+        /**
+         * Get the x coordinate the sprite was drawn at
+         * @return The x coordinate of the centre of the sprite
+         */
+        public double getX() {
+            return x;
+        }
+
+        /**
+         * Get the y coordinate the sprite was drawn at
+         * @return The y coordinate of the centre of the sprite
+         */
+        public double getY() {
+            return y;
+        }
+
+        /**
+         * Describe the draw as the image path and position, which makes draw lists easy to compare
+         * @return The draw as text
+         */
+        @Override
+        public String toString() {
+            return sprite.getPath() + " " + x + " " + y;
+        }
+    }
+
+    private final ArrayList<Draw> draws = new ArrayList<Draw>();
+
+    /**
+     * Record a sprite being drawn centred at a position
+     * @param sprite The sprite to draw
+     * @param x The x coordinate of the centre of the sprite
+     * @param y The y coordinate of the centre of the sprite
+     */
+    @Override
+    public void draw(Sprite sprite, double x, double y) {
+        draws.add(new Draw(sprite, x, y));
+    }
+
+    /**
+     * Get every draw recorded since the backend was created or last cleared, in the order they were drawn
+     * @return An array list of the recorded draws
+     */
+    public ArrayList<Draw> getDraws() {
+        return draws;
+    }
+
+    /**
+     * Forget every recorded draw
+     */
+    public void clear() {
+        draws.clear();
+    }
+}
@@ -0,0 +1,13 @@
+/**
+ * Draws the sprites submitted by a render queue. The game draws with bagel, while a recording backend keeps a list
+ * of what would have been drawn, so rendering can be checked without a window
+ */
+public interface RenderBackend {
+    /**
+     * Draw a sprite centred at a position
+     * @param sprite The sprite to draw
+     * @param x The x coordinate of the centre of the sprite
+     * @param y The y coordinate of the centre of the sprite
+     */
+    void draw(Sprite sprite, double x, double y);
+}
@@ -0,0 +1,153 @@
+import java.util.Arrays;
+
+/**
+ * Command buffer of the sprites drawn in a frame. Instead of drawing straight away, the renderer records each sprite
+ * with its position and layer, then the whole frame is sorted by layer and by texture and submitted to a backend in
+ * one pass, so sprites sharing a texture are drawn together.
+ * Layers keep the order game objects overlap in (later layers are drawn on top). Within a layer, sprites are grouped
+ * by texture, and sprites with the same texture keep the order they were recorded in.
+ * Commands are stored in arrays, one array for each property, which grow as needed and are reused every frame.
+ */
+public class RenderQueue {
+    /**
+     * Layers, from the bottom (drawn first) to the top
+     */
+    public static final int PLATFORMS = 0;
+    public static final int BARRELS = 1;
+    public static final int LADDERS = 2;
+    public static final int ITEMS = 3;
+    public static final int PROJECTILES = 4;
+    public static final int DONKEY = 5;
+    public static final int MARIO = 6;
+    public static final int MONKEYS = 7;
+
+    // Bits of the sort key used by the command index and texture id, with the layer in the bits above these
+    private static final int INDEX_BITS = 24;
+    private static final int TEXTURE_BITS = 24;
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+    private static final int INITIAL_CAPACITY = 256;
+
+    // Properties of each command, where command i is stored at index i of every array
+    private Sprite[] sprites;
+    private double[] x;
+    private double[] y;
+    private long[] keys;
+    private int size;
+
+    // Counters of the last submitted frame
+    private int drawCalls;
+    private int textureSwitches;
+    private long sortNanos;
+
+    /**
+     * Creates a new empty render queue
+     */
+    public RenderQueue() {
+        sprites = new Sprite[INITIAL_CAPACITY];
+        x = new double[INITIAL_CAPACITY];
+        y = new double[INITIAL_CAPACITY];
+        keys = new long[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    /**
+     * Record a sprite to be drawn centred at a position this frame
+     * @param sprite The sprite to draw
+     * @param x The x coordinate of the centre of the sprite
+     * @param y The y coordinate of the centre of the sprite
+     * @param layer The layer to draw the sprite in, using the constants of this class
+     */
+    public void add(Sprite sprite, double x, double y, int layer) {
+        if (size == sprites.length) {
+            grow();
+        }
+
+        sprites[size] = sprite;
+        this.x[size] = x;
+        this.y[size] = y;
+        keys[size] = ((long) layer << (INDEX_BITS + TEXTURE_BITS))
+                | ((long) sprite.getTextureId() << INDEX_BITS) | size;
+        size++;
+    }
+
+    /**
+     * Sort the commands recorded this frame by layer, then texture, then the order they were recorded in.
+     * Every part of the order is packed into one number per command, so sorting never compares objects
+     */
+    public void sort() {
+        long start = System.nanoTime();
+        Arrays.sort(keys, 0, size);
+        sortNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Draw every command in sorted order, then empty the queue for the next frame
+     * @param backend The backend which draws the sprites
+     */
+    public void submit(RenderBackend backend) {
+        drawCalls = 0;
+        textureSwitches = 0;
+        int texture = -1;
+
+        for (int i = 0; i < size; i++) {
+            int index = (int) (keys[i] & INDEX_MASK);
+            Sprite sprite = sprites[index];
+            if (sprite.getTextureId() != texture) {
+                texture = sprite.getTextureId();
+                textureSwitches++;
+            }
+            backend.draw(sprite, x[index], y[index]);
+            drawCalls++;
+        }
+
+        // Drop the sprites so the queue does not keep old levels alive
+        Arrays.fill(sprites, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Get the number of commands recorded since the last submit
+     * @return The number of commands waiting
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the number of sprites drawn by the last submit
+     * @return The number of draw calls
+     */
+    public int getDrawCalls() {
+        return drawCalls;
+    }
+
+    /**
+     * Get the number of times the last submit drew a sprite with a different texture to the one before it
+     * @return The number of texture switches, including binding the first texture
+     */
+    public int getTextureSwitches() {
+        return textureSwitches;
+    }
+
+    /**
+     * Get how long the last sort took
+     * @return The sort time in nanoseconds
+     */
+    public long getSortNanos() {
+        return sortNanos;
+    }
+
+    /**
+     * Helper method to double the capacity of the queue
+     */
+    private void grow() {
+        int capacity = sprites.length * 2;
+        if (capacity > INDEX_MASK + 1) {
+            throw new IllegalStateException("Too many sprites drawn in one frame");
+        }
+        sprites = Arrays.copyOf(sprites, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        keys = Arrays.copyOf(keys, capacity);
+    }
+}
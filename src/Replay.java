@@ -0,0 +1,413 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A recording of the keys pressed on every frame of a game, from a freshly created world until the game ends.
+ * The world is deterministic, so stepping a new world through the same frames reproduces the same game exactly.
+ * Frames are stored as runs of identical key bitmasks, with both the bitmask and the length of each run written as
+ * variable length integers, so a frame with the same keys as the one before costs nothing extra.
+ * A keyframe is stored every KEYFRAME_INTERVAL frames, holding a snapshot of the world after that many frames (see
+ * WorldSnapshot) and the position in the data where the next frame starts. Playback can seek to any frame by
+ * restoring the last keyframe before it and only playing the frames after the keyframe, rather than every frame from
+ * the start.
+ *
+ * File format (all fixed size numbers are big endian):
+ * magic (4 bytes), version (1 byte), config hash (8 bytes), frame count, keyframe count, the frame, data offset,
+ * snapshot length and snapshot bytes of each keyframe, data length, data, whether the game was won (1 byte), final
+ * score. Apart from the magic, version, config hash, snapshots and won flag, every number is a variable length
+ * integer.
+ */
+public class Replay {
+    private static final int MAGIC = 0x53444B52; // "SDKR"
+    private static final int VERSION = 2;
+    private static final int KEYFRAME_INTERVAL = 600;
+
+    private final long configHash;
+
+    // Encoded runs of (bitmask, length)
+    private byte[] data = new byte[256];
+    private int dataLength;
+
+    // Frame, data offset and snapshot of the world of each keyframe. There is no keyframe at frame 0, which is the
+    // state of a newly created world
+    private int[] keyframeTicks = new int[16];
+    private int[] keyframeOffsets = new int[16];
+    private byte[][] keyframeStates = new byte[16][];
+    private int keyframeCount;
+    private final WorldSnapshot snapshot = new WorldSnapshot();
+
+    // The run currently being recorded, which is only encoded once it ends
+    private int runKeys;
+    private int runLength;
+    private int frameCount;
+
+    // Result of the recorded game
+    private boolean won;
+    private int score;
+
+    /**
+     * Creates a new empty replay, ready for recording
+     * @param configHash The hash of the game config the game is played with
+     */
+    public Replay(long configHash) {
+        this.configHash = configHash;
+    }
+
+    /**
+     * Adds a frame to the end of the replay, once the world has been stepped with it. Every KEYFRAME_INTERVAL frames
+     * a snapshot of the world is stored as a keyframe
+     * @param input The keys pressed on this frame
+     * @param world The world which was just stepped
+     */
+    public void record(InputFrame input, World world) {
+        addFrame(input.getKeys());
+        if (frameCount % KEYFRAME_INTERVAL == 0) {
+            world.snapshot(snapshot);
+            byte[] state = new byte[snapshot.size()];
+            snapshot.copyTo(ByteBuffer.wrap(state));
+            flushRun();
+            addKeyframe(frameCount, dataLength, state);
+        }
+    }
+
+    /**
+     * Sets the result of the recorded game, so that playing the replay back can be checked against it
+     * @param won True if the game was won, false if lost
+     * @param score The final score of the game
+     */
+    public void setResult(boolean won, int score) {
+        this.won = won;
+        this.score = score;
+    }
+
+    /**
+     * Creates a copy of the start of this replay, for example to drop the frames which were undone by rewinding
+     * @param frames The number of frames to keep
+     * @return A new replay of the first frames, ready to carry on recording
+     */
+    public Replay truncated(int frames) {
+        Replay copy = new Replay(configHash);
+        ReplayReader reader = reader(0);
+        int keyframe = 0;
+        for (int i = 0; i < frames && reader.hasNext(); i++) {
+            copy.addFrame(reader.next().getKeys());
+            if (keyframe < keyframeCount && keyframeTicks[keyframe] == copy.frameCount) {
+                copy.flushRun();
+                copy.addKeyframe(copy.frameCount, copy.dataLength, keyframeStates[keyframe]);
+                keyframe++;
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Steps a world through every frame of this replay from a start frame to the end. The world should be newly
+     * created from the same config the replay was recorded with
+     * @param world The world to play the replay in
+     * @param startTick The frame to start from, which the world is moved to through the keyframes
+     */
+    public void play(World world, int startTick) {
+        ReplayReader reader = seek(world, startTick);
+        while (reader.hasNext()) {
+            world.step(reader.next());
+        }
+    }
+
+    /**
+     * Move a world to a frame of this replay, by restoring the last keyframe at or before the frame and playing only
+     * the frames after the keyframe
+     * @param world A world newly created from the config the replay was recorded with
+     * @param startTick The frame to move to, starting from 0, which is clamped to the end of the replay
+     * @return A reader positioned at the frame, which reads the frames played after it
+     */
+    public ReplayReader seek(World world, int startTick) {
+        flushRun();
+        int k = findKeyframe(startTick);
+        ReplayReader reader;
+        if (k < 0) {
+            reader = new ReplayReader(this, 0, 0);
+        } else {
+            snapshot.copyFrom(ByteBuffer.wrap(keyframeStates[k]));
+            world.restore(snapshot);
+            reader = new ReplayReader(this, keyframeTicks[k], keyframeOffsets[k]);
+        }
+
+        while (reader.getTick() < startTick && reader.hasNext()) {
+            world.step(reader.next());
+        }
+        return reader;
+    }
+
+    /**
+     * Creates a reader which reads the keys of the frames of this replay in order, without a world
+     * @param startTick The first frame to read, starting from 0
+     * @return A reader positioned at the start frame
+     */
+    public ReplayReader reader(int startTick) {
+        flushRun();
+
+        // Start from the last keyframe at or before the start frame, then skip forward from there
+        int k = findKeyframe(startTick);
+        ReplayReader reader = k < 0 ? new ReplayReader(this, 0, 0) :
+                new ReplayReader(this, keyframeTicks[k], keyframeOffsets[k]);
+        reader.skipTo(startTick);
+        return reader;
+    }
+
+    /**
+     * Helper method to find the last keyframe at or before a frame
+     * @param tick The frame
+     * @return The index of the keyframe, or -1 if the frame is before the first keyframe
+     */
+    private int findKeyframe(int tick) {
+        int k = Arrays.binarySearch(keyframeTicks, 0, keyframeCount, tick);
+        return k < 0 ? -k - 2 : k;
+    }
+
+    /**
+     * Encodes this replay into the replay file format
+     * @return The encoded replay
+     */
+    public byte[] toBytes() {
+        flushRun();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(dataLength + 64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(configHash);
+            writeVarInt(out, frameCount);
+            writeVarInt(out, keyframeCount);
+            for (int i = 0; i < keyframeCount; i++) {
+                writeVarInt(out, keyframeTicks[i]);
+                writeVarInt(out, keyframeOffsets[i]);
+                writeVarInt(out, keyframeStates[i].length);
+                out.write(keyframeStates[i]);
+            }
+            writeVarInt(out, dataLength);
+            out.write(data, 0, dataLength);
+            out.writeBoolean(won);
+            writeVarInt(out, score);
+        } catch (IOException ex) {
+            // Writing to memory can not fail
+            throw new IllegalStateException(ex);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a replay from the replay file format
+     * @param bytes The encoded replay
+     * @return The decoded replay
+     * @throws IllegalArgumentException If the bytes are not a valid replay
+     */
+    public static Replay fromBytes(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            if (in.readInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a replay file");
+            }
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported replay version: " + version);
+            }
+
+            Replay replay = new Replay(in.readLong());
+            replay.frameCount = readVarInt(in);
+            int keyframes = readVarInt(in);
+            for (int i = 0; i < keyframes; i++) {
+                int tick = readVarInt(in);
+                int offset = readVarInt(in);
+                int stateLength = readVarInt(in);
+                if (stateLength > bytes.length) {
+                    throw new IllegalArgumentException("Replay file is truncated");
+                }
+                byte[] state = new byte[stateLength];
+                in.readFully(state);
+                replay.addKeyframe(tick, offset, state);
+            }
+            replay.dataLength = readVarInt(in);
+            replay.data = new byte[replay.dataLength];
+            in.readFully(replay.data);
+            replay.won = in.readBoolean();
+            replay.score = readVarInt(in);
+            return replay;
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Replay file is truncated", ex);
+        }
+    }
+
+    /**
+     * Read a replay file
+     * @param replayFile The path to the replay file
+     * @return The decoded replay
+     * @throws IllegalArgumentException If the file is not a valid replay
+     */
+    public static Replay read(String replayFile) {
+        return fromBytes(IOUtils.readFile(replayFile));
+    }
+
+    /**
+     * Write this replay to a file
+     * @param replayFile The path to write the replay to
+     */
+    public void write(String replayFile) {
+        IOUtils.writeFile(replayFile, toBytes());
+    }
+
+    /**
+     * Helper method to encode the current run, if there is one
+     */
+    private void flushRun() {
+        if (runLength == 0) {
+            return;
+        }
+        ensureData(10);
+        dataLength = writeVarInt(data, dataLength, runKeys);
+        dataLength = writeVarInt(data, dataLength, runLength);
+        runLength = 0;
+    }
+
+    /**
+     * Helper method to add a frame to the run being recorded, starting a new run whenever the keys change
+     * @param keys The bitmask of keys pressed on the frame
+     */
+    private void addFrame(int keys) {
+        if (runLength > 0 && keys != runKeys) {
+            flushRun();
+        }
+        runKeys = keys;
+        runLength++;
+        frameCount++;
+    }
+
+    /**
+     * Helper method to add a keyframe to the keyframe table
+     * @param tick The frame of the keyframe
+     * @param offset The position in the data where the run starting at this frame is stored
+     * @param state The bytes of a snapshot of the world after this many frames
+     */
+    private void addKeyframe(int tick, int offset, byte[] state) {
+        if (keyframeCount == keyframeTicks.length) {
+            keyframeTicks = Arrays.copyOf(keyframeTicks, keyframeCount * 2);
+            keyframeOffsets = Arrays.copyOf(keyframeOffsets, keyframeCount * 2);
+            keyframeStates = Arrays.copyOf(keyframeStates, keyframeCount * 2);
+        }
+        keyframeTicks[keyframeCount] = tick;
+        keyframeOffsets[keyframeCount] = offset;
+        keyframeStates[keyframeCount] = state;
+        keyframeCount++;
+    }
+
+    /**
+     * Helper method to make room at the end of the data
+     * @param extra The number of bytes needed
+     */
+    private void ensureData(int extra) {
+        if (dataLength + extra > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, dataLength + extra));
+        }
+    }
+
+    /**
+     * Write a variable length integer into an array, 7 bits per byte with the top bit set on all but the last byte
+     * @param bytes The array to write to, which must have room for 5 bytes
+     * @param offset The position to write at
+     * @param value The value to write (not negative)
+     * @return The position after the written bytes
+     */
+    static int writeVarInt(byte[] bytes, int offset, int value) {
+        while ((value & ~0x7F) != 0) {
+            bytes[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[offset++] = (byte) value;
+        return offset;
+    }
+
+    /**
+     * Write a variable length integer to a stream
+     * @param out The stream to write to
+     * @param value The value to write (not negative)
+     * @throws IOException If the stream can not be written to
+     */
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Read a variable length integer from a stream
+     * @param in The stream to read from
+     * @return The value read
+     * @throws IOException If the stream ends early
+     * @throws IllegalArgumentException If the value is malformed
+     */
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed number in replay file");
+    }
+
+    /**
+     * Get the hash of the game config this replay was recorded with
+     * @return The config hash
+     */
+    public long getConfigHash() {
+        return configHash;
+    }
+
+    /**
+     * Get the number of frames in this replay
+     * @return The number of frames
+     */
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Check if the recorded game was won
+     * @return True if the game was won, false if not
+     */
+    public boolean isWon() {
+        return won;
+    }
+
+    /**
+     * Get the final score of the recorded game
+     * @return The final score
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Get the encoded runs of this replay. Used by ReplayReader
+     * @return The encoded runs, of which only the first getDataLength() bytes are used
+     */
+    byte[] getData() {
+        return data;
+    }
+
+    /**
+     * Get the number of bytes of encoded runs. Used by ReplayReader
+     * @return The length of the encoded runs
+     */
+    int getDataLength() {
+        return dataLength;
+    }
+}
@@ -0,0 +1,25 @@
+/**
+ * Input policy which presses the keys recorded in a replay, from its first frame. No keys are pressed once the replay
+ * has ended
+ */
+public class ReplayPolicy implements InputPolicy {
+    private final ReplayReader reader;
+
+    /**
+     * Creates a new policy at the start of a replay
+     * @param replay The replay to play back
+     */
+    public ReplayPolicy(Replay replay) {
+        reader = replay.reader(0);
+    }
+
+    /**
+     * Decide the keys pressed on the next frame
+     * @param world The world about to be stepped with these keys (not used, as the replay is fixed)
+     * @return The next recorded frame, or no keys once the replay has ended
+     */
+    @Override
+    public InputFrame next(World world) {
+        return reader.hasNext() ? reader.next() : InputFrame.NONE;
+    }
+}
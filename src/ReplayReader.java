@@ -0,0 +1,113 @@
+/**
+ * Reads the frames of a replay in order, decoding one run of identical frames at a time. Created by Replay.reader
+ */
+public class ReplayReader {
+    private final Replay replay;
+    private final byte[] data;
+    private final int dataLength;
+
+    // Position of the next run in the data, and the frame the reader is at
+    private int offset;
+    private int tick;
+
+    // The run currently being read
+    private InputFrame runFrame;
+    private int runLeft;
+
+    /**
+     * Creates a new reader starting at a keyframe of a replay
+     * @param replay The replay to read
+     * @param tick The frame of the keyframe
+     * @param offset The position in the replay data where the run starting at this frame is stored
+     */
+    ReplayReader(Replay replay, int tick, int offset) {
+        this.replay = replay;
+        this.data = replay.getData();
+        this.dataLength = replay.getDataLength();
+        this.tick = tick;
+        this.offset = offset;
+        runLeft = 0;
+    }
+
+    /**
+     * Check if there are frames left to read
+     * @return True if there is another frame, false if the end of the replay has been reached
+     */
+    public boolean hasNext() {
+        return tick < replay.getFrameCount();
+    }
+
+    /**
+     * Read the next frame of the replay
+     * @return The keys pressed on the next frame
+     * @throws IllegalStateException If there are no frames left
+     */
+    public InputFrame next() {
+        if (!hasNext()) {
+            throw new IllegalStateException("End of replay");
+        }
+        if (runLeft == 0) {
+            readRun();
+        }
+        runLeft--;
+        tick++;
+        return runFrame;
+    }
+
+    /**
+     * Skip forward to a later frame without returning the frames in between
+     * @param target The frame to skip to, clamped to the end of the replay
+     */
+    void skipTo(int target) {
+        target = Math.min(target, replay.getFrameCount());
+        while (tick < target) {
+            if (runLeft == 0) {
+                readRun();
+            }
+            int skip = Math.min(runLeft, target - tick);
+            runLeft -= skip;
+            tick += skip;
+        }
+    }
+
+    /**
+     * Get the frame the reader is at, which is the number of frames already read
+     * @return The current frame
+     */
+    public int getTick() {
+        return tick;
+    }
+
+    /**
+     * Helper method to decode the next run from the replay data
+     * @throws IllegalStateException If the data ends before all frames are read, or a run is empty
+     */
+    private void readRun() {
+        int keys = readVarInt();
+        runLeft = readVarInt();
+        if (runLeft <= 0) {
+            throw new IllegalStateException("Empty run in replay data");
+        }
+        runFrame = new InputFrame(keys);
+    }
+
+    /**
+     * Helper method to decode a variable length integer from the replay data
+     * @return The value read
+     * @throws IllegalStateException If the data ends early
+     */
+    private int readVarInt() {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            if (offset >= dataLength) {
+                throw new IllegalStateException("Replay data ends early");
+            }
+            int b = data[offset++] & 0xFF;
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed number in replay data");
+    }
+}
@@ -0,0 +1,404 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Holds the last few seconds of play, so the game can be rewound frame by frame.
+ * Taking a snapshot of the world costs about as much as simulating a frame, so only every KEYFRAME_INTERVAL frames is
+ * a full state (a keyframe) kept. Every other frame only records the keys pressed in it. The world is stepped back a
+ * frame by restoring the newest keyframe before that frame, and simulating forward through the recorded keys, which
+ * gives exactly the same state as before since the game is deterministic (just like replays). Listeners of the world
+ * are handed the events of these frames again as they are simulated.
+ *
+ * Only the newest keyframe is kept in full: every older keyframe is stored as the difference from the keyframe after
+ * it. Most of the world does not change between keyframes, so each difference (the two states XORed together) is
+ * mostly zero bytes, and is stored with its runs of zeros compressed. Differences are stored one after another in a
+ * ring of bytes, which grows up to a fixed maximum size. The oldest keyframes (and the keys recorded after them) are
+ * dropped once the buffer holds the maximum number of frames, or its bytes are full, so memory use is always bounded.
+ *
+ * Each difference is encoded as: the size of the older state, then pairs of (number of zero bytes, number of literal
+ * bytes, the literal bytes), covering the longer of the two states. Every number is a variable length integer.
+ * Literal runs may hold a few zero bytes, where that is shorter than starting a new run
+ */
+public class RewindBuffer {
+    private static final int INITIAL_RING_BYTES = 64 * 1024;
+
+    // Frames from one keyframe to the next. Stepping back simulates at most this many frames less one
+    private static final int KEYFRAME_INTERVAL = 60;
+
+    // Longest run of unchanged bytes a literal run takes in, rather than ending. Starting a new run costs two bytes,
+    // so shorter gaps are cheaper to store as literals, and there are fewer runs to encode and decode
+    private static final int MAX_LITERAL_GAP = 2;
+
+    private final int maxKeyframes;
+    private final int maxBytes;
+
+    private final WorldSnapshot snapshot = new WorldSnapshot();
+
+    // The newest keyframe in full, and the keyframe being captured, each with a buffer over its bytes
+    private byte[] latest = new byte[0];
+    private ByteBuffer latestView = ByteBuffer.wrap(latest);
+    private int latestLength;
+    private byte[] next = new byte[0];
+    private ByteBuffer nextView = ByteBuffer.wrap(next);
+    private boolean hasLatest;
+
+    // Keys pressed in every frame since the oldest keyframe, oldest first, in a ring, and the number of frames
+    // captured since the newest keyframe
+    private final int[] inputs;
+    private int firstInput;
+    private int inputCount;
+    private int framesSinceKeyframe;
+
+    // Position in the ring of the difference being decoded
+    private int readPos;
+
+    // A difference being encoded, before it is copied into the ring
+    private byte[] encoded = new byte[0];
+
+    // Ring of encoded differences, whose capacity is always a power of two
+    private byte[] ring = new byte[INITIAL_RING_BYTES];
+    private int ringStart;
+    private int ringLength;
+
+    // Start and length in the ring of each stored difference, oldest first, in a ring of their own
+    private final int[] frameStart;
+    private final int[] frameLength;
+    private int firstFrame;
+    private int frameCount;
+
+    /**
+     * Creates a new empty rewind buffer
+     * @param maxFrames The most frames which can be rewound, which must be positive. Frames are dropped a keyframe at
+     *                  a time, so up to KEYFRAME_INTERVAL more may be kept
+     * @param maxBytes The most bytes the differences between keyframes may take up. Older frames are dropped to stay
+     *                 within this
+     */
+    public RewindBuffer(int maxFrames, int maxBytes) {
+        this.maxKeyframes = (maxFrames + KEYFRAME_INTERVAL - 1) / KEYFRAME_INTERVAL;
+        this.maxBytes = Integer.highestOneBit(Math.max(maxBytes, INITIAL_RING_BYTES));
+        frameStart = new int[maxKeyframes];
+        frameLength = new int[maxKeyframes];
+        inputs = new int[(maxKeyframes + 1) * KEYFRAME_INTERVAL];
+    }
+
+    /**
+     * Capture a frame once the world has been stepped. The first frame captured, and every KEYFRAME_INTERVAL frames
+     * after it, is kept as a keyframe, while the other frames only record the keys pressed
+     * @param world The world which was stepped
+     * @param input The keys pressed in the frame
+     */
+    public void capture(World world, InputFrame input) {
+        if (hasLatest) {
+            inputs[(firstInput + inputCount) % inputs.length] = input.getKeys();
+            inputCount++;
+            framesSinceKeyframe++;
+            if (framesSinceKeyframe < KEYFRAME_INTERVAL) {
+                return;
+            }
+        }
+
+        world.snapshot(snapshot);
+        int length = snapshot.size();
+        if (next.length < length) {
+            next = new byte[Math.max(length, next.length * 2)];
+            nextView = ByteBuffer.wrap(next);
+        }
+        nextView.clear();
+        snapshot.copyTo(nextView);
+
+        if (hasLatest) {
+            storeDifference(length);
+        }
+
+        // The captured state becomes the newest keyframe
+        byte[] swap = latest;
+        ByteBuffer swapView = latestView;
+        latest = next;
+        latestView = nextView;
+        latestLength = length;
+        next = swap;
+        nextView = swapView;
+        hasLatest = true;
+        framesSinceKeyframe = 0;
+    }
+
+    /**
+     * Step the world back by one frame, to the state before the newest frame captured
+     * @param world The world to restore the state into
+     * @return True if the world was stepped back, false if there are no older frames left
+     */
+    public boolean stepBack(World world) {
+        if (framesSinceKeyframe == 0) {
+            if (frameCount == 0) {
+                return false;
+            }
+
+            // The newest frame is a keyframe, so undo the newest difference to get the keyframe before it
+            int newest = (firstFrame + frameCount - 1) % maxKeyframes;
+            latestLength = decode(frameStart[newest], frameLength[newest]);
+            ringLength -= frameLength[newest];
+            frameCount--;
+            framesSinceKeyframe = KEYFRAME_INTERVAL;
+        }
+
+        // Forget the newest frame, then rebuild the frame before it from the newest keyframe
+        inputCount--;
+        framesSinceKeyframe--;
+        latestView.clear();
+        latestView.limit(latestLength);
+        snapshot.copyFrom(latestView);
+        world.restore(snapshot);
+        for (int i = inputCount - framesSinceKeyframe; i < inputCount; i++) {
+            world.step(new InputFrame(inputs[(firstInput + i) % inputs.length]));
+        }
+        return true;
+    }
+
+    /**
+     * Forget every frame, for example when a new game starts
+     */
+    public void clear() {
+        hasLatest = false;
+        latestLength = 0;
+        ringStart = 0;
+        ringLength = 0;
+        firstFrame = 0;
+        frameCount = 0;
+        firstInput = 0;
+        inputCount = 0;
+        framesSinceKeyframe = 0;
+    }
+
+    /**
+     * Helper method to encode the difference between the newest keyframe and the keyframe just captured, store it as
+     * the newest difference, and drop old keyframes to stay within the limits
+     * @param length The length of the captured state
+     */
+    private void storeDifference(int length) {
+        int size = encode(length);
+
+        while (frameCount > 0 && (frameCount == maxKeyframes || ringLength + size > ring.length)) {
+            if (frameCount < maxKeyframes && ring.length < maxBytes) {
+                growRing();
+            } else {
+                dropOldest();
+            }
+        }
+        while (size > ring.length && ring.length < maxBytes) {
+            growRing();
+        }
+        if (size > ring.length) {
+            // A single difference is larger than the whole buffer, so it can not be stored, and the older frames can
+            // no longer be reached
+            while (frameCount > 0) {
+                dropOldest();
+            }
+            firstInput = 0;
+            inputCount = 0;
+            return;
+        }
+
+        // Copy into the ring in at most two parts, if the difference wraps around its end
+        int start = (ringStart + ringLength) & (ring.length - 1);
+        int first = Math.min(size, ring.length - start);
+        System.arraycopy(encoded, 0, ring, start, first);
+        System.arraycopy(encoded, first, ring, 0, size - first);
+        int slot = (firstFrame + frameCount) % maxKeyframes;
+        frameStart[slot] = start;
+        frameLength[slot] = size;
+        ringLength += size;
+        frameCount++;
+    }
+
+    /**
+     * Helper method to encode the newest state XORed with the state just captured
+     * @param length The length of the captured state
+     * @return The number of bytes encoded
+     */
+    private int encode(int length) {
+        int total = Math.max(length, latestLength);
+        int common = Math.min(length, latestLength);
+        // Every run covers at least one byte, and costs at most two 5 byte numbers
+        if (encoded.length < 5 + total * 11) {
+            encoded = new byte[5 + total * 11];
+        }
+
+        int pos = writeVarInt(encoded, 0, latestLength);
+        int i = 0;
+        while (i < total) {
+            // Bytes which are the same in both states XOR to zero. Most bytes are the same, so the next different
+            // byte is found with a bulk comparison
+            int zeroStart = i;
+            if (i < common) {
+                int mismatch = Arrays.mismatch(latest, i, common, next, i, common);
+                i = mismatch < 0 ? common : i + mismatch;
+            }
+            if (i >= common) {
+                while (i < total && differenceAt(i, length) == 0) {
+                    i++;
+                }
+            }
+
+            // The literal run ends at the last different byte before a gap longer than the most it takes in
+            int literalStart = i;
+            for (int j = i; j < total && j - i <= MAX_LITERAL_GAP; j++) {
+                if (j < common ? latest[j] != next[j] : differenceAt(j, length) != 0) {
+                    i = j + 1;
+                }
+            }
+
+            pos = writeVarInt(encoded, pos, literalStart - zeroStart);
+            pos = writeVarInt(encoded, pos, i - literalStart);
+            int literalCommon = Math.min(i, common);
+            for (int j = literalStart; j < literalCommon; j++) {
+                encoded[pos++] = (byte) (latest[j] ^ next[j]);
+            }
+            for (int j = Math.max(literalStart, literalCommon); j < i; j++) {
+                encoded[pos++] = differenceAt(j, length);
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Helper method to get a byte of the newest state XORed with the state just captured. A state which is shorter
+     * counts as zeros past its end
+     * @param i The index of the byte
+     * @param length The length of the captured state
+     * @return The XORed byte
+     */
+    private byte differenceAt(int i, int length) {
+        byte older = i < latestLength ? latest[i] : 0;
+        byte newer = i < length ? next[i] : 0;
+        return (byte) (older ^ newer);
+    }
+
+    /**
+     * Helper method to decode a stored difference and apply it to the newest state, turning it into the state before
+     * @param start The start of the difference in the ring
+     * @param size The number of bytes of the difference
+     * @return The length of the state before
+     */
+    private int decode(int start, int size) {
+        int mask = ring.length - 1;
+        readPos = start;
+        int end = start + size;
+
+        int olderLength = readVarInt(mask);
+        if (latest.length < olderLength) {
+            byte[] grown = new byte[Math.max(olderLength, latest.length * 2)];
+            System.arraycopy(latest, 0, grown, 0, latestLength);
+            latest = grown;
+            latestView = ByteBuffer.wrap(latest);
+        }
+        // Bytes past the end of the newer state count as zeros
+        for (int i = latestLength; i < olderLength; i++) {
+            latest[i] = 0;
+        }
+
+        int i = 0;
+        while (readPos < end) {
+            i += readVarInt(mask);
+            int literals = readVarInt(mask);
+            for (int j = 0; j < literals; j++, i++) {
+                byte value = ring[readPos++ & mask];
+                if (i < latest.length) {
+                    latest[i] ^= value;
+                }
+            }
+        }
+        return olderLength;
+    }
+
+    /**
+     * Helper method to double the size of the ring, keeping the stored differences in order
+     */
+    private void growRing() {
+        byte[] grown = new byte[ring.length * 2];
+        int mask = ring.length - 1;
+        for (int i = 0; i < ringLength; i++) {
+            grown[i] = ring[(ringStart + i) & mask];
+        }
+        for (int k = 0; k < frameCount; k++) {
+            int slot = (firstFrame + k) % maxKeyframes;
+            frameStart[slot] = (frameStart[slot] - ringStart) & mask;
+        }
+        ring = grown;
+        ringStart = 0;
+    }
+
+    /**
+     * Helper method to drop the oldest stored keyframe, and the keys recorded after it
+     */
+    private void dropOldest() {
+        ringStart = (ringStart + frameLength[firstFrame]) & (ring.length - 1);
+        ringLength -= frameLength[firstFrame];
+        firstFrame = (firstFrame + 1) % maxKeyframes;
+        frameCount--;
+        firstInput = (firstInput + KEYFRAME_INTERVAL) % inputs.length;
+        inputCount -= KEYFRAME_INTERVAL;
+    }
+
+    /**
+     * Helper method to write a variable length integer, 7 bits at a time with the high bit set on all but the last
+     * @param bytes The array to write to
+     * @param pos The position to write at
+     * @param value The value to write, which must not be negative
+     * @return The position after the integer
+     */
+    private static int writeVarInt(byte[] bytes, int pos, int value) {
+        while ((value & ~0x7F) != 0) {
+            bytes[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[pos++] = (byte) value;
+        return pos;
+    }
+
+    /**
+     * Helper method to read a variable length integer from the ring at the read position, moving past it
+     * @param mask The capacity of the ring minus one
+     * @return The value read
+     */
+    private int readVarInt(int mask) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = ring[readPos++ & mask];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * Get the number of frames which can be rewound
+     * @return The number of stored frames
+     */
+    public int getFrameCount() {
+        return inputCount;
+    }
+
+    /**
+     * Get the number of bytes of memory the buffer is using, including the states kept in full
+     * @return The size of the buffer in bytes
+     */
+    public long getMemoryUsage() {
+        return (long) ring.length + latest.length + next.length + encoded.length
+                + 2L * Integer.BYTES * maxKeyframes + (long) Integer.BYTES * inputs.length + snapshot.getCapacity();
+    }
+
+    /**
+     * Describe how much the buffer holds and how much memory it uses
+     * @param tickRate The number of frames per second
+     * @return A line describing the buffer
+     */
+    public String describe(int tickRate) {
+        return String.format(Locale.ROOT,
+                "Rewind buffer: %d frames (%.1f s), %d keyframes, %.1f KB (%.1f bytes per keyframe)",
+                inputCount, inputCount / (double) tickRate, frameCount, getMemoryUsage() / 1024.0,
+                frameCount == 0 ? 0 : ringLength / (double) frameCount);
+    }
+}
@@ -0,0 +1,314 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Saves the game being played to a memory-mapped file every few seconds, so a game can be resumed after quitting or
+ * crashing. The save is a snapshot of the whole world (see WorldSnapshot), which covers the level, score, timer,
+ * Mario's items and ammo, every destroyed object and every live projectile.
+ *
+ * The snapshot is taken on the game thread, which only takes a few microseconds, then written to the file on a
+ * background thread. The file has two slots, and each save is written to the slot holding the older save, so the
+ * newest complete save is never overwritten. A slot's header is only valid if its checksum matches, so a save which
+ * was torn by a crash is never loaded, and the save in the other slot is loaded instead.
+ *
+ * The layout of the file (all little endian) is:
+ * magic number "SDKV", version, slot capacity, then two slots of: sequence number, length, CRC32 of the sequence
+ * number, length and snapshot, then the snapshot bytes (a length of 0 means there is no game to resume)
+ */
+public class SaveFile {
+    private static final int MAGIC = 0x53444B56; // "SDKV"
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 3 * Integer.BYTES;
+    private static final int SLOT_HEADER_SIZE = Long.BYTES + 2 * Integer.BYTES;
+    private static final int SLOT_CAPACITY = 64 * 1024;
+    private static final int FILE_SIZE = FILE_HEADER_SIZE + 2 * (SLOT_HEADER_SIZE + SLOT_CAPACITY);
+
+    private final String path;
+    private final MappedByteBuffer file;
+    private final int intervalTicks;
+
+    private final WorldSnapshot snapshot = new WorldSnapshot();
+    private int ticks;
+    private boolean hasSave;
+
+    // The newest save handed to the background thread, guarded by this object, and whether a write is queued for it
+    private final byte[] pending = new byte[SLOT_CAPACITY];
+    private int pendingLength;
+    private boolean writeQueued;
+
+    // Only used on the background thread once the game has started: the save being written, and the sequence number
+    // and slot of the newest save in the file
+    private final byte[] writing = new byte[SLOT_CAPACITY];
+    private final CRC32 crc = new CRC32();
+    private long sequence;
+    private int newestSlot;
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "autosave");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Opens a save file, creating it if it does not exist yet. A file which is not a save file of this version is
+     * treated as empty, and overwritten by the next save
+     * @param path The path of the save file
+     * @param intervalTicks The number of frames between saves, which must be positive
+     * @throws IOException If the file can not be opened or mapped
+     */
+    private SaveFile(String path, int intervalTicks) throws IOException {
+        this.path = path;
+        this.intervalTicks = intervalTicks;
+
+        Path filePath = Paths.get(path);
+        if (filePath.getParent() != null) {
+            Files.createDirectories(filePath.getParent());
+        }
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE)) {
+            // The mapping stays valid once the channel is closed, and makes the file bigger if it is too small
+            file = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+        }
+        file.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (file.getInt(0) != MAGIC || file.getInt(Integer.BYTES) != VERSION
+                || file.getInt(2 * Integer.BYTES) != SLOT_CAPACITY) {
+            // Clear both slots, so neither can pass its checksum by chance
+            for (int slot = 0; slot < 2; slot++) {
+                writeSlot(slot, 0, 0);
+            }
+            file.putInt(0, MAGIC);
+            file.putInt(Integer.BYTES, VERSION);
+            file.putInt(2 * Integer.BYTES, SLOT_CAPACITY);
+            file.force();
+        }
+
+        // Carry on from the newest valid save, so the next save goes into the other slot
+        newestSlot = findNewestSlot();
+        sequence = newestSlot < 0 ? 0 : file.getLong(getSlotOffset(newestSlot));
+    }
+
+    /**
+     * Open the save file given by the game config
+     * @param config The game config read from the game properties file
+     * @return The save file, or null if saving is turned off or the file can not be opened, in which case the game
+     *         carries on without saving
+     */
+    public static SaveFile open(GameConfig config) {
+        if (config.getSaveFile() == null) {
+            return null;
+        }
+        try {
+            return new SaveFile(config.getSaveFile(), config.getSaveIntervalSeconds() * config.getTickRate());
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Resume the game saved in the file, if there is one. Only called on the game thread before the first frame
+     * @param world The world to restore the saved game into
+     * @return True if a game was resumed, false if there was no valid save or it was saved with a different game config
+     */
+    public boolean load(World world) {
+        if (newestSlot < 0) {
+            return false;
+        }
+        int offset = getSlotOffset(newestSlot);
+        int length = file.getInt(offset + Long.BYTES);
+        if (length == 0) {
+            return false;
+        }
+
+        ByteBuffer data = file.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        data.position(offset + SLOT_HEADER_SIZE);
+        data.limit(offset + SLOT_HEADER_SIZE + length);
+        snapshot.copyFrom(data);
+        try {
+            world.restore(snapshot);
+        } catch (IllegalArgumentException ex) {
+            System.out.println("Save file " + path + " was not loaded: " + ex.getMessage());
+            return false;
+        }
+        hasSave = true;
+        return true;
+    }
+
+    /**
+     * Called after every frame, to save the game being played every few seconds. Once the game is no longer being
+     * played (back on the home screen, or won or lost), the save is cleared, so the next launch starts a new game
+     * @param world The world being played
+     */
+    public void update(World world) {
+        if (world.isGameStart() && !world.isWon() && !world.isLost()) {
+            ticks++;
+            if (ticks >= intervalTicks) {
+                save(world);
+            }
+        } else if (hasSave) {
+            ticks = 0;
+            hasSave = false;
+            publish(0);
+        }
+    }
+
+    /**
+     * Save the game straight away, then wait for every save to be written, for example when the game is closed.
+     * No more saves are written afterwards
+     * @param world The world being played
+     */
+    public void close(World world) {
+        if (world.isGameStart() && !world.isWon() && !world.isLost()) {
+            save(world);
+        }
+        writer.shutdown();
+        try {
+            writer.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Helper method to take a snapshot of the world and hand it to the background thread
+     * @param world The world to save
+     */
+    private void save(World world) {
+        ticks = 0;
+        world.snapshot(snapshot);
+        if (snapshot.size() > SLOT_CAPACITY) {
+            System.out.println("Game was not saved: " + snapshot.size() + " bytes is larger than a save slot");
+            return;
+        }
+        hasSave = true;
+        synchronized (this) {
+            snapshot.copyTo(ByteBuffer.wrap(pending));
+        }
+        publish(snapshot.size());
+    }
+
+    /**
+     * Helper method to hand the newest save to the background thread. If a write is already queued it picks up the
+     * newest save when it runs, so saves never pile up
+     * @param length The number of bytes of the save in the pending array, or 0 to clear the save
+     */
+    private void publish(int length) {
+        if (writer.isShutdown()) {
+            return;
+        }
+        synchronized (this) {
+            pendingLength = length;
+            if (writeQueued) {
+                return;
+            }
+            writeQueued = true;
+        }
+        writer.execute(this::writePending);
+    }
+
+    /**
+     * Helper method run on the background thread to write the newest save into the slot holding the older save.
+     * The snapshot is flushed to the disk before its header and checksum are written, so a valid header always
+     * belongs to a complete snapshot
+     */
+    private void writePending() {
+        int length;
+        synchronized (this) {
+            length = pendingLength;
+            System.arraycopy(pending, 0, writing, 0, length);
+            writeQueued = false;
+        }
+
+        int slot = newestSlot == 0 ? 1 : 0;
+        int offset = getSlotOffset(slot);
+        // Invalidate the slot first, so it is never loaded with a mix of the old and new save
+        file.putInt(offset + Long.BYTES, -1);
+        file.position(offset + SLOT_HEADER_SIZE);
+        file.put(writing, 0, length);
+        file.force();
+        writeSlot(slot, sequence + 1, length);
+        file.force();
+
+        sequence++;
+        newestSlot = slot;
+    }
+
+    /**
+     * Helper method to write the header of a slot, whose snapshot has already been written
+     * @param slot The slot to write, 0 or 1
+     * @param slotSequence The sequence number of the save
+     * @param length The number of bytes of the snapshot
+     */
+    private void writeSlot(int slot, long slotSequence, int length) {
+        int offset = getSlotOffset(slot);
+        file.putLong(offset, slotSequence);
+        file.putInt(offset + Long.BYTES, length);
+        file.putInt(offset + Long.BYTES + Integer.BYTES, computeCrc(offset, slotSequence, length));
+    }
+
+    /**
+     * Helper method to find the slot holding the newest save whose checksum matches
+     * @return The slot, or -1 if neither slot is valid
+     */
+    private int findNewestSlot() {
+        int newest = -1;
+        long newestSequence = -1;
+        for (int slot = 0; slot < 2; slot++) {
+            int offset = getSlotOffset(slot);
+            long slotSequence = file.getLong(offset);
+            int length = file.getInt(offset + Long.BYTES);
+            if (length < 0 || length > SLOT_CAPACITY) {
+                continue;
+            }
+            if (file.getInt(offset + Long.BYTES + Integer.BYTES) == computeCrc(offset, slotSequence, length)
+                    && slotSequence > newestSequence) {
+                newest = slot;
+                newestSequence = slotSequence;
+            }
+        }
+        return newest;
+    }
+
+    /**
+     * Helper method to compute the checksum of a slot
+     * @param offset The position of the slot in the file
+     * @param slotSequence The sequence number of the save
+     * @param length The number of bytes of the snapshot
+     * @return The CRC32 of the sequence number, length and snapshot
+     */
+    private int computeCrc(int offset, long slotSequence, int length) {
+        crc.reset();
+        for (int i = 0; i < Long.BYTES; i++) {
+            crc.update((int) (slotSequence >>> (8 * i)));
+        }
+        for (int i = 0; i < Integer.BYTES; i++) {
+            crc.update(length >>> (8 * i));
+        }
+        ByteBuffer data = file.duplicate();
+        data.position(offset + SLOT_HEADER_SIZE);
+        data.limit(offset + SLOT_HEADER_SIZE + length);
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Helper method to find where a slot starts in the file
+     * @param slot The slot, 0 or 1
+     * @return The position of the slot's header
+     */
+    private static int getSlotOffset(int slot) {
+        return FILE_HEADER_SIZE + slot * (SLOT_HEADER_SIZE + SLOT_CAPACITY);
+    }
+}
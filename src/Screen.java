@@ -1,19 +1,29 @@
 import java.util.Properties;
 
 /**
- * Abstract parent class of all screens in the game. Basic properties used to read from game and message
+ * Abstract parent class of all screens in the game. Basic properties used to read from the game config and message
  * property files
  */
 public abstract class Screen {
-    private final Properties GAME_PROPS = IOUtils.readPropertiesFile("res/app.properties");
-    private final Properties MESSAGE_PROPS = IOUtils.readPropertiesFile("res/message.properties");
+    private final GameConfig config;
+    private final Properties MESSAGE_PROPS;
 
     /**
-     * Get the game properties file to read
-     * @return Game properties file
+     * Constructs a new screen
+     * @param config The game config read from the game properties file
+     * @param messageProps The message properties file
      */
-    public Properties getGAME_PROPS() {
-        return GAME_PROPS;
+    public Screen(GameConfig config, Properties messageProps) {
+        this.config = config;
+        this.MESSAGE_PROPS = messageProps;
+    }
+
+    /**
+     * Get the game config to read
+     * @return Game config
+     */
+    public GameConfig getConfig() {
+        return config;
     }
 
     /**
@@ -0,0 +1,94 @@
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/**
+ * Input policy which presses keys from a script. Each line of a script holds a number of frames followed by the keys
+ * held down for those frames, such as "120 RIGHT" or "1 RIGHT+SPACE" (see InputFrame.parse). Blank lines and lines
+ * starting with '#' are ignored, and no keys are pressed once the script has ended.
+ * The script must start the game itself, for example with "1 ENTER"
+ */
+public class ScriptedPolicy implements InputPolicy {
+    // The script, as runs of frames with the same keys. Shared between copies, as it is never changed
+    private final int[] runFrames;
+    private final InputFrame[] runKeys;
+
+    // Position in the script
+    private int run;
+    private int framesLeft;
+
+    /**
+     * Creates a new policy at the start of a script
+     * @param runFrames The number of frames of each run
+     * @param runKeys The keys pressed during each run
+     */
+    private ScriptedPolicy(int[] runFrames, InputFrame[] runKeys) {
+        this.runFrames = runFrames;
+        this.runKeys = runKeys;
+        run = 0;
+        framesLeft = runFrames.length > 0 ? runFrames[0] : 0;
+    }
+
+    /**
+     * Read a script file
+     * @param file The path of the script
+     * @return A new policy at the start of the script
+     * @throws IllegalArgumentException If a line of the script is not valid
+     */
+    public static ScriptedPolicy read(String file) {
+        String[] lines = new String(IOUtils.readFile(file), StandardCharsets.UTF_8).split("\\R");
+        ArrayList<Integer> frames = new ArrayList<Integer>();
+        ArrayList<InputFrame> keys = new ArrayList<InputFrame>();
+
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            String[] parts = line.split("\\s+");
+            try {
+                int count = parts.length == 2 ? Integer.parseInt(parts[0]) : 0;
+                if (count <= 0) {
+                    throw new IllegalArgumentException("expected a positive number of frames and the keys");
+                }
+                frames.add(count);
+                keys.add(InputFrame.parse(parts[1]));
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException(file + " line " + (i + 1) + ": " + ex.getMessage(), ex);
+            }
+        }
+
+        int[] runFrames = new int[frames.size()];
+        for (int i = 0; i < runFrames.length; i++) {
+            runFrames[i] = frames.get(i);
+        }
+        return new ScriptedPolicy(runFrames, keys.toArray(new InputFrame[0]));
+    }
+
+    /**
+     * Create a new policy for the same script, starting from the beginning. The script itself is shared
+     * @return A new policy at the start of the script
+     */
+    public ScriptedPolicy copy() {
+        return new ScriptedPolicy(runFrames, runKeys);
+    }
+
+    /**
+     * Decide the keys pressed on the next frame
+     * @param world The world about to be stepped with these keys (not used, as the script is fixed)
+     * @return The keys of the current line of the script, or no keys once the script has ended
+     */
+    @Override
+    public InputFrame next(World world) {
+        while (framesLeft == 0 && run < runFrames.length - 1) {
+            run++;
+            framesLeft = runFrames[run];
+        }
+        if (framesLeft == 0) {
+            return InputFrame.NONE;
+        }
+
+        framesLeft--;
+        return runKeys[run];
+    }
+}
@@ -1,6 +1,7 @@
 import bagel.*;
 
-import java.util.ArrayList;
+import java.text.SimpleDateFormat;
+import java.util.Date;
 import java.util.Properties;
 
 /**
@@ -11,125 +12,118 @@ import java.util.Properties;
  * This class extends {@code AbstractGame} and is responsible for managing game initialization,
  * updates, rendering, and handling user input.
  *
- * It sets up the game world, initializes characters, platforms, ladders, and other game objects,
- * and runs the game loop to ensure smooth gameplay.
+ * It sets up the game world, which holds all characters, platforms, ladders, and other game objects,
+ * and runs the game loop to ensure smooth gameplay. The game logic itself is simulated by the World class, so this
+ * class only passes on keyboard input and renders the current state of the world.
  */
 public class ShadowDonkeyKong extends AbstractGame {
     // Constants
-    private final Properties GAME_PROPS;
+    private final GameConfig CONFIG;
     private final Properties MESSAGE_PROPS;
-    private final Image BACKGROUND_IMG = new Image("res/background.png");
-    private final int BLASTER_AMMO = 5;
-
-    // Score handling
-    private final int TIME_BONUS_FACTOR = 3;
-    private final int BARREL_JUMP = 30;
-    private final int BARREL_DESTROY = 100;
-    private final int MONKEY_DESTROY = 100;
+    private final Sprite BACKGROUND_IMG = Sprite.load("res/background.png");
 
     // Screens
-    StartScreen startScreen = new StartScreen();
-    EndScreen endScreen = new EndScreen();
-    Level1 level1 = new Level1();
-    Level2 level2 = new Level2();
-
-    // Boolean variables to handle navigation between screens
-    private boolean gameStart = false;
-    private boolean nextLevel = false;
-    private boolean won = false;
-    private boolean lost = false;
+    StartScreen startScreen;
+    EndScreen endScreen;
 
-    private int score;
+    // Holds all game objects and handles the game logic
+    private World world;
 
-    // Stores all game objects (note separate arraylists are used for each level)
-    private ArrayList<Platform> platforms1;
-    private ArrayList<Platform> platforms2;
+    // Fixed timestep handling. The world is always simulated in steps of TICK_SECONDS, however often frames are
+    // rendered, and the time left over is carried to the next rendered frame
+    private final double TICK_SECONDS;
+    private final double MAX_FRAME_SECONDS = 0.25;
+    private long lastFrameTime;
+    private double accumulator;
 
-    private ArrayList<Barrel> barrels1;
-    private ArrayList<Barrel> barrels2;
+    // Keys pressed since the last simulation frame, kept until a simulation frame has read them
+    private int latchedKeys;
 
-    private ArrayList<Ladder> ladders1;
-    private ArrayList<Ladder> ladders2;
+    // Replays. Each game is recorded from a new world until it ends, unless a replay is being played back instead
+    private Replay recording;
+    private ReplayReader playback;
 
-    private ArrayList<Hammer> hammers1;
-    private ArrayList<Hammer> hammers2;
+    // States of the last few seconds of play, which are rewound while R is held (null if rewinding is turned off),
+    // and the number of frames rewound so far while R has been held
+    private final RewindBuffer rewind;
+    private int rewound;
 
-    private ArrayList<Blaster> blasters2;
+    // Saves the game being played every few seconds, so it is resumed at the next launch (null if saving is off)
+    private final SaveFile saves;
 
-    // Projectiles
-    private ArrayList<Banana> bananas2;
-    private ArrayList<Bullet> bullets2;
+    // Measures how long each phase of a frame takes, if profiling is turned on
+    private final PhaseProfiler profiler;
 
-    // Characters
-    private ArrayList<NormMonkey> normMonkeys2;
-    private ArrayList<IntelMonkey> intelMonkeys2;
+    // Draws the level being played through a sorted render queue, with bagel
+    private final LevelRenderer levelRenderer;
+    private final RenderBackend renderBackend = new BagelBackend();
 
-    // Singular objects (no need for an array list to store multiple)
-    private Mario mario1;
-    private Mario mario2;
+    // Loads images and fonts in the background, ahead of the level which needs them
+    private final AssetLoader assets;
 
-    private Donkey donkey1;
-    private Donkey donkey2;
+    // Startup and level transition timings. The launch time is taken as early as possible in main
+    private static long launchTime;
+    private boolean firstFrameShown;
+    private int shownLevel;
 
     /**
      * PART OF SKELETON CODE PROVIDED BY SWEN20003 SUBJECT STAFF
      * 
      * 
-     * Constructor for ShadowDonkeyKong game. All variables are initialised here, and arraylists are populated
-     * using relevant static methods
-     * @param gameProps The game properties file which information is read from
+     * Constructor for ShadowDonkeyKong game. The world is created here, which populates all game objects
+     * @param config The game config which information is read from
      * @param messageProps The message properties file which information is read from
      */
-    public ShadowDonkeyKong(Properties gameProps, Properties messageProps) {
-        super(Integer.parseInt(gameProps.getProperty("window.width")),
-                Integer.parseInt(gameProps.getProperty("window.height")),
-                messageProps.getProperty("home.title"));
-
-        this.GAME_PROPS = gameProps;
-        this.MESSAGE_PROPS = messageProps;
-
-        String point;
-
-        score = 0;
-
-        // Initialise all array lists using class static methods which read information directly from
-        // the game properties file
-        platforms1 = Platform.readPlatforms(gameProps.getProperty("platforms.level1"));
-        platforms2 = Platform.readPlatforms(gameProps.getProperty("platforms.level2"));
-
-        barrels1 = Barrel.readBarrels(1, gameProps);
-        barrels2 = Barrel.readBarrels(2, gameProps);
-
-        ladders1 = Ladder.readLadders(1, gameProps);
-        ladders2 = Ladder.readLadders(2, gameProps);
-
-        hammers1 = Hammer.readHammers(1, gameProps);
-        hammers2 = Hammer.readHammers(2, gameProps);
+    public ShadowDonkeyKong(GameConfig config, Properties messageProps) {
+        this(config, messageProps, null, 0);
+    }
 
-        blasters2 = Blaster.readBlasters(2, gameProps);
+    /**
+     * Constructor for ShadowDonkeyKong game which plays back a replay instead of reading the keyboard
+     * @param config The game config which information is read from
+     * @param messageProps The message properties file which information is read from
+     * @param replay The replay to play back, or null to play the game normally
+     * @param startTick The frame of the replay to start playing back from, found through its keyframes
+     */
+    public ShadowDonkeyKong(GameConfig config, Properties messageProps, Replay replay, int startTick) {
+        super(config.getWindowWidth(), config.getWindowHeight(), messageProps.getProperty("home.title"));
+        if (launchTime == 0) {
+            launchTime = System.nanoTime();
+        }
 
-        bananas2 = new ArrayList<Banana>();
-        bullets2 = new ArrayList<Bullet>();
+        this.CONFIG = config;
+        this.MESSAGE_PROPS = messageProps;
 
-        // Read in starting positions of characters, by directly manipulating the strings from the game properties file
-        point = gameProps.getProperty("mario.level1");
-        mario1 = new Mario(Double.parseDouble(point.substring(0, point.indexOf(","))),
-                Double.parseDouble(point.substring(point.indexOf(",") + 1)));
+        // Start reading every image straight away, only the home screen is needed for the first frame
+        assets = new AssetLoader(config);
+        assets.preloadImages("res");
+        assets.preloadFonts();
 
-        point = gameProps.getProperty("mario.level2");
-        mario2 = new Mario(Double.parseDouble(point.substring(0, point.indexOf(","))),
-                Double.parseDouble(point.substring(point.indexOf(",") + 1)));
+        startScreen = new StartScreen(config, messageProps);
+        endScreen = new EndScreen(config, messageProps);
+        profiler = config.getProfileOutput() != null ? new PhaseProfiler(true) : PhaseProfiler.DISABLED;
+        world = new World(config);
+        world.setProfiler(profiler);
+        levelRenderer = new LevelRenderer(profiler);
+        TICK_SECONDS = 1.0 / config.getTickRate();
 
-        point = gameProps.getProperty("donkey.level1");
-        donkey1 = new Donkey(Double.parseDouble(point.substring(0, point.indexOf(","))),
-                Double.parseDouble(point.substring(point.indexOf(",") + 1)));
+        // Replays are played back exactly as they were recorded, so they can not be rewound
+        rewind = replay == null && config.getRewindSeconds() > 0 ?
+                new RewindBuffer(config.getRewindSeconds() * config.getTickRate(), config.getRewindMaxBytes()) : null;
 
-        point = gameProps.getProperty("donkey.level2");
-        donkey2 = new Donkey(Double.parseDouble(point.substring(0, point.indexOf(","))),
-                Double.parseDouble(point.substring(point.indexOf(",") + 1)));
+        if (replay != null) {
+            playback = replay.seek(world, startTick);
+        } else if (config.getReplayDirectory() != null) {
+            recording = new Replay(config.getHash());
+        }
 
-        normMonkeys2 = NormMonkey.readNormMonkeys(normMonkeys2, gameProps);
-        intelMonkeys2 = IntelMonkey.readIntelMonkeys(gameProps);
+        // A saved game is resumed before the first frame is shown. Replays are recorded from a new world, so the
+        // resumed game is not recorded, and recording starts again with the next game
+        saves = replay == null ? SaveFile.open(config) : null;
+        if (saves != null && saves.load(world)) {
+            recording = null;
+            System.out.println("Resumed level " + world.getLevel().getNumber() + " from " + config.getSaveFile());
+        }
     }
 
 
@@ -137,500 +131,225 @@ public class ShadowDonkeyKong extends AbstractGame {
      * PART OF SKELETON CODE PROVIDED BY SWEN20003 SUBJECT STAFF
      * 
      * 
-     * Render the relevant screen based on the keyboard input given by the user and the status of the gameplay.
+     * Advance the world by however many fixed frames have passed since the last render with the keyboard input
+     * given by the user, then render the relevant screen based on the status of the gameplay. Objects are drawn
+     * between their last two simulated positions, so movement stays smooth at any refresh rate.
+     * Queued images and fonts are loaded at the end of the frame, and when profiling the time to the first frame and
+     * the first frame of each level are printed.
      * @param input The current mouse/keyboard input.
      */
     @Override
     protected void update(Input input) {
+        long frameStart = System.nanoTime();
+        profiler.start();
         BACKGROUND_IMG.draw(Window.getWidth() / 2.0, Window.getHeight() / 2.0);
+        profiler.mark(getDisplayedLevel(), PhaseProfiler.BACKGROUND);
 
         if (input.wasPressed(Keys.ESCAPE)) {
-            // Close the game
+            // Close the game, keeping the game played so far and the frame timings
+            if (world.isGameStart()) {
+                saveRecording();
+            }
+            if (saves != null) {
+                saves.close(world);
+            }
+            profiler.writeCsv(CONFIG.getProfileOutput());
+            report("Last level frame render: %s", levelRenderer.describe());
             Window.close();
+        }
 
-        } else if (!gameStart && input.wasPressed(Keys.ENTER)) {
-            // Start the game
-            gameStart = true;
-
-        } else if (!gameStart && !nextLevel && input.wasPressed(Keys.NUM_2)) {
-            // Skip to level 2
-            gameStart = true;
-            nextLevel = true;
+        if (input.wasPressed(Keys.P)) {
+            // Write the frame timings so far, and the render counters of the last level frame
+            profiler.writeCsv(CONFIG.getProfileOutput());
+            report("Last level frame render: %s", levelRenderer.describe());
         }
 
+        advance(InputFrame.fromInput(input), input.isDown(Keys.R));
+        double alpha = accumulator / TICK_SECONDS;
+        profiler.start();
 
-        if (!gameStart) {
+        if (!world.isGameStart()) {
             // Home screen
             startScreen.render();
 
-        } else if (gameStart && !nextLevel && !lost && !won) {
-            // Level 1
-            level1.render(score);
-
-            // This handles all object interactions and rendering
-            objectRenderLevel1();
-
-            // This handles all character interactions and rendering
-            charRenderLevel1();
-
-
-            // Handle mario movement with keyboard input
-            if (input.isDown(Keys.RIGHT)) {
-                if (mario1.passBarrelR(barrels1)) {
-                    score += BARREL_JUMP;
-                }
-                mario1.right();
-            }
-
-            if (input.isDown(Keys.LEFT)) {
-                if (mario1.passBarrelL(barrels1)) {
-                    score += BARREL_JUMP;
-                }
-                mario1.left();
-            }
-
-            if (input.isDown(Keys.UP) && mario1.onLadder(ladders1) && !mario1.atLadderTop(ladders1)) {
-                mario1.up();
-            }
-
-            if (input.isDown(Keys.DOWN) && mario1.onLadder(ladders1) && mario1.aboveLadderBottom(ladders1)) {
-                mario1.down();
-            }
-
-            // We can not jump while we are midair, or if we are climbing a ladder
-            if (input.wasPressed(Keys.SPACE) && !mario1.inAir(platforms1, mario1) && (!mario1.isClimbing() || mario1.isClimbing() && mario1.atLadderTop(ladders1))) {
-                mario1.startJump();
-            }
-
-            // check conditions to lose game
-            if (level1.getCurrentFrame() == 0 || (!mario1.hasHammer() && mario1.touchBarrel(barrels1)) ||
-                    !mario1.hasHammer() && mario1.touchDonkey(donkey1)) {
-                lost = true;
-                won = false;
-            }
-
-            // condition to win level
-            if (mario1.hasHammer() && mario1.touchDonkey(donkey1)) {
-                nextLevel = true;
-            }
-
-            // Handle win loss and advancing level (on a win)
-            if (won || lost) {
-                if (lost) {
-                    score = 0;
-                } else {
-                    nextLevel = true;
-                }
-            }
-
-
-        } else if (gameStart && nextLevel && !lost && !won) {
-
-            // Level 2 (time will reset from level 1)
-            level2.render(score, donkey2.getHealth(), mario2.getAmmo());
-
-            // This handles all object interactions and rendering
-            objectRenderLevel2();
-
-            // This handles all character interactions and rendering
-            charRenderLevel2();
-
-
-            // Handle mario movement with keyboard input
-            if (input.isDown(Keys.RIGHT)) {
-                if (mario2.passBarrelR(barrels2)) {
-                    score += BARREL_JUMP;
-                }
-                mario2.right();
-            }
-
-            if (input.isDown(Keys.LEFT)) {
-                if (mario2.passBarrelL(barrels2)) {
-                    score += BARREL_JUMP;
-                }
-                mario2.left();
-            }
-
-            if (input.isDown(Keys.UP) && mario2.onLadder(ladders2) && !mario2.atLadderTop(ladders2)) {
-                mario2.up();
-            }
-
-            if (input.isDown(Keys.DOWN) && mario2.onLadder(ladders2) && mario2.aboveLadderBottom(ladders2)) {
-                mario2.down();
-            }
-
-            // We can not jump while we are midair, or if we are climbing a ladder
-            if (input.wasPressed(Keys.SPACE) && !mario2.inAir(platforms2, mario2) && (!mario2.isClimbing() || mario2.isClimbing() && mario2.atLadderTop(ladders2))) {
-                mario2.startJump();
-            }
-
-            // Handle blaster shooting
-            if (input.wasPressed(Keys.S)) {
-                mario2.shoot(bullets2);
-            }
-
-            // check conditions to lose game
-            if (checkLoseConditions()) {
-                lost = true;
-                won = false;
-            }
-
-            // Check conditions to win level
-            if (mario2.hasHammer() && mario2.touchDonkey(donkey2) || donkey2.getHealth() == 0) {
-                donkey2.setHealth(0);
-                won = true;
-                lost = false;
-
-                // Add time bonus to score
-                score += TIME_BONUS_FACTOR * level2.getCurrentFrame() / level2.getFPS();
-            }
-
+        } else if (!world.isLost() && !world.isWon()) {
+            // Level being played
+            Level level = world.getLevel();
+            level.render(world.getScore());
+            profiler.mark(level.getNumber(), PhaseProfiler.HUD);
+            levelRenderer.render(level, alpha, renderBackend);
 
         } else {
-
-            // Score is reset on a loss
-            if (lost) {
-                score = 0;
-            }
-
-            endScreen.render(won, score);
-
-            if (input.wasPressed(Keys.SPACE)) {
-
-                // Reset all variables for a new start
-                resetLevel1();
-                resetLevel2();
-
-            }
+            endScreen.render(world.isWon(), world.getScore());
         }
+
+        loadAssets(frameStart);
     }
 
     /**
-     * Method used to render all level 1 objects onto the game screen by drawing their images
-     * Checks are performed for destroyable objects to see if it is destroyed or not, before rendering them
-     * Object positions are also adjusted using another method, in case they are intersecting with platforms
+     * Helper method to prefetch the levels which can be entered next, load queued images and fonts within this
+     * frame's time budget, and when profiling print startup and level transition timings along with the number of
+     * textures loaded
+     * @param frameStart The time this frame started, from System.nanoTime
      */
-    private void objectRenderLevel1() {
-
-        // Render platforms
-        for (Platform p : platforms1) {
-            p.getImg().draw(p.getX(), p.getY());
-        }
-
-        // Render (non-destroyed) barrels
-        for (Barrel b : barrels1) {
-            if (!b.isDestroyed()) {
-                b.adjustPosition(platforms1);
-                b.getImg().draw(b.getX(), b.getY());
-            }
-        }
-
-        // Render ladders
-        for (Ladder l : ladders1) {
-            l.adjustPosition(platforms1);
-            l.getImg().draw(l.getX(), l.getY());
-        }
-
-        // Render (non-destroyed) hammers
-        for (Hammer h : hammers1) {
-            if (!h.isDestroyed()) {
-                h.getImg().draw(h.getX(), h.getY());
-            }
-        }
-
-        // Falling animations
-        for (Barrel b : barrels1) {
-            if (b.inAir(platforms1, b)) {
-                b.accelerate(b.getGRAVITY(), b);
-            }
-        }
-
-        for (Ladder l : ladders1) {
-            if (l.inAir(platforms1, l)) {
-                l.accelerate(l.getGRAVITY(), l);
-            }
-        }
-
+    private void loadAssets(long frameStart) {
+        int displayed = getDisplayedLevel();
+        if (!world.isGameStart()) {
+            assets.prefetchLevel(1);
+            assets.prefetchLevel(world.getSkipLevel());
+        } else if (displayed != 0) {
+            assets.prefetchLevel(displayed + 1);
+        }
+
+        // Timings are taken before loading, since that only uses time the frame has to spare
+        long now = System.nanoTime();
+        if (!firstFrameShown) {
+            firstFrameShown = true;
+            report("Time to first frame: %.1f ms, %d textures loaded (%.1f KB)", (now - launchTime) / 1e6,
+                    Sprite.getLoadCount(), Sprite.getLoadedBytes() / 1024.0);
+        }
+        if (displayed != 0 && displayed != shownLevel) {
+            report("Level %d first frame: %.2f ms (one frame is %.2f ms), %d assets still loading, "
+                    + "%d textures loaded so far (%.1f KB)", displayed, (now - frameStart) / 1e6, TICK_SECONDS * 1000,
+                    assets.getPending(), Sprite.getLoadCount(), Sprite.getLoadedBytes() / 1024.0);
+            report("Level %d first frame render: %s", displayed, levelRenderer.describe());
+        }
+        if (shownLevel != 0 && displayed != shownLevel) {
+            // Sprites are shared, so firing and other repeated actions should not add to the count during a level
+            report("Level %d last frame: %d textures loaded (%.1f KB)", shownLevel,
+                    Sprite.getLoadCount(), Sprite.getLoadedBytes() / 1024.0);
+        }
+        shownLevel = displayed;
+
+        assets.upload();
     }
 
     /**
-     * Method used to render all game characters in level 1. Also handles interaction between mario and other objects
-     * such as hammers and barrels.
+     * Helper method to find the level currently on screen
+     * @return The level number, or 0 for the home and end screens
      */
-    private void charRenderLevel1() {
-        donkey1.getImg().draw(donkey1.getX(), donkey1.getY());
-        mario1.getImg().draw(mario1.getX(), mario1.getY());
-
-        // Opening falling animation for donkey kong
-        if (donkey1.inAir(platforms1, donkey1)) {
-            donkey1.accelerate(donkey1.getGRAVITY(), donkey1);
-        }
-
-        // Check if mario has collected a hammer
-        if (mario1.touchHammer(hammers1)) {
-            mario1.setHammer(true);
-        }
-
-        // Handle case if mario has walked over ladder
-        mario1.onLadder(ladders1);
-
-        // Handle mario falling physics
-        if (mario1.inAir(platforms1, mario1)) {
-            mario1.accelerate(mario1.getGRAVITY(), mario1);
+    private int getDisplayedLevel() {
+        if (!world.isGameStart() || world.isLost() || world.isWon()) {
+            return 0;
         }
-
-        // Points gain
-        if (mario1.hasHammer() && mario1.touchBarrel(barrels1)) {
-            score += BARREL_DESTROY;
-        }
-
+        return world.getLevel().getNumber();
     }
 
     /**
-     * Renders all in game objects for level 2. Same format as objectRenderLevel1.
-     * Additions to level 2 include blasters, and also bananas and bullets. Both projectiles are handled in the same
-     * way.
+     * Helper method to run the simulation frames due since the last render. Long pauses (such as dragging the window)
+     * are capped so the game does not try to catch up all at once. While rewinding, each simulation frame steps the
+     * world back by one frame instead, or does nothing once there are no frames left to rewind
+     * @param input The keys read this render
+     * @param rewinding True if the rewind key is held
      */
-    private void objectRenderLevel2() {
-        // Render platforms
-        for (Platform p : platforms2) {
-            p.getImg().draw(p.getX(), p.getY());
-        }
-
-        // Render (non-destroyed) barrels
-        for (Barrel b : barrels2) {
-            if (!b.isDestroyed()) {
-                b.adjustPosition(platforms2);
-                b.getImg().draw(b.getX(), b.getY());
-            }
-        }
-
-        // Render ladders
-        for (Ladder l : ladders2) {
-            l.adjustPosition(platforms2);
-            l.getImg().draw(l.getX(), l.getY());
-        }
-
-        // Render (non-destroyed) hammers
-        for (Hammer h : hammers2) {
-            if (!h.isDestroyed()) {
-                h.getImg().draw(h.getX(), h.getY());
-            }
-        }
-
-        // Render (non-destroyed) blasters
-        for (Blaster b : blasters2) {
-            if (!b.isDestroyed()) {
-                b.getImg().draw(b.getX(), b.getY());
-            }
-        }
-
-        // Handle (non-destroyed) banana travelling and rendering
-        for (int i = 0; i < bananas2.size(); i++) {
-            Banana b = bananas2.get(i);
-
-            if (b.isDestroyed()) {
-                bananas2.remove(i);
-                i--;
-            } else {
-                b.travel();
-                b.getImg().draw(b.getX(), b.getY());
-            }
-        }
-
-        // Handle (non-destroyed) bullet travelling and rendering
-        for (int i = 0; i < bullets2.size(); i++) {
-            Bullet b = bullets2.get(i);
-
-            if (b.isDestroyed()) {
-                bullets2.remove(i);
-                i--;
-            } else {
-                b.travel();
-                b.getImg().draw(b.getX(), b.getY());
-            }
+    private void advance(InputFrame input, boolean rewinding) {
+        long now = System.nanoTime();
+        if (lastFrameTime == 0) {
+            // Always simulate the very first frame
+            accumulator = TICK_SECONDS;
+        } else {
+            accumulator += Math.min((now - lastFrameTime) / 1e9, MAX_FRAME_SECONDS);
         }
+        lastFrameTime = now;
 
-        // Falling animations
-        for (Barrel b : barrels2) {
-            if (b.inAir(platforms2, b)) {
-                b.accelerate(b.getGRAVITY(), b);
-            }
-        }
+        // Pressed keys would be lost if this render has no simulation frame, so they wait for the next one
+        latchedKeys |= input.getKeys() & InputFrame.PRESS_KEYS;
+        int heldKeys = input.getKeys() & ~InputFrame.PRESS_KEYS;
 
-        for (Ladder l : ladders2) {
-            if (l.inAir(platforms2, l)) {
-                l.accelerate(l.getGRAVITY(), l);
-            }
+        if (!rewinding && rewound > 0) {
+            finishRewind();
         }
 
-
-    }
-
-    /**
-     * Render all characters on level 2. Handles the movement of Monkeys, interaction between mario, blasters and
-     * hammers, ammo gain, mario interaction with barrels and monkeys, and monkey interaction with bullets
-     */
-    private void charRenderLevel2() {
-        donkey2.getImg().draw(donkey2.getX(), donkey2.getY());
-        mario2.getImg().draw(mario2.getX(), mario2.getY());
-
-        // Render normal monkeys
-        for (NormMonkey m : normMonkeys2) {
-            // Skip destroyed monkeys
-            if (m.isDestroyed()) {
+        while (accumulator >= TICK_SECONDS) {
+            // While rewinding the game never moves forward, so once every stored frame is rewound it stays paused
+            if (rewinding && rewind != null) {
+                if (rewind.stepBack(world)) {
+                    rewound++;
+                }
+                latchedKeys = 0;
+                accumulator -= TICK_SECONDS;
                 continue;
             }
 
-            // Opening animation for falling monkey
-            if (m.inAir(platforms2, m)) {
-                m.accelerate(m.getGRAVITY(), m);
+            InputFrame frame;
+            if (playback != null) {
+                frame = playback.hasNext() ? playback.next() : InputFrame.NONE;
+            } else {
+                frame = new InputFrame(heldKeys | latchedKeys);
             }
 
-            // Handle path travelling and rendering
-            m.travelPath(platforms2);
-            m.getImg().draw(m.getX(), m.getY());
+            boolean ended = world.isWon() || world.isLost();
+            world.step(frame);
+            latchedKeys = 0;
+            accumulator -= TICK_SECONDS;
 
-            // Check if a bullet has connected with the monkey
-            if (m.touchBullet(bullets2)) {
-                m.setDestroyed(true);
-                score += MONKEY_DESTROY;
+            if (recording != null) {
+                recording.record(frame, world);
+                if (world.isWon() || world.isLost()) {
+                    recording.setResult(world.isWon(), world.getScore());
+                    saveRecording();
+                }
             }
-        }
 
-        // Same as above, but for intelligent monkeys, but this also handles banana shooting
-        for (IntelMonkey m : intelMonkeys2) {
-            // Skip destroyed monkeys
-            if (m.isDestroyed()) {
-                continue;
+            // Back on the home screen after a game. Levels are built again when entered, so the world is back in
+            // its starting state and the next game can be recorded from here
+            if (ended && !world.isGameStart()) {
+                if (playback == null && CONFIG.getReplayDirectory() != null) {
+                    recording = new Replay(CONFIG.getHash());
+                }
             }
 
-            if (m.inAir(platforms2, m)) {
-                m.accelerate(m.getGRAVITY(), m);
-            } else {
-                // only start shooting when we have landed
-                m.updateTime(level2.getFPS());
-                m.shoot(bananas2);
+            // Only games being played can be rewound. Once a game is won or lost its replay is written, so it can not
+            // be rewound from the end screen, and never from a later game
+            if (rewind != null) {
+                if (world.isGameStart() && !world.isWon() && !world.isLost()) {
+                    rewind.capture(world, frame);
+                } else {
+                    rewind.clear();
+                }
             }
-            m.travelPath(platforms2);
-            m.getImg().draw(m.getX(), m.getY());
 
-            // Check if a bullet has connected with the monkey
-            if (m.touchBullet(bullets2)) {
-                m.setDestroyed(true);
-                score += MONKEY_DESTROY;
+            if (saves != null) {
+                saves.update(world);
             }
         }
-
-        // Donkey opening falling animation
-        if (donkey2.inAir(platforms2, donkey2)) {
-            donkey2.accelerate(donkey2.getGRAVITY(), donkey2);
-        }
-
-        // Handle mario falling physics
-        if (mario2.inAir(platforms2, mario2)) {
-            mario2.accelerate(mario2.getGRAVITY(), mario2);
-        }
-
-        // Mario interaction with hammers
-        if (mario2.touchHammer(hammers2)) {
-            mario2.setHammer(true);
-            mario2.setBlaster(false);
-            mario2.setAmmo(0);
-        }
-
-        // Mario interaction with blasters
-        if (mario2.touchBlaster(blasters2)) {
-            if (mario2.hasBlaster()) {
-                // add ammo to his current count
-                mario2.setAmmo(mario2.getAmmo() + BLASTER_AMMO);
-            } else {
-                mario2.setAmmo(BLASTER_AMMO);
-            }
-            mario2.setBlaster(true);
-            mario2.setHammer(false);
-        }
-
-        // Handle case if mario has walked over ladder
-        mario2.onLadder(ladders2);
-
-        // Points gain
-        if (mario2.hasHammer() && mario2.touchBarrel(barrels2)) {
-            score += BARREL_DESTROY;
-        }
-
-        if (mario2.hasHammer() && mario2.touchMonkeys(normMonkeys2, intelMonkeys2)) {
-            score += MONKEY_DESTROY;
-        }
-
-        // Check if a bullet has connected with donkey kong and handle if so
-        donkey2.touchBullet(bullets2);
     }
 
     /**
-     * Helper method to check the conditions to lose level 2.
-     * Checks if time runs out, if mario touches a barrel, or donkey kong, or is touched by a banana
-     * or if a monkey touches mario (all with mario having no hammer)
+     * Helper method to print a line of timings or counters. Lines are only printed when profiling is turned on with
+     * profile.output, so the game prints nothing otherwise
+     * @param format The format of the line, as for String.format
+     * @param args The values to format
      */
-    private boolean checkLoseConditions() {
-        return (level2.getCurrentFrame() == 0 || (!mario2.hasHammer() && mario2.touchBarrel(barrels2))
-                || (!mario2.hasHammer() && mario2.touchDonkey(donkey2)) || mario2.touchBanana(bananas2)
-                || (!mario2.hasHammer() && mario2.touchMonkeys(normMonkeys2, intelMonkeys2)));
+    private void report(String format, Object... args) {
+        if (profiler.isEnabled()) {
+            System.out.println(String.format(format, args));
+        }
     }
 
     /**
-     * Helper method to reset all variables for level 1
+     * Helper method to carry on from a rewind once the rewind key is released. The frames which were rewound are
+     * dropped from the game being recorded, so the replay still reproduces the game
      */
-    private void resetLevel1() {
-        score = 0;
-        gameStart = false;
-        won = false;
-        lost = false;
-        nextLevel = false;
-        mario1.reset();
-        level1.reset();
-
-        for (Barrel b : barrels1) {
-            b.reset();
-        }
-
-        for (Hammer h : hammers1) {
-            h.reset();
+    private void finishRewind() {
+        if (recording != null) {
+            recording = recording.truncated(recording.getFrameCount() - rewound);
         }
+        report("Rewound %d frames. %s", rewound, rewind.describe(CONFIG.getTickRate()));
+        rewound = 0;
     }
 
     /**
-     * Helper method to reset all variables for level 1 and 2
+     * Helper method to write the game being recorded to the replay directory, named by the time it was saved.
+     * Nothing more is recorded until the next game starts
      */
-    private void resetLevel2() {
-        resetLevel1();
-        mario2.reset();
-        level2.reset();
-        donkey2.reset();
-
-        for (Barrel b : barrels2) {
-            b.reset();
-        }
-
-        for (Hammer h : hammers2) {
-            h.reset();
-        }
-
-        for (Blaster b : blasters2) {
-            b.reset();
-        }
-
-        for (NormMonkey m : normMonkeys2) {
-            m.reset();
+    private void saveRecording() {
+        if (recording == null) {
+            return;
         }
-
-        for (IntelMonkey m : intelMonkeys2) {
-            m.reset();
-        }
-
-        bananas2 = new ArrayList<Banana>();
-        bullets2 = new ArrayList<Bullet>();
-
+        String name = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        recording.write(CONFIG.getReplayDirectory() + "/replay-" + name + ".sdkr");
+        recording = null;
     }
 
     /**
@@ -638,15 +357,48 @@ public class ShadowDonkeyKong extends AbstractGame {
      * 
      * The main entry point of the Shadow Donkey Kong game.
      *
-     * This method loads the game properties and message files, initializes the game,
+     * This method loads the game config and message files, initializes the game,
      * and starts the game loop.
      *
-     * @param args Command-line arguments (not used in this game).
+     * @param args Command-line arguments. "--replay file" plays back a replay in the window, and
+     *             "--replay file --headless" plays it back as fast as possible without a window, printing the result.
+     *             Adding "--from frame" after the file starts playing back from that frame of the replay
      */
     public static void main(String[] args) {
-        Properties gameProps = IOUtils.readPropertiesFile("res/app.properties");
+        launchTime = System.nanoTime();
+        GameConfig config = GameConfig.read("res/app.properties");
+
+        Replay replay = null;
+        int startTick = 0;
+        if (args.length >= 2 && args[0].equals("--replay")) {
+            replay = Replay.read(args[1]);
+            if (replay.getConfigHash() != config.getHash()) {
+                throw new IllegalArgumentException("Replay " + args[1] + " was recorded with a different game config");
+            }
+
+            boolean headless = false;
+            for (int i = 2; i < args.length; i++) {
+                if (args[i].equals("--headless")) {
+                    headless = true;
+                } else if (args[i].equals("--from") && i + 1 < args.length) {
+                    startTick = Integer.parseInt(args[++i]);
+                } else {
+                    throw new IllegalArgumentException("Unknown replay option " + args[i]);
+                }
+            }
+
+            if (headless) {
+                World world = new World(config);
+                replay.play(world, startTick);
+                System.out.printf("Replayed %d frames: %s with score %d (recorded: %s with score %d)%n",
+                        replay.getFrameCount(), world.isWon() ? "won" : "lost", world.getScore(),
+                        replay.isWon() ? "won" : "lost", replay.getScore());
+                return;
+            }
+        }
+
         Properties messageProps = IOUtils.readPropertiesFile("res/message.properties");
-        ShadowDonkeyKong game = new ShadowDonkeyKong(gameProps, messageProps);
+        ShadowDonkeyKong game = new ShadowDonkeyKong(config, messageProps, replay, startTick);
         game.run();
     }
 
@@ -0,0 +1,194 @@
+import java.util.ArrayList;
+
+/**
+ * A uniform grid used as a broadphase for collision checks between game objects. The level is split into square
+ * cells, and each game object is stored in every cell its bounding box overlaps. Objects update their cells
+ * themselves whenever they move, so asking which objects overlap a box only needs to look at the few cells
+ * around that box instead of every object in the level.
+ * Objects outside the level are stored in the nearest edge cells, so the grid never needs to grow.
+ */
+public class SpatialGrid {
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+    private final ArrayList<GameObject>[] cells;
+
+    // Incremented for every query, used to only report objects spanning several cells once
+    private int queryStamp;
+
+    /**
+     * Creates a new empty grid covering a level
+     * @param width The width of the level in pixels
+     * @param height The height of the level in pixels
+     * @param cellSize The width and height of each cell in pixels
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public SpatialGrid(double width, double height, double cellSize) {
+        this.cellSize = cellSize;
+        columns = Math.max(1, (int) Math.ceil(width / cellSize));
+        rows = Math.max(1, (int) Math.ceil(height / cellSize));
+        cells = new ArrayList[columns * rows];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = new ArrayList<GameObject>();
+        }
+    }
+
+    /**
+     * Adds a game object to the grid. From now on the object keeps its cells up to date as it moves
+     * @param gameObject The object to add
+     */
+    public void insert(GameObject gameObject) {
+        gameObject.grid = this;
+        gameObject.cellMinX = column(gameObject.getLeft());
+        gameObject.cellMaxX = column(gameObject.getRight());
+        gameObject.cellMinY = row(gameObject.getTop());
+        gameObject.cellMaxY = row(gameObject.getBottom());
+        addToCells(gameObject);
+    }
+
+    /**
+     * Adds every game object in a list to the grid
+     * @param gameObjects The objects to add
+     */
+    public void insertAll(ArrayList<? extends GameObject> gameObjects) {
+        for (GameObject gameObject : gameObjects) {
+            insert(gameObject);
+        }
+    }
+
+    /**
+     * Removes a game object from the grid. Used once an object no longer exists in the level
+     * @param gameObject The object to remove
+     */
+    public void remove(GameObject gameObject) {
+        if (gameObject.grid != this) {
+            return;
+        }
+        removeFromCells(gameObject);
+        gameObject.grid = null;
+    }
+
+    /**
+     * Moves a game object to the cells its bounding box now overlaps. Called by the object whenever its position
+     * or image changes, and does nothing if it is still in the same cells
+     * @param gameObject The object which has moved
+     */
+    void update(GameObject gameObject) {
+        int minX = column(gameObject.getLeft());
+        int maxX = column(gameObject.getRight());
+        int minY = row(gameObject.getTop());
+        int maxY = row(gameObject.getBottom());
+
+        if (minX == gameObject.cellMinX && maxX == gameObject.cellMaxX
+                && minY == gameObject.cellMinY && maxY == gameObject.cellMaxY) {
+            return;
+        }
+
+        removeFromCells(gameObject);
+        gameObject.cellMinX = minX;
+        gameObject.cellMaxX = maxX;
+        gameObject.cellMinY = minY;
+        gameObject.cellMaxY = maxY;
+        addToCells(gameObject);
+    }
+
+    /**
+     * Finds every object of a given type whose bounding box overlaps (or touches) a box. The results are
+     * only candidates, and callers still perform their exact collision test on them
+     * @param left The x coordinate of the left edge of the box
+     * @param top The y coordinate of the top edge of the box
+     * @param right The x coordinate of the right edge of the box
+     * @param bottom The y coordinate of the bottom edge of the box
+     * @param type The type of object to look for
+     * @param results A list which is cleared and then filled with the objects found
+     * @param <T> The type of object to look for
+     * @return The results list, for convenience
+     */
+    public <T extends GameObject> ArrayList<T> query(double left, double top, double right, double bottom,
+                                                     Class<T> type, ArrayList<T> results) {
+        results.clear();
+        queryStamp++;
+
+        int minX = column(left);
+        int maxX = column(right);
+        int minY = row(top);
+        int maxY = row(bottom);
+
+        for (int cy = minY; cy <= maxY; cy++) {
+            for (int cx = minX; cx <= maxX; cx++) {
+                ArrayList<GameObject> cell = cells[cy * columns + cx];
+                for (int i = 0; i < cell.size(); i++) {
+                    GameObject gameObject = cell.get(i);
+
+                    // Skip objects already seen in another cell, and objects that only share a cell with the box
+                    if (gameObject.queryStamp == queryStamp || !type.isInstance(gameObject)) {
+                        continue;
+                    }
+                    gameObject.queryStamp = queryStamp;
+
+                    if (gameObject.getLeft() <= right && gameObject.getRight() >= left
+                            && gameObject.getTop() <= bottom && gameObject.getBottom() >= top) {
+                        results.add(type.cast(gameObject));
+                    }
+                }
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Finds every object of a given type whose bounding box overlaps (or touches) another object's bounding box
+     * @param gameObject The object to check around
+     * @param type The type of object to look for
+     * @param results A list which is cleared and then filled with the objects found
+     * @param <T> The type of object to look for
+     * @return The results list, for convenience
+     */
+    public <T extends GameObject> ArrayList<T> query(GameObject gameObject, Class<T> type, ArrayList<T> results) {
+        return query(gameObject.getLeft(), gameObject.getTop(), gameObject.getRight(), gameObject.getBottom(),
+                type, results);
+    }
+
+    /**
+     * Helper method to add an object to all cells in its cell range
+     * @param gameObject The object to add
+     */
+    private void addToCells(GameObject gameObject) {
+        for (int cy = gameObject.cellMinY; cy <= gameObject.cellMaxY; cy++) {
+            for (int cx = gameObject.cellMinX; cx <= gameObject.cellMaxX; cx++) {
+                cells[cy * columns + cx].add(gameObject);
+            }
+        }
+    }
+
+    /**
+     * Helper method to remove an object from all cells in its cell range
+     * @param gameObject The object to remove
+     */
+    private void removeFromCells(GameObject gameObject) {
+        for (int cy = gameObject.cellMinY; cy <= gameObject.cellMaxY; cy++) {
+            for (int cx = gameObject.cellMinX; cx <= gameObject.cellMaxX; cx++) {
+                cells[cy * columns + cx].remove(gameObject);
+            }
+        }
+    }
+
+    /**
+     * Helper method to find the column of the grid containing an x coordinate, clamped to the grid
+     * @param x The x coordinate
+     * @return The column index
+     */
+    private int column(double x) {
+        return Math.max(0, Math.min(columns - 1, (int) Math.floor(x / cellSize)));
+    }
+
+    /**
+     * Helper method to find the row of the grid containing a y coordinate, clamped to the grid
+     * @param y The y coordinate
+     * @return The row index
+     */
+    private int row(double y) {
+        return Math.max(0, Math.min(rows - 1, (int) Math.floor(y / cellSize)));
+    }
+}
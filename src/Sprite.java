@@ -0,0 +1,214 @@
+import bagel.DrawOptions;
+import bagel.Image;
+
+import java.io.File;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Represents the image of a game object. The dimensions of the image are read directly from the image file, so
+ * that game objects can be simulated without a window (there is no need to load the image itself). The bagel
+ * Image is only loaded the first time the sprite is drawn.
+ * Sprites are shared through a registry keyed by the image path, so each image is only decoded and uploaded once
+ * no matter how many game objects use it.
+ * Images packed into the sprite atlas (see tools/AtlasPacker.java) are drawn as a section of the one shared atlas
+ * image instead, so drawing every game object only uses a single texture. Images missing from the atlas fall back to
+ * being loaded on their own.
+ */
+public class Sprite {
+    // Number of bytes used by each pixel of an uploaded texture (RGBA)
+    private static final int BYTES_PER_PIXEL = 4;
+    private static final ConcurrentHashMap<String, Sprite> SPRITES = new ConcurrentHashMap<String, Sprite>();
+    private static final AtomicLong LOAD_COUNT = new AtomicLong();
+    private static final AtomicLong LOADED_BYTES = new AtomicLong();
+
+    // Region table of the sprite atlas, which is empty if the atlas has not been built
+    private static final String ATLAS_TABLE = "res/atlas.properties";
+    private static final Properties ATLAS_REGIONS = readAtlasRegions();
+    private static Image atlas;
+
+    // Every sprite in the atlas shares the atlas texture, while every other sprite has a texture of its own
+    private static final int ATLAS_TEXTURE = 0;
+    private static final AtomicInteger NEXT_TEXTURE = new AtomicInteger(ATLAS_TEXTURE);
+
+    private final String path;
+    private final double width;
+    private final double height;
+    private Image img;
+
+    // Section of the atlas holding this image, or null if the image is loaded on its own
+    private final DrawOptions section;
+    private final int textureId;
+
+    /**
+     * Creates a new sprite for an image in the res folder. Only the size of the image is read here, from the atlas
+     * region table if the image is in the atlas, or from the image file if not
+     * @param path The path of the image file
+     */
+    private Sprite(String path) {
+        this.path = path;
+        String region = ATLAS_REGIONS.getProperty(path);
+
+        if (region != null) {
+            String[] values = region.split(",");
+            double x = Double.parseDouble(values[0]);
+            double y = Double.parseDouble(values[1]);
+            width = Double.parseDouble(values[2]);
+            height = Double.parseDouble(values[3]);
+            section = new DrawOptions().setSection(x, y, width, height);
+            textureId = ATLAS_TEXTURE;
+        } else {
+            int[] size = IOUtils.readImageSize(path);
+            width = size[0];
+            height = size[1];
+            section = null;
+            textureId = NEXT_TEXTURE.incrementAndGet();
+        }
+    }
+
+    /**
+     * Helper method to read the region table of the sprite atlas
+     * @return The region of each image by its path, or an empty table if there is no atlas
+     */
+    private static Properties readAtlasRegions() {
+        if (!new File(ATLAS_TABLE).isFile()) {
+            return new Properties();
+        }
+        return IOUtils.readPropertiesFile(ATLAS_TABLE);
+    }
+
+    /**
+     * Get the sprite for an image in the res folder. The sprite is created the first time an image is requested,
+     * after which every caller shares the same sprite
+     * @param path The path of the image file
+     * @return The shared sprite for this image
+     */
+    public static Sprite load(String path) {
+        return SPRITES.computeIfAbsent(path, Sprite::new);
+    }
+
+    /**
+     * Get the number of images which have been decoded and uploaded so far. This should stop increasing once
+     * every image has been drawn once
+     * @return The number of images loaded
+     */
+    public static long getLoadCount() {
+        return LOAD_COUNT.get();
+    }
+
+    /**
+     * Get the total size of all images which have been uploaded so far, as uncompressed RGBA textures
+     * @return The number of bytes loaded
+     */
+    public static long getLoadedBytes() {
+        return LOADED_BYTES.get();
+    }
+
+    /**
+     * Draws the sprite centred at the given position. Loads the bagel image if it has not been loaded yet,
+     * so this should only be called once a window exists
+     * @param x The x coordinate of the centre of the sprite
+     * @param y The y coordinate of the centre of the sprite
+     */
+    public void draw(double x, double y) {
+        upload();
+        if (section != null) {
+            img.draw(x, y, section);
+        } else {
+            img.draw(x, y);
+        }
+    }
+
+    /**
+     * Loads the bagel image if it has not been loaded yet, which decodes the image file and uploads it as a texture.
+     * Sprites in the atlas share the atlas image, which is loaded by whichever of them is loaded first.
+     * This must be called on the thread which owns the window, and does nothing if the image is already loaded
+     */
+    public void upload() {
+        if (img != null) {
+            return;
+        }
+
+        if (section != null) {
+            img = getAtlas();
+        } else {
+            img = new Image(path);
+            LOAD_COUNT.incrementAndGet();
+            LOADED_BYTES.addAndGet((long) (width * height) * BYTES_PER_PIXEL);
+        }
+    }
+
+    /**
+     * Helper method to get the atlas image, loading it the first time it is needed
+     * @return The atlas image
+     */
+    private static Image getAtlas() {
+        if (atlas == null) {
+            atlas = new Image(ATLAS_REGIONS.getProperty("atlas.image"));
+            LOAD_COUNT.incrementAndGet();
+            LOADED_BYTES.addAndGet(Long.parseLong(ATLAS_REGIONS.getProperty("atlas.width"))
+                    * Long.parseLong(ATLAS_REGIONS.getProperty("atlas.height")) * BYTES_PER_PIXEL);
+        }
+        return atlas;
+    }
+
+    /**
+     * Check if an image is packed into the sprite atlas, without creating its sprite or reading the image file
+     * @param path The path of the image file
+     * @return True if the image is in the atlas, false if not
+     */
+    public static boolean isInAtlas(String path) {
+        return ATLAS_REGIONS.containsKey(path);
+    }
+
+    /**
+     * Check if this sprite is drawn from the sprite atlas rather than its own image file
+     * @return True if the sprite is in the atlas, false if not
+     */
+    public boolean isInAtlas() {
+        return section != null;
+    }
+
+    /**
+     * Check if the bagel image has been loaded, so drawing the sprite will not have to load it first
+     * @return True if the image is loaded, false if not
+     */
+    public boolean isUploaded() {
+        return img != null;
+    }
+
+    /**
+     * Get the id of the texture this sprite is drawn from. Sprites with the same id are drawn from the same texture,
+     * so drawing them one after another does not switch textures
+     * @return The texture id
+     */
+    public int getTextureId() {
+        return textureId;
+    }
+
+    /**
+     * Get the path of the image file this sprite was read from
+     * @return The path of the image file
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Get the width of the sprite
+     * @return The width of the sprite in pixels
+     */
+    public double getWidth() {
+        return width;
+    }
+
+    /**
+     * Get the height of the sprite
+     * @return The height of the sprite in pixels
+     */
+    public double getHeight() {
+        return height;
+    }
+}
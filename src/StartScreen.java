@@ -1,6 +1,8 @@
 import bagel.Font;
 import bagel.Window;
 
+import java.util.Properties;
+
 /**
  * Represents the screen which appears at the start of the game. Displays message prompts.
  * Extends the Screen super class to inherit basic properties
@@ -16,16 +18,17 @@ public class StartScreen extends Screen {
     /**
      * Constructs a new instance of start screen. Reads all messages from the message properties file and prompt y
      * coordinates and stores these
+     * @param config The game config read from the game properties file
+     * @param messageProps The message properties file
      */
-    public StartScreen() {
+    public StartScreen(GameConfig config, Properties messageProps) {
+        super(config, messageProps);
         titleMsg = this.getMESSAGE_PROPS().getProperty("home.title");
         promptMsg = this.getMESSAGE_PROPS().getProperty("home.prompt");
-        titleFont = new Font(this.getGAME_PROPS().getProperty("font"),
-                Integer.parseInt(this.getGAME_PROPS().getProperty("home.title.fontSize")));
-        promptFont = new Font(this.getGAME_PROPS().getProperty("font"),
-                Integer.parseInt(this.getGAME_PROPS().getProperty("home.prompt.fontSize")));
-        titleY = Double.parseDouble(this.getGAME_PROPS().getProperty("home.title.y"));
-        promptY = Double.parseDouble(this.getGAME_PROPS().getProperty("home.prompt.y"));
+        titleFont = AssetLoader.getFont(config.getFont(), config.getTitleFontSize());
+        promptFont = AssetLoader.getFont(config.getFont(), config.getPromptFontSize());
+        titleY = config.getTitleY();
+        promptY = config.getPromptY();
     }
 
     /**
@@ -0,0 +1,520 @@
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/**
+ * The simulation core of the game. Tracks the level being played and advances the game by one frame at a time
+ * with the step method. Nothing is drawn here, so the game can be simulated without a window (for example for tests
+ * or bots), while ShadowDonkeyKong renders the state of the world each frame.
+ * Levels are only built when the player enters them, and every level is simulated in the same way, so the game
+ * plays however many levels the game config describes.
+ */
+public class World {
+    /**
+     * Causes of losing the game, as returned by getCauseOfDeath
+     */
+    public static final int CAUSE_NONE = 0;
+    public static final int CAUSE_TIME = 1;
+    public static final int CAUSE_BARREL = 2;
+    public static final int CAUSE_DONKEY = 3;
+    public static final int CAUSE_BANANA = 4;
+    public static final int CAUSE_MONKEY = 5;
+
+    private static final String[] CAUSE_NAMES = {"none", "time", "barrel", "donkey", "banana", "monkey"};
+
+    private final int BLASTER_AMMO = 5;
+
+    // Score handling
+    private final int TIME_BONUS_FACTOR = 3;
+    private final int BARREL_JUMP = 30;
+    private final int BARREL_DESTROY = 100;
+    private final int MONKEY_DESTROY = 100;
+
+    // Number of events a frame can hold before the event buffer has to grow
+    private static final int EVENT_CAPACITY = 64;
+
+    // Level which can be skipped to from the home screen
+    private final int SKIP_LEVEL = 2;
+
+    private final GameConfig config;
+    private final double screenWidth;
+
+    // The level being played, or null on the home screen
+    private Level level;
+
+    // Boolean variables to handle navigation between screens
+    private boolean gameStart = false;
+    private boolean won = false;
+    private boolean lost = false;
+
+    private int score;
+
+    // Why the game was lost, or CAUSE_NONE if it has not been lost
+    private int causeOfDeath = CAUSE_NONE;
+
+    // Measures how long each phase of a frame takes (does nothing unless profiling is turned on)
+    private PhaseProfiler profiler = PhaseProfiler.DISABLED;
+
+    // Everything mario is touching, found once per frame and read by every check which depends on it
+    private final ContactSet contacts = new ContactSet();
+
+    // Events of the frame, handled in one batch at the end of it, and the listeners they are handed to afterwards
+    private final EventBuffer events = new EventBuffer(EVENT_CAPACITY);
+    private final ArrayList<GameEventListener> listeners = new ArrayList<GameEventListener>();
+
+    /**
+     * Creates a new world, starting on the home screen
+     * @param config The game config read from the game properties file
+     */
+    public World(GameConfig config) {
+        this.config = config;
+        screenWidth = config.getWindowWidth();
+        score = 0;
+    }
+
+    /**
+     * Advances the game by a single frame, based on the keys pressed in this frame. Handles navigation between
+     * screens, and all game logic of the level currently being played.
+     * @param input The keys pressed in this frame
+     */
+    public void step(InputFrame input) {
+        if (level != null) {
+            level.savePositions();
+        }
+
+        if (!gameStart && input.isPressed(InputFrame.ENTER)) {
+            // Start the game
+            startLevel(1);
+
+        } else if (!gameStart && input.isPressed(InputFrame.NUM_2) && config.getLevels().size() >= SKIP_LEVEL) {
+            // Skip to level 2
+            startLevel(SKIP_LEVEL);
+        }
+
+
+        if (!gameStart) {
+            // Home screen, nothing to simulate
+            return;
+
+        } else if (!lost && !won) {
+            updateLevel(input);
+
+        } else if (input.isPressed(InputFrame.SPACE)) {
+            // Reset all variables for a new start
+            reset();
+        }
+    }
+
+    /**
+     * Helper method to simulate one frame of the level being played
+     * @param input The keys pressed in this frame
+     */
+    private void updateLevel(InputFrame input) {
+        int number = level.getNumber();
+
+        profiler.start();
+        level.tick();
+
+        // This handles all object interactions
+        objectUpdate();
+        profiler.mark(number, PhaseProfiler.OBJECT_UPDATE);
+
+        // This handles all character interactions
+        charUpdate();
+        profiler.mark(number, PhaseProfiler.CHARACTER_UPDATE);
+
+        // Handle mario movement with keyboard input
+        handleInput(input);
+        profiler.mark(number, PhaseProfiler.INPUT);
+
+        // Handle win loss and advancing level (on a win), along with the score, from the events of the frame
+        checkLevelEnd();
+        handleEvents();
+        profiler.mark(number, PhaseProfiler.LOSE_CHECK);
+    }
+
+    /**
+     * Method used to update all objects in the level. Falling is simulated for every object which is awake, which
+     * includes the opening fall of donkey kong and the monkeys. Resting objects (such as barrels and ladders, which
+     * were settled when the level was built) are asleep and cost nothing
+     */
+    private void objectUpdate() {
+        level.getPhysics().update(level.getPlatforms(), level.getGround());
+
+        // Handle banana and bullet travelling
+        level.getProjectiles().update();
+    }
+
+    /**
+     * Update all characters in the level. Handles the movement of Monkeys, interaction between mario, blasters and
+     * hammers, ammo gain, mario interaction with barrels and monkeys, and monkey interaction with bullets.
+     * Once everything has moved and mario has fallen, his contacts for the frame are found, which the rest of the
+     * frame reads
+     */
+    private void charUpdate() {
+        GroundIndex ground = level.getGround();
+        SpatialGrid grid = level.getGrid();
+        ProjectilePool projectiles = level.getProjectiles();
+        Mario mario = level.getMario();
+        Donkey donkey = level.getDonkey();
+
+        // Update normal monkeys. Their falling has already been simulated with the other objects
+        for (NormMonkey m : level.getNormMonkeys()) {
+            // Skip destroyed monkeys
+            if (m.isDestroyed()) {
+                continue;
+            }
+
+            // Handle path travelling
+            m.travelPath();
+        }
+
+        // Same as above, but for intelligent monkeys, but this also handles banana shooting
+        for (IntelMonkey m : level.getIntelMonkeys()) {
+            // Skip destroyed monkeys
+            if (m.isDestroyed()) {
+                continue;
+            }
+
+            if (!m.isAirborne()) {
+                // only start shooting when we have landed
+                m.updateTime(level.getFPS());
+                m.shoot(projectiles);
+            }
+            m.travelPath();
+        }
+
+        // Check if bullets have connected with any monkeys
+        projectiles.hitMonkeys(grid, events);
+
+        // Handle mario falling physics
+        if (mario.inAir(ground, mario)) {
+            mario.accelerate(mario.getGRAVITY(), mario);
+        }
+
+        // Find everything mario is touching, once for the whole frame
+        mario.findContacts(grid, ground, projectiles, donkey, contacts);
+
+        // Mario interaction with hammers
+        if (mario.touchHammer(contacts)) {
+            mario.setHammer(true);
+            mario.setBlaster(false);
+            mario.setAmmo(0);
+        }
+
+        // Mario interaction with blasters
+        if (mario.touchBlaster(contacts)) {
+            if (mario.hasBlaster()) {
+                // add ammo to his current count
+                mario.setAmmo(mario.getAmmo() + BLASTER_AMMO);
+            } else {
+                mario.setAmmo(BLASTER_AMMO);
+            }
+            mario.setBlaster(true);
+            mario.setHammer(false);
+        }
+
+        // Handle case if mario has walked over ladder
+        mario.onLadder(contacts);
+
+        // Smash every barrel and monkey mario is touching with the hammer
+        mario.smashBarrels(contacts, events);
+        mario.smashMonkeys(contacts, events);
+
+        // Check if a bullet has connected with donkey kong and handle if so. Being hit wakes him up
+        if (donkey.touchBullet(projectiles, events)) {
+            level.getPhysics().wake(donkey);
+        }
+    }
+
+    /**
+     * Helper method to move mario according to the keys pressed in this frame. Climbing and jumping depend on the
+     * ladder and ground mario was on in this frame's contacts
+     * @param input The keys pressed in this frame
+     */
+    private void handleInput(InputFrame input) {
+        SpatialGrid grid = level.getGrid();
+        Mario mario = level.getMario();
+
+        if (input.isPressed(InputFrame.RIGHT)) {
+            mario.passBarrelR(grid, events);
+            mario.right(screenWidth);
+        }
+
+        if (input.isPressed(InputFrame.LEFT)) {
+            mario.passBarrelL(grid, events);
+            mario.left();
+        }
+
+        if (input.isPressed(InputFrame.UP) && mario.isClimbing() && !mario.atLadderTop(contacts)) {
+            mario.up();
+        }
+
+        if (input.isPressed(InputFrame.DOWN) && mario.isClimbing() && mario.aboveLadderBottom(contacts)) {
+            mario.down();
+        }
+
+        // We can not jump while we are midair, or if we are climbing a ladder
+        if (input.isPressed(InputFrame.SPACE) && contacts.isGrounded()
+                && (!mario.isClimbing() || mario.atLadderTop(contacts))) {
+            mario.startJump();
+        }
+
+        // Handle blaster shooting
+        if (input.isPressed(InputFrame.S)) {
+            mario.shoot(level.getProjectiles());
+        }
+    }
+
+    /**
+     * Helper method to check if the level has been lost or won, emitting an event for each
+     */
+    private void checkLevelEnd() {
+        Mario mario = level.getMario();
+        Donkey donkey = level.getDonkey();
+
+        // check conditions to lose game
+        int cause = checkLoseConditions();
+        if (cause != CAUSE_NONE) {
+            events.emit(EventBuffer.MARIO_DIED, mario.getX(), mario.getY(), cause);
+        }
+
+        // Check conditions to win level
+        if (mario.hasHammer() && contacts.touchesDonkey() || donkey.getHealth() == 0) {
+            events.emit(EventBuffer.LEVEL_WON, mario.getX(), mario.getY(), level.getCurrentFrame());
+        }
+    }
+
+    /**
+     * Helper method to handle the events of the frame in one batch, in the order they happened. Points are scored
+     * for barrels jumped and smashed, and monkeys killed. Winning the last level wins the game (even if the level was
+     * lost on the same frame), while winning any other level moves on to the next one. The events are then handed to
+     * every listener, and cleared
+     */
+    private void handleEvents() {
+        for (int i = 0; i < events.size(); i++) {
+            switch (events.getType(i)) {
+                case EventBuffer.BARREL_JUMPED:
+                    score += BARREL_JUMP;
+                    break;
+                case EventBuffer.BARREL_SMASHED:
+                    score += BARREL_DESTROY;
+                    break;
+                case EventBuffer.MONKEY_KILLED:
+                    score += MONKEY_DESTROY;
+                    break;
+                case EventBuffer.MARIO_DIED:
+                    lost = true;
+                    won = false;
+                    causeOfDeath = events.getValue(i);
+                    break;
+                case EventBuffer.LEVEL_WON:
+                    winLevel(events.getValue(i));
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        // Score is reset on a loss
+        if (lost) {
+            score = 0;
+        }
+
+        for (GameEventListener listener : listeners) {
+            listener.onEvents(this, events);
+        }
+        events.clear();
+    }
+
+    /**
+     * Helper method to handle the level being won
+     * @param framesLeft The number of frames which were left on the level timer
+     */
+    private void winLevel(int framesLeft) {
+        if (level.getNumber() == config.getLevels().size()) {
+            level.getDonkey().setHealth(0);
+            won = true;
+            lost = false;
+
+            // Add time bonus to score
+            score += TIME_BONUS_FACTOR * framesLeft / level.getFPS();
+        } else if (!lost) {
+            startLevel(level.getNumber() + 1);
+        }
+    }
+
+    /**
+     * Helper method to check the conditions to lose a level.
+     * Checks if time runs out, if mario touches a barrel, or donkey kong, or is touched by a banana
+     * or if a monkey touches mario (all with mario having no hammer), using this frame's contacts
+     * @return The cause of losing the level, or CAUSE_NONE if the level has not been lost
+     */
+    private int checkLoseConditions() {
+        Mario mario = level.getMario();
+
+        if (level.getCurrentFrame() == 0) {
+            return CAUSE_TIME;
+        } else if (!mario.hasHammer() && !contacts.getBarrels().isEmpty()) {
+            return CAUSE_BARREL;
+        } else if (!mario.hasHammer() && contacts.touchesDonkey()) {
+            return CAUSE_DONKEY;
+        } else if (contacts.touchesBanana()) {
+            return CAUSE_BANANA;
+        } else if (!mario.hasHammer() && !contacts.getMonkeys().isEmpty()) {
+            return CAUSE_MONKEY;
+        }
+        return CAUSE_NONE;
+    }
+
+    /**
+     * Helper method to build a level from the game config and start playing it
+     * @param number The level number, starting from 1
+     */
+    private void startLevel(int number) {
+        gameStart = true;
+        level = new Level(config, number);
+    }
+
+    /**
+     * Helper method to reset all variables, returning to the home screen. Levels are built again when they are
+     * next entered
+     */
+    private void reset() {
+        score = 0;
+        gameStart = false;
+        won = false;
+        lost = false;
+        causeOfDeath = CAUSE_NONE;
+        level = null;
+    }
+
+    /**
+     * Take a snapshot of the whole state of the world, between frames. Once the snapshot's buffer is big enough this
+     * allocates nothing
+     * @param snapshot The snapshot to write over
+     */
+    public void snapshot(WorldSnapshot snapshot) {
+        int size = WorldSnapshot.HEADER_SIZE + (level == null ? 0 : level.getStateSize());
+        ByteBuffer buffer = snapshot.startWriting(size);
+
+        WorldSnapshot.writeHeader(buffer, config.getHash());
+        buffer.put((byte) ((gameStart ? 1 : 0) | (won ? 2 : 0) | (lost ? 4 : 0)));
+        buffer.putInt(score);
+        buffer.putInt(causeOfDeath);
+        buffer.putInt(level == null ? 0 : level.getNumber());
+        if (level != null) {
+            level.writeState(buffer);
+        }
+        snapshot.finishWriting();
+    }
+
+    /**
+     * Restore the world to the state it was in when a snapshot was taken. The snapshot may have been taken of another
+     * world, as long as it has the same game config. A level is only built if the snapshot is of a different level than
+     * the one being played, otherwise nothing is allocated
+     * @param snapshot The snapshot to restore
+     * @throws IllegalArgumentException If the snapshot was taken with a different game config
+     */
+    public void restore(WorldSnapshot snapshot) {
+        ByteBuffer buffer = snapshot.startReading();
+        WorldSnapshot.readHeader(buffer, config.getHash());
+
+        int flags = buffer.get();
+        gameStart = (flags & 1) != 0;
+        won = (flags & 2) != 0;
+        lost = (flags & 4) != 0;
+        score = buffer.getInt();
+        causeOfDeath = buffer.getInt();
+
+        int number = buffer.getInt();
+        if (number == 0) {
+            level = null;
+        } else {
+            if (level == null || level.getNumber() != number) {
+                level = new Level(config, number);
+            }
+            level.readState(buffer);
+        }
+    }
+
+    /**
+     * Add a listener which is handed the events of every frame, once the score and outcome of the frame are known
+     * @param listener The listener to add
+     */
+    public void addListener(GameEventListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Set the profiler which measures how long each phase of a frame takes
+     * @param profiler The profiler to record into
+     */
+    public void setProfiler(PhaseProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * Check if the game has started (we are no longer on the home screen)
+     * @return True if the game has started, false if not
+     */
+    public boolean isGameStart() {
+        return gameStart;
+    }
+
+    /**
+     * Check if the game has been won
+     * @return True if the game has been won, false if not
+     */
+    public boolean isWon() {
+        return won;
+    }
+
+    /**
+     * Check if the game has been lost
+     * @return True if the game has been lost, false if not
+     */
+    public boolean isLost() {
+        return lost;
+    }
+
+    /**
+     * Get why the game was lost
+     * @return One of the CAUSE constants of this class, or CAUSE_NONE if the game has not been lost
+     */
+    public int getCauseOfDeath() {
+        return causeOfDeath;
+    }
+
+    /**
+     * Get a short name for a cause of losing the game
+     * @param cause One of the CAUSE constants of this class
+     * @return The name of the cause
+     */
+    public static String getCauseName(int cause) {
+        return CAUSE_NAMES[cause];
+    }
+
+    /**
+     * Get the current score of the player
+     * @return The current score
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Get the level which can be skipped to from the home screen
+     * @return The level number
+     */
+    public int getSkipLevel() {
+        return SKIP_LEVEL;
+    }
+
+    /**
+     * Get the level being played
+     * @return The current level, or null on the home screen
+     */
+    public Level getLevel() {
+        return level;
+    }
+}
@@ -0,0 +1,117 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A copy of the whole state of a world at the start of a frame, stored as a flat array of bytes. Taking a snapshot
+ * writes the state of the world straight into the snapshot's buffer, and restoring it reads it straight back into the
+ * objects of the world, so neither allocates anything once the buffer is big enough. Snapshots can be used to restart
+ * a level instantly, as save states, or to search ahead from a position by restoring it into several worlds.
+ * Snapshots can only be restored into a world with the same game config as the world they were taken of.
+ *
+ * The layout of the bytes (all little endian) is:
+ * magic number "SDKS", config hash, world flags (game started, won, lost), score, cause of death, level number (0 on
+ * the home screen), then the state of the level if there is one (see Level.writeState)
+ */
+public class WorldSnapshot {
+    private static final int MAGIC = 0x53444B53; // "SDKS"
+
+    // Bytes of the header written before the level: the magic number, config hash, flags, score, cause and level
+    static final int HEADER_SIZE = Integer.BYTES + Long.BYTES + 1 + 3 * Integer.BYTES;
+
+    private final int INITIAL_CAPACITY = 4096;
+
+    private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_CAPACITY).order(ByteOrder.LITTLE_ENDIAN);
+
+    // Number of bytes written to the buffer, or 0 if no snapshot has been taken
+    private int size;
+
+    /**
+     * Get the buffer to write a snapshot of a world into, making it bigger first if needed
+     * @param length The number of bytes the snapshot will take up
+     * @return The empty buffer, ready to be written to
+     */
+    ByteBuffer startWriting(int length) {
+        if (buffer.capacity() < length) {
+            buffer = ByteBuffer.allocate(Math.max(length, buffer.capacity() * 2)).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        buffer.clear();
+        size = 0;
+        return buffer;
+    }
+
+    /**
+     * Mark the snapshot as complete, once everything has been written to the buffer
+     */
+    void finishWriting() {
+        buffer.flip();
+        size = buffer.limit();
+    }
+
+    /**
+     * Get the buffer holding the snapshot, ready to be read from the start
+     * @return The buffer, with its limit at the end of the snapshot
+     */
+    ByteBuffer startReading() {
+        buffer.limit(size);
+        buffer.position(0);
+        return buffer;
+    }
+
+    /**
+     * Write the header of a snapshot
+     * @param buffer The buffer to write to
+     * @param configHash The hash of the game config of the world
+     */
+    static void writeHeader(ByteBuffer buffer, long configHash) {
+        buffer.putInt(MAGIC);
+        buffer.putLong(configHash);
+    }
+
+    /**
+     * Read and check the header of a snapshot
+     * @param buffer The buffer to read from
+     * @param configHash The hash of the game config of the world the snapshot is being restored into
+     * @throws IllegalArgumentException If the buffer is not a snapshot, or was taken with a different game config
+     */
+    static void readHeader(ByteBuffer buffer, long configHash) {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a world snapshot");
+        }
+        if (buffer.getLong() != configHash) {
+            throw new IllegalArgumentException("Snapshot was taken with a different game config");
+        }
+    }
+
+    /**
+     * Copy the bytes of the snapshot into another buffer, for example to save it to a file
+     * @param target The buffer to copy into, which must have at least size() bytes left
+     */
+    public void copyTo(ByteBuffer target) {
+        target.put(startReading());
+    }
+
+    /**
+     * Replace the snapshot with bytes copied from another buffer, for example a snapshot read from a file
+     * @param source The buffer to copy from. Every byte left in it is copied
+     */
+    public void copyFrom(ByteBuffer source) {
+        startWriting(source.remaining()).put(source);
+        finishWriting();
+    }
+
+    /**
+     * Get the number of bytes the snapshot can hold before its buffer has to grow
+     * @return The capacity of the buffer in bytes
+     */
+    public int getCapacity() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Get the number of bytes the snapshot takes up
+     * @return The size of the snapshot in bytes, or 0 if nothing has been written to it
+     */
+    public int size() {
+        return size;
+    }
+}
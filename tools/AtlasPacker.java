@@ -0,0 +1,184 @@
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Build step which packs the sprite images in the res folder into a single atlas image, and writes a region table
+ * giving where each image was placed. Sprites read the table, and draw their region of the atlas instead of loading
+ * their own image, so a frame only ever binds one texture for all game objects.
+ * Only uses the JDK, so it can be run straight from source with:
+ * java tools/AtlasPacker.java [resource directory] [atlas image] [region table]
+ * or through maven with: mvn -Patlas generate-resources
+ */
+public class AtlasPacker {
+    // Gap left around every sprite, so filtering never blends in the edge of a neighbouring sprite
+    private static final int PADDING = 2;
+    private static final int MIN_SIZE = 64;
+    private static final int MAX_SIZE = 4096;
+
+    // The background fills the whole window and is drawn once a frame, so it would only make the atlas larger
+    private static final String[] EXCLUDED = {"background.png", "atlas.png"};
+
+    /**
+     * An image to pack, and the position it was given in the atlas
+     */
+    private static class Region {
+        private final String path;
+        private final BufferedImage image;
+        private int x;
+        private int y;
+
+        /**
+         * Creates a region for an image which has not been placed yet
+         * @param path The path of the image file
+         * @param image The image read from the file
+         */
+        private Region(String path, BufferedImage image) {
+            this.path = path;
+            this.image = image;
+        }
+    }
+
+    /**
+     * Packs the atlas
+     * @param args The resource directory, atlas image and region table (defaulting to res, res/atlas.png and
+     *             res/atlas.properties)
+     * @throws IOException If an image can not be read, or the atlas can not be written
+     */
+    public static void main(String[] args) throws IOException {
+        String directory = args.length > 0 ? args[0] : "res";
+        String atlasFile = args.length > 1 ? args[1] : directory + "/atlas.png";
+        String tableFile = args.length > 2 ? args[2] : directory + "/atlas.properties";
+
+        ArrayList<Region> regions = readRegions(directory);
+
+        // Try every power of two width, keeping whichever gives the smallest atlas
+        int bestWidth = 0;
+        int bestHeight = 0;
+        for (int width = MIN_SIZE; width <= MAX_SIZE; width *= 2) {
+            int height = pack(regions, width);
+            if (height > 0 && (bestWidth == 0 || width * height < bestWidth * bestHeight)) {
+                bestWidth = width;
+                bestHeight = height;
+            }
+        }
+        if (bestWidth == 0) {
+            throw new IOException("Sprites do not fit in a " + MAX_SIZE + "x" + MAX_SIZE + " atlas");
+        }
+        pack(regions, bestWidth);
+
+        BufferedImage atlas = new BufferedImage(bestWidth, bestHeight, BufferedImage.TYPE_INT_ARGB);
+        for (Region region : regions) {
+            // Pixels are copied as they are, since drawing would blend transparent pixels with the empty atlas
+            int w = region.image.getWidth();
+            int h = region.image.getHeight();
+            int[] pixels = region.image.getRGB(0, 0, w, h, null, 0, w);
+            atlas.setRGB(region.x, region.y, w, h, pixels, 0, w);
+        }
+        ImageIO.write(atlas, "png", new File(atlasFile));
+        writeTable(regions, atlasFile, bestWidth, bestHeight, tableFile);
+
+        System.out.printf("Packed %d sprites into a %dx%d atlas%n", regions.size(), bestWidth, bestHeight);
+    }
+
+    /**
+     * Helper method to read every sprite image in the resource directory, sorted from tallest to shortest
+     * @param directory The resource directory
+     * @return An array list of the unplaced regions
+     * @throws IOException If an image can not be read
+     */
+    private static ArrayList<Region> readRegions(String directory) throws IOException {
+        File[] files = new File(directory).listFiles();
+        if (files == null) {
+            throw new IOException("No resource directory " + directory);
+        }
+        Arrays.sort(files);
+
+        ArrayList<Region> regions = new ArrayList<Region>();
+        for (File file : files) {
+            String name = file.getName();
+            if (!name.toLowerCase().endsWith(".png") || Arrays.asList(EXCLUDED).contains(name)) {
+                continue;
+            }
+
+            // Some images are JPEGs with a .png name, ImageIO reads them by their contents
+            BufferedImage image = ImageIO.read(file);
+            if (image == null) {
+                throw new IOException("Unsupported image format: " + file);
+            }
+            regions.add(new Region(directory + "/" + name, image));
+        }
+
+        regions.sort(Comparator.comparingInt((Region region) -> region.image.getHeight()).reversed());
+        return regions;
+    }
+
+    /**
+     * Helper method to place the regions in rows (shelves) from left to right, starting a new row whenever the
+     * current one is full. Regions are sorted by height, so each row wastes little space
+     * @param regions The regions to place
+     * @param width The width of the atlas
+     * @return The height of the atlas rounded up to a power of two, or 0 if the regions do not fit
+     */
+    private static int pack(ArrayList<Region> regions, int width) {
+        int x = 0;
+        int y = 0;
+        int rowHeight = 0;
+
+        for (Region region : regions) {
+            int w = region.image.getWidth() + PADDING * 2;
+            int h = region.image.getHeight() + PADDING * 2;
+            if (w > width) {
+                return 0;
+            }
+            if (x + w > width) {
+                // Start a new row
+                x = 0;
+                y += rowHeight;
+                rowHeight = 0;
+            }
+            region.x = x + PADDING;
+            region.y = y + PADDING;
+            x += w;
+            rowHeight = Math.max(rowHeight, h);
+        }
+
+        int height = MIN_SIZE;
+        while (height < y + rowHeight) {
+            height *= 2;
+        }
+        return height <= MAX_SIZE ? height : 0;
+    }
+
+    /**
+     * Helper method to write the region table. Each sprite is listed by its image path, as x,y,width,height in
+     * pixels from the top left of the atlas
+     * @param regions The placed regions
+     * @param atlasFile The path of the atlas image
+     * @param width The width of the atlas
+     * @param height The height of the atlas
+     * @param tableFile The path to write the table to
+     * @throws IOException If the table can not be written
+     */
+    private static void writeTable(ArrayList<Region> regions, String atlasFile, int width, int height,
+                                   String tableFile) throws IOException {
+        ArrayList<Region> sorted = new ArrayList<Region>(regions);
+        sorted.sort(Comparator.comparing((Region region) -> region.path));
+
+        try (PrintWriter out = new PrintWriter(tableFile)) {
+            out.println("# Generated by tools/AtlasPacker.java, regenerate after changing any sprite image");
+            out.println("atlas.image=" + atlasFile);
+            out.println("atlas.width=" + width);
+            out.println("atlas.height=" + height);
+            for (Region region : sorted) {
+                out.printf("%s=%d,%d,%d,%d%n", region.path, region.x, region.y, region.image.getWidth(),
+                        region.image.getHeight());
+            }
+        }
+    }
+}